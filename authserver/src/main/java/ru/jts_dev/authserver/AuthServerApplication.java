@@ -26,10 +26,12 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.builder.SpringApplicationBuilder;
 import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.util.Assert;
 
 //@EntityScan(basePackages = {"ru.jts_dev.common", "ru.jts_dev.authserver"})
 @SpringBootApplication(scanBasePackages = {"ru.jts_dev.common", "ru.jts_dev.authserver"})
+@EnableScheduling
 public class AuthServerApplication implements CommandLineRunner {
     private final ConfigurableApplicationContext context;
 
@@ -21,6 +21,8 @@ package ru.jts_dev.authserver.config;
 
 import org.apache.activemq.artemis.api.core.TransportConfiguration;
 import org.apache.activemq.artemis.core.remoting.impl.netty.NettyAcceptorFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.jms.artemis.ArtemisConfigurationCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -34,19 +36,29 @@ import static org.apache.activemq.artemis.core.remoting.impl.netty.TransportCons
 import static org.apache.activemq.artemis.core.remoting.impl.netty.TransportConstants.PORT_PROP_NAME;
 
 /**
+ * Embedded Artemis server always has in-VM acceptor, which is used by auth server
+ * and embedded game server (embedded-gs profile). Netty acceptor is required for
+ * game servers in other processes, and can be disabled, when all game servers are embedded.
+ *
  * @author Camelion
  * @since 09.12.15
  */
 @EnableJms
 @Configuration
 public class ApacheArtemisConfig {
+    @Value("${authserver.artemis.acceptor.host:localhost}")
+    private String acceptorHost;
+    @Value("${authserver.artemis.acceptor.port:5445}")
+    private int acceptorPort;
+
     @Bean
+    @ConditionalOnProperty(name = "authserver.artemis.acceptor.enabled", matchIfMissing = true)
     public ArtemisConfigurationCustomizer artemisCustomizer() {
         return configuration -> {
             Set<TransportConfiguration> acceptors = configuration.getAcceptorConfigurations();
             Map<String, Object> params = new HashMap<>();
-            params.put(HOST_PROP_NAME, "localhost");
-            params.put(PORT_PROP_NAME, "5445");
+            params.put(HOST_PROP_NAME, acceptorHost);
+            params.put(PORT_PROP_NAME, acceptorPort);
             TransportConfiguration tc = new TransportConfiguration(NettyAcceptorFactory.class.getName(), params);
             acceptors.add(tc);
         };
@@ -24,13 +24,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.event.EventListener;
 import org.springframework.integration.annotation.IntegrationComponentScan;
 import org.springframework.integration.annotation.ServiceActivator;
 import org.springframework.integration.channel.DirectChannel;
-import org.springframework.integration.channel.ExecutorChannel;
 import org.springframework.integration.channel.PublishSubscribeChannel;
 import org.springframework.integration.dsl.IntegrationFlow;
 import org.springframework.integration.dsl.IntegrationFlows;
@@ -38,26 +38,28 @@ import org.springframework.integration.ip.IpHeaders;
 import org.springframework.integration.ip.tcp.TcpReceivingChannelAdapter;
 import org.springframework.integration.ip.tcp.TcpSendingMessageHandler;
 import org.springframework.integration.ip.tcp.connection.AbstractServerConnectionFactory;
-import org.springframework.integration.ip.tcp.connection.TcpConnectionEvent;
+import org.springframework.integration.ip.tcp.connection.TcpConnectionOpenEvent;
+import org.springframework.integration.ip.tcp.connection.TcpMessageMapper;
 import org.springframework.integration.ip.tcp.connection.TcpNioServerConnectionFactory;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
 import ru.jts_dev.authserver.model.AuthSession;
+import ru.jts_dev.authserver.packets.LoginClientPacketCodec;
 import ru.jts_dev.authserver.packets.LoginClientPacketHandler;
 import ru.jts_dev.authserver.packets.out.Init;
 import ru.jts_dev.authserver.service.AuthSessionService;
-import ru.jts_dev.authserver.util.Encoder;
+import ru.jts_dev.authserver.util.LoginCrypt;
 import ru.jts_dev.common.packets.IncomingMessageWrapper;
 import ru.jts_dev.common.packets.OutgoingMessageWrapper;
-import ru.jts_dev.common.tcp.ProtocolByteArrayLengthHeaderSerializer;
-
-import java.nio.ByteOrder;
-import java.security.interfaces.RSAPublicKey;
-import java.util.concurrent.Executors;
-
-import static io.netty.buffer.Unpooled.wrappedBuffer;
-import static java.util.Collections.singletonMap;
-import static ru.jts_dev.authserver.config.KeyGenerationConfig.scrambleModulus;
-import static ru.jts_dev.authserver.util.Encoder.STATIC_KEY_HEADER;
+import ru.jts_dev.common.packets.SessionOrderedExecutor;
+import ru.jts_dev.common.packets.SessionOrderedExecutor.OverflowPolicy;
+import ru.jts_dev.common.packets.SessionOrderedExecutorChannel;
+import ru.jts_dev.common.tcp.ByteBufTcpSendingMessageHandler;
+import ru.jts_dev.common.tcp.NettyServerConnectionFactory;
+import ru.jts_dev.common.tcp.OutboundFlushBatch;
+import ru.jts_dev.common.tcp.OutboundFlushMetrics;
+import ru.jts_dev.common.tcp.ProtocolByteBufLengthHeaderSerializer;
+import ru.jts_dev.common.tcp.TcpTransport;
 
 /**
  * @author Camelion
@@ -67,38 +69,75 @@ import static ru.jts_dev.authserver.util.Encoder.STATIC_KEY_HEADER;
 @IntegrationComponentScan
 public class AuthIntegrationConfig {
     private static final Logger log = LoggerFactory.getLogger(AuthIntegrationConfig.class);
+    private static final String TRANSPORT_PROPERTY = "authserver.transport";
 
-    private final Encoder encoder;
+    private final LoginCrypt loginCrypt;
     private final LoginClientPacketHandler clientPacketHandler;
+    private final LoginClientPacketCodec clientPacketCodec;
     private final AuthSessionService authSessionService;
+    private final OutboundFlushMetrics flushMetrics;
 
     @Value("${authserver.port}")
     private int authserverPort;
 
+    @Value("${authserver.transport:NIO}")
+    private TcpTransport transport;
+    @Value("${authserver.netty.flush-interval:5}")
+    private long flushInterval;
+    @Value("${authserver.packets.executor.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+    private int executorThreads;
+    @Value("${authserver.packets.executor.queue-limit:128}")
+    private int executorQueueLimit;
+    @Value("${authserver.packets.executor.overflow-policy:DISCONNECT}")
+    private OverflowPolicy executorOverflowPolicy;
+
     @Autowired
-    public AuthIntegrationConfig(AuthSessionService authSessionService, LoginClientPacketHandler clientPacketHandler, Encoder encoder) {
+    public AuthIntegrationConfig(AuthSessionService authSessionService, LoginClientPacketHandler clientPacketHandler,
+                                 LoginClientPacketCodec clientPacketCodec, LoginCrypt loginCrypt,
+                                 OutboundFlushMetrics flushMetrics) {
         this.authSessionService = authSessionService;
         this.clientPacketHandler = clientPacketHandler;
-        this.encoder = encoder;
+        this.clientPacketCodec = clientPacketCodec;
+        this.loginCrypt = loginCrypt;
+        this.flushMetrics = flushMetrics;
     }
 
     /**
      * Server connection factory, for game client connections.
      * Set length serializer/deserializer for packets.
+     * With {@link TcpTransport#NETTY} transport packets are decoded and encoded right in netty pipeline,
+     * so {@link #recvFlow()} and {@link #sendFlow()} are not used.
      *
      * @return - server factory bean
      */
     @Bean
-    public TcpNioServerConnectionFactory connectionFactory() {
+    public AbstractServerConnectionFactory connectionFactory() {
+        if (transport == TcpTransport.NETTY) {
+            NettyServerConnectionFactory serverConnectionFactory = new NettyServerConnectionFactory(authserverPort);
+
+            serverConnectionFactory.setCodec(clientPacketCodec);
+            serverConnectionFactory.setOutputChannel(incomingPacketExecutorChannel());
+            serverConnectionFactory.setFlushInterval(flushInterval);
+            serverConnectionFactory.setFlushMetrics(flushMetrics);
+
+            return serverConnectionFactory;
+        }
+
         TcpNioServerConnectionFactory serverConnectionFactory = new TcpNioServerConnectionFactory(authserverPort);
 
-        serverConnectionFactory.setDeserializer(new ProtocolByteArrayLengthHeaderSerializer());
-        serverConnectionFactory.setSerializer(new ProtocolByteArrayLengthHeaderSerializer());
+        ProtocolByteBufLengthHeaderSerializer serializer = new ProtocolByteBufLengthHeaderSerializer();
+        serverConnectionFactory.setDeserializer(serializer);
+        serverConnectionFactory.setSerializer(serializer);
+
+        TcpMessageMapper mapper = new TcpMessageMapper();
+        mapper.setStringToBytes(false); // pass ByteBuf payloads to serializer as is
+        serverConnectionFactory.setMapper(mapper);
 
         return serverConnectionFactory;
     }
 
     @Bean
+    @ConditionalOnProperty(name = TRANSPORT_PROPERTY, havingValue = "NIO", matchIfMissing = true)
     public TcpReceivingChannelAdapter tcpIn(AbstractServerConnectionFactory connectionFactory) {
         TcpReceivingChannelAdapter gateway = new TcpReceivingChannelAdapter();
         gateway.setConnectionFactory(connectionFactory);
@@ -120,14 +159,30 @@ public class AuthIntegrationConfig {
      * @return - tcp message handler bean
      */
     @Bean
+    @ConditionalOnProperty(name = TRANSPORT_PROPERTY, havingValue = "NIO", matchIfMissing = true)
     @ServiceActivator(inputChannel = "tcpOutChannel")
     public TcpSendingMessageHandler tcpOut(AbstractServerConnectionFactory connectionFactory) {
-        TcpSendingMessageHandler gateway = new TcpSendingMessageHandler();
+        // payloads of messages to closed connections are released
+        TcpSendingMessageHandler gateway = new ByteBufTcpSendingMessageHandler();
         gateway.setConnectionFactory(connectionFactory);
 
         return gateway;
     }
 
+    /**
+     * Endpoint for output messages with netty transport.
+     * Receives unwritten messages directly from packetChannel, they are encoded in connection pipeline.
+     *
+     * @param connectionFactory - server factory bean
+     * @return - netty message handler bean
+     */
+    @Bean
+    @ConditionalOnProperty(name = TRANSPORT_PROPERTY, havingValue = "NETTY")
+    @ServiceActivator(inputChannel = "packetChannel")
+    public MessageHandler nettyOut(AbstractServerConnectionFactory connectionFactory) {
+        return message -> ((NettyServerConnectionFactory) connectionFactory).send((OutgoingMessageWrapper) message);
+    }
+
     /**
      * Channel for raw object messages, unwrited and unencrypted
      *
@@ -149,17 +204,17 @@ public class AuthIntegrationConfig {
     }
 
     /**
-     * Event listener for {@link TcpConnectionEvent}.
+     * Event listener for {@link TcpConnectionOpenEvent}.
      * Event receives when new connection accepted.
      *
      * @param event - event instance
      */
     @EventListener
-    public void authTcpConnectionEventListener(TcpConnectionEvent event) {
+    public void authTcpConnectionEventListener(TcpConnectionOpenEvent event) {
         String connectionId = event.getConnectionId();
 
         AuthSession gameSession = authSessionService.getSessionBy(connectionId);
-        byte[] scrambledModulus = scrambleModulus(((RSAPublicKey) gameSession.getRsaKeyPair().getPublic()).getModulus());
+        byte[] scrambledModulus = gameSession.getScrambledModulus();
         byte[] blowfishKey = gameSession.getBlowfishKey();
 
         OutgoingMessageWrapper msg = new Init(gameSession.getSessionId(), scrambledModulus, blowfishKey);
@@ -174,6 +229,7 @@ public class AuthIntegrationConfig {
      * @return - complete message transformations flow
      */
     @Bean
+    @ConditionalOnProperty(name = TRANSPORT_PROPERTY, havingValue = "NIO", matchIfMissing = true)
     public IntegrationFlow sendFlow() {
         return IntegrationFlows
                 .from(packetChannel())
@@ -181,27 +237,26 @@ public class AuthIntegrationConfig {
                     msg.write();
                     return msg;
                 })
-                .transform(OutgoingMessageWrapper.class, msg -> {
-                    encoder.appendBlowFishPadding(msg.getPayload());
-                    return msg;
-                })
                 .route(OutgoingMessageWrapper.class, msg -> msg instanceof Init,
                         invoker -> invoker
                                 .subFlowMapping("true",
                                         sf -> sf.transform(Init.class,
-                                                i -> encoder.encWithXor(i.getPayload()))
-                                                .enrichHeaders(singletonMap(STATIC_KEY_HEADER, true)))
+                                                i -> loginCrypt.encryptInit(i.getPayload())))
                                 .subFlowMapping("false",
-                                        sf -> sf.transform(OutgoingMessageWrapper.class,
-                                                msg -> encoder.appendChecksum(msg.getPayload()))))
-                .transform(ByteBuf.class, buf -> {
-                    byte[] data = new byte[buf.readableBytes()];
-                    buf.readBytes(data);
-                    buf.release();
-                    return data;
-                })
-                .transform(encoder, "encrypt")
-                .headerFilter(STATIC_KEY_HEADER)
+                                        sf -> sf.handle(OutgoingMessageWrapper.class, (msg, headers) -> {
+                                            final AuthSession session = authSessionService
+                                                    .findSessionBy((String) headers.get(IpHeaders.CONNECTION_ID));
+                                            if (session == null) {
+                                                // connection is already closed, pooled payload is dropped
+                                                msg.getPayload().release();
+                                                return null;
+                                            }
+
+                                            // shared payload is encrypted to new buffer
+                                            return msg.isShared()
+                                                    ? loginCrypt.encryptCopy(msg.getPayload(), session)
+                                                    : loginCrypt.encrypt(msg.getPayload(), session);
+                                        })))
                 .channel(tcpOutChannel())
                 .get();
     }
@@ -212,46 +267,76 @@ public class AuthIntegrationConfig {
      * @return - complete message transformation flow
      */
     @Bean
+    @ConditionalOnProperty(name = TRANSPORT_PROPERTY, havingValue = "NIO", matchIfMissing = true)
     public IntegrationFlow recvFlow() {
         return IntegrationFlows
                 .from(tcpInputChannel())
-                .transform(encoder, "decrypt")
-                .transform(byte[].class, b -> wrappedBuffer(b).order(ByteOrder.LITTLE_ENDIAN))
-                .transform(ByteBuf.class, encoder::validateChecksum)
-                .transform(clientPacketHandler, "handle")
+                .handle(ByteBuf.class, (buf, headers) -> {
+                    final String connectionId = (String) headers.get(IpHeaders.CONNECTION_ID);
+                    try {
+                        // decrypted data is slice of frame, released by packet
+                        final ByteBuf data = loginCrypt.decrypt(buf, authSessionService.getSessionBy(connectionId));
+
+                        return clientPacketHandler.handle(data, connectionId);
+                    } catch (RuntimeException e) {
+                        buf.release();
+                        throw e;
+                    }
+                })
                 .channel(incomingPacketExecutorChannel())
                 .get();
     }
 
+    /**
+     * Channel for decoded client packets. Packets of one connection are executed serially, in receive order,
+     * on fixed count of threads. Connection, which exceeds queue limit, is closed
+     * with {@link OverflowPolicy#DISCONNECT} policy.
+     *
+     * @return - channel
+     */
     @Bean
     public MessageChannel incomingPacketExecutorChannel() {
-        // TODO: 07.12.15 investigate, may be should replaced with spring TaskExecutor
-        return new ExecutorChannel(Executors.newCachedThreadPool());
+        return new SessionOrderedExecutorChannel(incomingPacketExecutor());
+    }
+
+    @Bean
+    public SessionOrderedExecutor incomingPacketExecutor() {
+        SessionOrderedExecutor executor = new SessionOrderedExecutor("authserver-packets-",
+                executorThreads, executorQueueLimit, executorOverflowPolicy);
+        executor.setDisconnectHandler(connectionId -> connectionFactory().closeConnection(connectionId));
+
+        return executor;
     }
 
     @ServiceActivator(inputChannel = "incomingPacketExecutorChannel")
     public void executePacket(IncomingMessageWrapper msg) {
-        msg.prepare();
-        msg.run();
-
-        //TODO: 14.07.16 Replace with spring AOP stuff, or helper class
-        if (log.isDebugEnabled() && msg.getPayload().readableBytes() > 0) {
-            final StringBuilder leftStr = new StringBuilder("[");
-            msg.getPayload().forEachByte(
-                    msg.getPayload().readerIndex(),
-                    msg.getPayload().readableBytes(),
-                    b -> {
-                        leftStr.append(" ");
-                        leftStr.append(String.format("%02X", b));
-                        return true;
-                    });
-            leftStr.append(" ]");
-
-            log.debug(msg.getPayload().readableBytes() + " byte(s) left in "
-                    + msg.getClass().getSimpleName() + " buffer: "
-                    + leftStr.toString());
-        }
+        // pooled payload is released, even if packet is malformed
+        try {
+            // packets, sent by handler, are flushed once, after handler
+            OutboundFlushBatch.run(() -> {
+                msg.prepare();
+                msg.run();
+            });
 
-        msg.release();
+            //TODO: 14.07.16 Replace with spring AOP stuff, or helper class
+            if (log.isDebugEnabled() && msg.getPayload().readableBytes() > 0) {
+                final StringBuilder leftStr = new StringBuilder("[");
+                msg.getPayload().forEachByte(
+                        msg.getPayload().readerIndex(),
+                        msg.getPayload().readableBytes(),
+                        b -> {
+                            leftStr.append(" ");
+                            leftStr.append(String.format("%02X", b));
+                            return true;
+                        });
+                leftStr.append(" ]");
+
+                log.debug(msg.getPayload().readableBytes() + " byte(s) left in "
+                        + msg.getClass().getSimpleName() + " buffer: "
+                        + leftStr.toString());
+            }
+        } finally {
+            msg.release();
+        }
     }
 }
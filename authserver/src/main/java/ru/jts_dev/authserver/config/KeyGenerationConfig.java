@@ -19,8 +19,12 @@
 
 package ru.jts_dev.authserver.config;
 
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Scope;
+import ru.jts_dev.authserver.util.RsaKeyPairPool;
 
 import java.math.BigInteger;
 import java.security.InvalidAlgorithmParameterException;
@@ -28,13 +32,22 @@ import java.security.KeyPairGenerator;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.RSAKeyGenParameterSpec;
 
+import static org.springframework.beans.factory.config.ConfigurableBeanFactory.SCOPE_PROTOTYPE;
+
 /**
  * @author Camelion
  * @since 30.11.15
  */
 @Configuration
 public class KeyGenerationConfig {
-    static byte[] scrambleModulus(BigInteger modulus) {
+    @Value("${authserver.keys.pool.low-watermark:16}")
+    private int poolLowWatermark;
+    @Value("${authserver.keys.pool.high-watermark:64}")
+    private int poolHighWatermark;
+    @Value("${authserver.keys.pool.refill-threads:1}")
+    private int poolRefillThreads;
+
+    public static byte[] scrambleModulus(BigInteger modulus) {
         byte[] scrambledMod = modulus.toByteArray();
 
         if (scrambledMod.length == 0x81 && scrambledMod[0] == 0x00) {
@@ -64,7 +77,13 @@ public class KeyGenerationConfig {
         return scrambledMod;
     }
 
+    /**
+     * {@link KeyPairGenerator} isn't thread safe, so new generator is created for each injection point
+     *
+     * @return - RSA key pair generator
+     */
     @Bean
+    @Scope(SCOPE_PROTOTYPE)
     public KeyPairGenerator RSAKeyPairGenerator() throws NoSuchAlgorithmException, InvalidAlgorithmParameterException {
         KeyPairGenerator keygen;
 
@@ -74,4 +93,9 @@ public class KeyGenerationConfig {
 
         return keygen;
     }
+
+    @Bean
+    public RsaKeyPairPool rsaKeyPairPool(ObjectFactory<KeyPairGenerator> generatorFactory) {
+        return new RsaKeyPairPool(generatorFactory, poolLowWatermark, poolHighWatermark, poolRefillThreads);
+    }
 }
@@ -19,6 +19,8 @@
 
 package ru.jts_dev.authserver.model;
 
+import ru.jts_dev.authserver.util.BlowfishEngine;
+
 import java.security.KeyPair;
 
 /**
@@ -27,20 +29,27 @@ import java.security.KeyPair;
  */
 public class AuthSession {
     private final String connectionId;
+    private final String hostAddress;
     private final int sessionId;
-    private final KeyPair rsaKeyPair;
+    private final ScrambledKeyPair rsaKeyPair;
     private final byte[] blowfishKey;
+    private final BlowfishEngine blowfishEngine;
     private final int loginKey1;
     private final int loginKey2;
     private final int gameKey1;
     private final int gameKey2;
+    private volatile String account;
 
-    public AuthSession(String connectionId, int sessionId, KeyPair rsaKeyPair, byte[] blowfishKey,
+    public AuthSession(String connectionId, String hostAddress, int sessionId, ScrambledKeyPair rsaKeyPair, byte[] blowfishKey,
                        int loginKey1, int loginKey2, int gameKey1, int gameKey2) {
         this.connectionId = connectionId;
+        this.hostAddress = hostAddress;
         this.sessionId = sessionId;
         this.rsaKeyPair = rsaKeyPair;
         this.blowfishKey = blowfishKey;
+        // key schedule is computed once per session
+        this.blowfishEngine = new BlowfishEngine();
+        this.blowfishEngine.init(blowfishKey);
         this.loginKey1 = loginKey1;
         this.loginKey2 = loginKey2;
         this.gameKey1 = gameKey1;
@@ -51,14 +60,32 @@ public class AuthSession {
         return connectionId;
     }
 
+    /**
+     * @return - remote address of client
+     */
+    public String getHostAddress() {
+        return hostAddress;
+    }
+
     public KeyPair getRsaKeyPair() {
-        return rsaKeyPair;
+        return rsaKeyPair.getKeyPair();
+    }
+
+    public byte[] getScrambledModulus() {
+        return rsaKeyPair.getScrambledModulus();
     }
 
     public byte[] getBlowfishKey() {
         return blowfishKey;
     }
 
+    /**
+     * @return - blowfish engine, initialized with session key
+     */
+    public BlowfishEngine getBlowfishEngine() {
+        return blowfishEngine;
+    }
+
     public int getSessionId() {
         return sessionId;
     }
@@ -78,4 +105,15 @@ public class AuthSession {
     public int getGameKey2() {
         return gameKey2;
     }
+
+    /**
+     * @return - login of authenticated account, or {@code null} before successful login
+     */
+    public String getAccount() {
+        return account;
+    }
+
+    public void setAccount(String account) {
+        this.account = account;
+    }
 }
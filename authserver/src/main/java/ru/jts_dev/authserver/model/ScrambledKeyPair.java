@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.authserver.model;
+
+import java.security.KeyPair;
+
+/**
+ * RSA key pair with modulus of public key, scrambled for {@link ru.jts_dev.authserver.packets.out.Init} packet
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+public final class ScrambledKeyPair {
+    private final KeyPair keyPair;
+    private final byte[] scrambledModulus;
+
+    public ScrambledKeyPair(KeyPair keyPair, byte[] scrambledModulus) {
+        this.keyPair = keyPair;
+        this.scrambledModulus = scrambledModulus;
+    }
+
+    public KeyPair getKeyPair() {
+        return keyPair;
+    }
+
+    public byte[] getScrambledModulus() {
+        return scrambledModulus;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.authserver.packets;
+
+import io.netty.buffer.ByteBuf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.jts_dev.authserver.model.AuthSession;
+import ru.jts_dev.authserver.packets.out.Init;
+import ru.jts_dev.authserver.service.AuthSessionService;
+import ru.jts_dev.authserver.util.LoginCrypt;
+import ru.jts_dev.common.packets.IncomingMessageWrapper;
+import ru.jts_dev.common.packets.OutgoingMessageWrapper;
+import ru.jts_dev.common.tcp.NettyTcpConnection;
+import ru.jts_dev.common.tcp.PacketCodec;
+
+/**
+ * Login client codec for netty transport, same transformations as in
+ * {@link ru.jts_dev.authserver.config.AuthIntegrationConfig#recvFlow()} and
+ * {@link ru.jts_dev.authserver.config.AuthIntegrationConfig#sendFlow()} flows.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+@Component
+public class LoginClientPacketCodec implements PacketCodec {
+    private final LoginClientPacketHandler clientPacketHandler;
+    private final AuthSessionService authSessionService;
+    private final LoginCrypt loginCrypt;
+
+    @Autowired
+    public LoginClientPacketCodec(LoginClientPacketHandler clientPacketHandler,
+                                  AuthSessionService authSessionService, LoginCrypt loginCrypt) {
+        this.clientPacketHandler = clientPacketHandler;
+        this.authSessionService = authSessionService;
+        this.loginCrypt = loginCrypt;
+    }
+
+    @Override
+    public IncomingMessageWrapper decode(NettyTcpConnection connection, ByteBuf frame) {
+        try {
+            // decrypted data is slice of frame, released by packet
+            final ByteBuf data = loginCrypt.decrypt(frame, sessionOf(connection));
+
+            return clientPacketHandler.handle(data, connection.getConnectionId());
+        } catch (RuntimeException e) {
+            frame.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public ByteBuf encode(NettyTcpConnection connection, OutgoingMessageWrapper msg) {
+        msg.write();
+
+        if (msg instanceof Init) {
+            return loginCrypt.encryptInit(msg.getPayload());
+        }
+
+        if (msg.isShared()) {
+            return loginCrypt.encryptCopy(msg.getPayload(), sessionOf(connection));
+        }
+
+        return loginCrypt.encrypt(msg.getPayload(), sessionOf(connection));
+    }
+
+    private AuthSession sessionOf(NettyTcpConnection connection) {
+        final Object attachment = connection.getAttachment();
+        if (attachment instanceof AuthSession) {
+            return (AuthSession) attachment;
+        }
+
+        return authSessionService.getSessionBy(connection.getConnectionId());
+    }
+}
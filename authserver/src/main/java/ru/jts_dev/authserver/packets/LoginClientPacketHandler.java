@@ -22,8 +22,8 @@ package ru.jts_dev.authserver.packets;
 import io.netty.buffer.ByteBuf;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.devtools.restart.RestartScope;
 import org.springframework.context.ApplicationContext;
 import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.handler.annotation.Header;
@@ -32,6 +32,7 @@ import ru.jts_dev.authserver.packets.in.AuthGameGuard;
 import ru.jts_dev.authserver.packets.in.RequestAuthLogin;
 import ru.jts_dev.authserver.packets.in.RequestServerList;
 import ru.jts_dev.authserver.packets.in.RequestServerLogin;
+import ru.jts_dev.common.packets.IncomingMessageFactory;
 import ru.jts_dev.common.packets.IncomingMessageWrapper;
 
 import static org.springframework.integration.ip.IpHeaders.CONNECTION_ID;
@@ -41,39 +42,57 @@ import static org.springframework.integration.ip.IpHeaders.CONNECTION_ID;
  * @since 06.12.15
  */
 @Component
-public class LoginClientPacketHandler {
+public class LoginClientPacketHandler implements SmartInitializingSingleton {
+    private static final int OPCODES_COUNT = 0x100;
     private static final Logger log = LoggerFactory.getLogger(LoginClientPacketHandler.class);
 
     private final ApplicationContext context;
 
+    /**
+     * packet factories, indexed by packet opcode
+     */
+    private IncomingMessageFactory[] packets;
+
     @Autowired
     public LoginClientPacketHandler(ApplicationContext context) {
         this.context = context;
     }
 
+    /**
+     * Prepare packet factories, after all singletons are created, because packets dependencies are resolved once here.
+     *
+     * @see IncomingMessageFactory
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        final IncomingMessageFactory[] packets = new IncomingMessageFactory[OPCODES_COUNT];
+
+        packets[0x00] = createFactory(RequestAuthLogin.class);
+        packets[0x02] = createFactory(RequestServerLogin.class);
+        packets[0x05] = createFactory(RequestServerList.class);
+        packets[0x07] = createFactory(AuthGameGuard.class);
+
+        this.packets = packets;
+    }
+
+    private IncomingMessageFactory createFactory(Class<? extends IncomingMessageWrapper> packetClass) {
+        final String[] beanNames = context.getBeanNamesForType(packetClass);
+        if (beanNames.length != 1)
+            throw new IllegalStateException("Expected single bean of " + packetClass + ", found " + beanNames.length);
+
+        return IncomingMessageFactory.forBean(context.getAutowireCapableBeanFactory(), beanNames[0]);
+    }
+
     public final IncomingMessageWrapper handle(final ByteBuf buf, @Header(CONNECTION_ID) final String connectionId) {
         if (buf.readableBytes() == 0)
             throw new RuntimeException("At least 1 readable byte excepted in buffer");
 
-        final int opcode = buf.readByte();
-        final IncomingMessageWrapper msg;
-        switch (opcode) {
-            case 0x00:
-                msg = context.getBean(RequestAuthLogin.class);
-                break;
-            case 0x02:
-                msg = context.getBean(RequestServerLogin.class);
-                break;
-            case 0x05:
-                msg = context.getBean(RequestServerList.class);
-                break;
-            case 0x07:
-                msg = context.getBean(AuthGameGuard.class);
-                break;
-            default:
-                throw new RuntimeException("Invalid packet opcode: " + Integer.toHexString(opcode));
-        }
+        final int opcode = buf.readUnsignedByte();
+        final IncomingMessageFactory factory = packets[opcode];
+        if (factory == null)
+            throw new RuntimeException("Invalid packet opcode: " + Integer.toHexString(opcode));
 
+        final IncomingMessageWrapper msg = factory.create();
         final ByteBuf data = buf.slice();
 
         Class<? extends IncomingMessageWrapper> packetClass = msg.getClass();
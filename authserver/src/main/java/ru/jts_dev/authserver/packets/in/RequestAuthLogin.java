@@ -31,15 +31,21 @@ import ru.jts_dev.authserver.model.Account;
 import ru.jts_dev.authserver.model.AuthSession;
 import ru.jts_dev.authserver.packets.out.LoginFail;
 import ru.jts_dev.authserver.packets.out.LoginOk;
-import ru.jts_dev.authserver.repositories.AccountRepository;
+import ru.jts_dev.authserver.service.AccountService;
 import ru.jts_dev.authserver.service.AuthSessionService;
 import ru.jts_dev.authserver.service.BroadcastService;
+import ru.jts_dev.authserver.service.PasswordVerificationService;
+import ru.jts_dev.authserver.service.PasswordVerificationService.Admission;
 import ru.jts_dev.common.packets.IncomingMessageWrapper;
 
 import javax.crypto.Cipher;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Optional;
 
 import static org.springframework.beans.factory.config.ConfigurableBeanFactory.SCOPE_PROTOTYPE;
+import static ru.jts_dev.authserver.packets.out.LoginFail.REASON_ACCESS_FAILED;
+import static ru.jts_dev.authserver.packets.out.LoginFail.REASON_SERVER_OVERLOADED;
 import static ru.jts_dev.authserver.packets.out.LoginFail.REASON_USER_OR_PASS_WRONG;
 
 /**
@@ -51,6 +57,14 @@ import static ru.jts_dev.authserver.packets.out.LoginFail.REASON_USER_OR_PASS_WR
 public final class RequestAuthLogin extends IncomingMessageWrapper {
     private static final Logger log = LoggerFactory.getLogger(RequestAuthLogin.class);
     private static final int LENGTH = 128;
+    // Cipher lookup is expensive, and instances aren't thread safe
+    private static final ThreadLocal<Cipher> RSA_CIPHER = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance("RSA/ECB/nopadding");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
 
     private final AuthSessionService authSessionService;
 
@@ -58,22 +72,26 @@ public final class RequestAuthLogin extends IncomingMessageWrapper {
 
     private final PasswordEncoder passwordEncoder;
 
-    private final AccountRepository repository;
+    private final AccountService accountService;
 
     private final AbstractConnectionFactory connectionFactory;
 
+    private final PasswordVerificationService verificationService;
+
     @Value("${authserver.accounts.autocreate}")
     private boolean accountsAutocreate;
 
     private byte[] data;
 
     @Autowired
-    public RequestAuthLogin(PasswordEncoder passwordEncoder, AbstractConnectionFactory connectionFactory, AuthSessionService authSessionService, BroadcastService broadcastService, AccountRepository repository) {
+    public RequestAuthLogin(PasswordEncoder passwordEncoder, AbstractConnectionFactory connectionFactory, AuthSessionService authSessionService, BroadcastService broadcastService, AccountService accountService,
+                            PasswordVerificationService verificationService) {
         this.passwordEncoder = passwordEncoder;
         this.connectionFactory = connectionFactory;
         this.authSessionService = authSessionService;
         this.broadcastService = broadcastService;
-        this.repository = repository;
+        this.accountService = accountService;
+        this.verificationService = verificationService;
     }
 
     @Override
@@ -87,7 +105,7 @@ public final class RequestAuthLogin extends IncomingMessageWrapper {
 
         byte[] decrypted;
         try {
-            Cipher rsaCipher = Cipher.getInstance("RSA/ECB/nopadding");
+            Cipher rsaCipher = RSA_CIPHER.get();
             rsaCipher.init(Cipher.DECRYPT_MODE, session.getRsaKeyPair().getPrivate());
             decrypted = rsaCipher.doFinal(data, 0x00, 0x80);
         } catch (Exception e) {
@@ -98,28 +116,42 @@ public final class RequestAuthLogin extends IncomingMessageWrapper {
         String login = new String(decrypted, 0x5E, 14, StandardCharsets.UTF_8).trim();
         String password = new String(decrypted, 0x6C, 16, StandardCharsets.UTF_8).trim();
 
-        if (!repository.exists(login)) {
-            if (accountsAutocreate) {
-                repository.save(new Account(login, passwordEncoder.encode(password)));
-            } else {
+        // password hashing is expensive, so it's executed by separate bounded stage
+        Admission admission = verificationService.submit(session.getHostAddress(), login,
+                () -> verify(session, login, password));
+
+        if (admission != Admission.ACCEPTED) {
+            log.debug("Login attempt for account '" + login + "' rejected: " + admission);
+
+            int reason = admission == Admission.QUEUE_FULL ? REASON_SERVER_OVERLOADED : REASON_ACCESS_FAILED;
+            broadcastService.send(session, new LoginFail(reason));
+            connectionFactory.closeConnection(getConnectionId());
+        }
+    }
+
+    private void verify(AuthSession session, String login, String password) {
+        Optional<Account> account = accountService.findAccount(login);
+
+        if (!account.isPresent()) {
+            if (!accountsAutocreate) {
                 log.trace("Account with login '" + login + "' not found in database");
 
                 broadcastService.send(session, new LoginFail(REASON_USER_OR_PASS_WRONG));
-                connectionFactory.closeConnection(getConnectionId());
+                connectionFactory.closeConnection(session.getConnectionId());
                 return;
             }
-        }
-
-        Account account = repository.findOne(login);
 
-        if (!passwordEncoder.matches(password, account.getPasswordHash())) {
+            // password is just encoded, matching isn't required
+            accountService.createAccount(login, passwordEncoder.encode(password));
+        } else if (!passwordEncoder.matches(password, account.get().getPasswordHash())) {
             log.trace("Password don't match for account '" + login + "'");
 
             broadcastService.send(session, new LoginFail(REASON_USER_OR_PASS_WRONG));
-            connectionFactory.closeConnection(getConnectionId());
+            connectionFactory.closeConnection(session.getConnectionId());
             return;
         }
 
+        session.setAccount(login);
         broadcastService.send(session, new LoginOk(session.getLoginKey1(), session.getLoginKey2()));
     }
 }
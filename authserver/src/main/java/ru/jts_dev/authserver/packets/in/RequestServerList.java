@@ -25,7 +25,6 @@ import org.springframework.integration.ip.tcp.connection.AbstractConnectionFacto
 import org.springframework.stereotype.Component;
 import ru.jts_dev.authserver.model.AuthSession;
 import ru.jts_dev.authserver.packets.out.LoginFail;
-import ru.jts_dev.authserver.packets.out.ServerList;
 import ru.jts_dev.authserver.service.AuthSessionService;
 import ru.jts_dev.authserver.service.BroadcastService;
 import ru.jts_dev.authserver.service.GameServerService;
@@ -68,7 +67,7 @@ public class RequestServerList extends IncomingMessageWrapper {
         AuthSession session = authSessionService.getSessionBy(getConnectionId());
 
         if (session.getLoginKey1() == loginKey1 && session.getLoginKey2() == loginKey2) {
-            broadcastService.send(session, new ServerList(gameServerService.getGameServers()));
+            broadcastService.send(session, gameServerService.newServerList());
         } else {
             broadcastService.send(session, new LoginFail(REASON_ACCESS_FAILED));
             connectionFactory.closeConnection(getConnectionId());
@@ -28,6 +28,8 @@ import ru.jts_dev.authserver.packets.out.LoginFail;
 import ru.jts_dev.authserver.packets.out.PlayOk;
 import ru.jts_dev.authserver.service.AuthSessionService;
 import ru.jts_dev.authserver.service.BroadcastService;
+import ru.jts_dev.authserver.service.GameServerService;
+import ru.jts_dev.common.messaging.SessionKeys;
 import ru.jts_dev.common.packets.IncomingMessageWrapper;
 
 import static org.springframework.beans.factory.config.ConfigurableBeanFactory.SCOPE_PROTOTYPE;
@@ -46,14 +48,17 @@ public class RequestServerLogin extends IncomingMessageWrapper {
 
     private final AuthSessionService authSessionService;
     private final BroadcastService broadcastService;
+    private final GameServerService gameServerService;
 
     private final AbstractConnectionFactory connectionFactory;
 
     @Autowired
-    public RequestServerLogin(BroadcastService broadcastService, AbstractConnectionFactory connectionFactory, AuthSessionService authSessionService) {
+    public RequestServerLogin(BroadcastService broadcastService, AbstractConnectionFactory connectionFactory, AuthSessionService authSessionService,
+                              GameServerService gameServerService) {
         this.broadcastService = broadcastService;
         this.connectionFactory = connectionFactory;
         this.authSessionService = authSessionService;
+        this.gameServerService = gameServerService;
     }
 
     @Override
@@ -67,7 +72,11 @@ public class RequestServerLogin extends IncomingMessageWrapper {
     public void run() {
         AuthSession session = authSessionService.getSessionBy(getConnectionId());
 
-        if (session.getLoginKey1() == key1 && session.getLoginKey2() == key2) {
+        final String account = session.getAccount();
+        if (account != null && session.getLoginKey1() == key1 && session.getLoginKey2() == key2
+                // keys are sent before play keys, so game server gets them before client connects
+                && gameServerService.pushSessionKeys(serverId, new SessionKeys(account,
+                session.getLoginKey1(), session.getLoginKey2(), session.getGameKey1(), session.getGameKey2()))) {
             broadcastService.send(session, new PlayOk(session.getGameKey1(), session.getGameKey2()));
         } else {
             broadcastService.send(session, new LoginFail(REASON_ACCESS_FAILED));
@@ -27,6 +27,7 @@ import ru.jts_dev.common.packets.OutgoingMessageWrapper;
  */
 public final class LoginFail extends OutgoingMessageWrapper {
     public static final int REASON_USER_OR_PASS_WRONG = 3;
+    public static final int REASON_SERVER_OVERLOADED = 15;
     public static final int REASON_ACCESS_FAILED = 21;
     private final int code;
 
@@ -22,17 +22,28 @@ package ru.jts_dev.authserver.packets.out;
 import ru.jts_dev.common.messaging.GameServerInfo;
 import ru.jts_dev.common.packets.OutgoingMessageWrapper;
 
-import java.util.Set;
+import java.util.Collection;
+import java.util.function.Predicate;
 
 /**
  * @author Camelion
  * @since 09.12.15
  */
 public class ServerList extends OutgoingMessageWrapper {
-    private final Set<GameServerInfo> gameServers;
+    private final Collection<GameServerInfo> gameServers;
+    private final Predicate<GameServerInfo> full;
 
-    public ServerList(final Set<GameServerInfo> gameServers) {
+    public ServerList(final Collection<GameServerInfo> gameServers) {
+        this(gameServers, server -> false);
+    }
+
+    /**
+     * @param gameServers - servers in listed order
+     * @param full        - servers, shown as full regardless of online players
+     */
+    public ServerList(final Collection<GameServerInfo> gameServers, final Predicate<GameServerInfo> full) {
         this.gameServers = gameServers;
+        this.full = full;
     }
 
     @Override
@@ -47,7 +58,7 @@ public class ServerList extends OutgoingMessageWrapper {
             writeInt(server.getPort());
             writeBoolean(server.isAgeLimit());
             writeBoolean(server.isPvp());
-            writeShort(server.getOnlinePlayers());
+            writeShort(full.test(server) ? server.getMaxPlayers() : server.getOnlinePlayers());
             writeShort(server.getMaxPlayers());
             writeBoolean(server.isEnabled());
             writeInt(server.getServerType());
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.authserver.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+import ru.jts_dev.authserver.model.Account;
+import ru.jts_dev.authserver.repositories.AccountRepository;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Account lookup with bounded cache in front of {@link AccountRepository}.
+ * Every lookup is single query, when it's missed. Not existing logins are cached for short time,
+ * so brute force with random logins doesn't reach database.
+ * Accounts, changed outside of auth server, are visible after expiration of cached entry,
+ * or after {@link #invalidate(String)}.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+@Service
+@ManagedResource(objectName = "ru.jts_dev.authserver:type=AccountService", description = "Account cache")
+public class AccountService {
+    private final AccountRepository repository;
+
+    private final Cache<String, Account> accounts;
+    private final Cache<String, Boolean> missingLogins;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Autowired
+    public AccountService(AccountRepository repository,
+                          @Value("${authserver.accounts.cache.max-size:10000}") long maxSize,
+                          @Value("${authserver.accounts.cache.ttl:300}") long ttlSeconds,
+                          @Value("${authserver.accounts.cache.negative-ttl:10}") long negativeTtlSeconds) {
+        this.repository = repository;
+        this.accounts = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .build();
+        this.missingLogins = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(negativeTtlSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * @param login - account login
+     * @return - account from cache, or loaded with single query, empty if account doesn't exist
+     */
+    public Optional<Account> findAccount(String login) {
+        Account account = accounts.getIfPresent(login);
+        if (account != null) {
+            hits.increment();
+            return Optional.of(account);
+        }
+        if (missingLogins.getIfPresent(login) != null) {
+            negativeHits.increment();
+            return Optional.empty();
+        }
+
+        misses.increment();
+        account = repository.findOne(login);
+        if (account != null)
+            accounts.put(login, account);
+        else
+            missingLogins.put(login, Boolean.TRUE);
+
+        return Optional.ofNullable(account);
+    }
+
+    /**
+     * Save new account to database and cache
+     *
+     * @param login        - account login
+     * @param passwordHash - encoded password
+     * @return - saved account
+     */
+    public Account createAccount(String login, String passwordHash) {
+        Account account = repository.save(new Account(login, passwordHash));
+        accounts.put(login, account);
+        missingLogins.invalidate(login);
+        return account;
+    }
+
+    @ManagedOperation(description = "Remove account from cache, it will be loaded from database on next login")
+    public void invalidate(String login) {
+        accounts.invalidate(login);
+        missingLogins.invalidate(login);
+    }
+
+    @ManagedOperation(description = "Remove all accounts from cache")
+    public void invalidateAll() {
+        accounts.invalidateAll();
+        missingLogins.invalidateAll();
+    }
+
+    @ManagedAttribute(description = "Count of lookups, found in account cache")
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @ManagedAttribute(description = "Count of lookups, found in not existing logins cache")
+    public long getNegativeHits() {
+        return negativeHits.sum();
+    }
+
+    @ManagedAttribute(description = "Count of lookups, loaded from database")
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @ManagedAttribute(description = "Count of cached accounts")
+    public long getSize() {
+        return accounts.size();
+    }
+
+    @ManagedAttribute(description = "Count of cached not existing logins")
+    public long getNegativeSize() {
+        return missingLogins.size();
+    }
+
+    @ManagedOperation(description = "Reset statistics")
+    public void reset() {
+        hits.reset();
+        negativeHits.reset();
+        misses.reset();
+    }
+}
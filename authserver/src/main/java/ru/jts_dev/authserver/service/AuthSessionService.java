@@ -24,14 +24,16 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.event.EventListener;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.integration.ip.tcp.connection.TcpConnection;
 import org.springframework.integration.ip.tcp.connection.TcpConnectionCloseEvent;
-import org.springframework.integration.ip.tcp.connection.TcpConnectionEvent;
+import org.springframework.integration.ip.tcp.connection.TcpConnectionOpenEvent;
 import org.springframework.stereotype.Service;
 import ru.jts_dev.authserver.model.AuthSession;
-import ru.jts_dev.authserver.util.Encoder;
+import ru.jts_dev.authserver.util.LoginCrypt;
+import ru.jts_dev.authserver.util.RsaKeyPairPool;
 import ru.jts_dev.common.id.IdPool;
+import ru.jts_dev.common.tcp.NettyTcpConnection;
 
-import java.security.KeyPairGenerator;
 import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.ConcurrentHashMap;
@@ -45,14 +47,14 @@ public class AuthSessionService {
     private final Map<String, AuthSession> sessions = new ConcurrentHashMap<>();
 
     private final Random random;
-    private final KeyPairGenerator keyPairGenerator;
+    private final RsaKeyPairPool keyPairPool;
     private final IdPool idPool;
 
     @Autowired
-    public AuthSessionService(Random random, IdPool idPool, KeyPairGenerator keyPairGenerator) {
+    public AuthSessionService(Random random, IdPool idPool, RsaKeyPairPool keyPairPool) {
         this.random = random;
         this.idPool = idPool;
-        this.keyPairGenerator = keyPairGenerator;
+        this.keyPairPool = keyPairPool;
     }
 
     public AuthSession getSessionBy(String connectionId) {
@@ -62,17 +64,33 @@ public class AuthSessionService {
         return sessions.get(connectionId);
     }
 
-    private AuthSession createSession(String connectionId) {
-        byte[] key = new byte[Encoder.BLOWFISH_KEY_SIZE];
+    /**
+     * Same as {@link #getSessionBy(String)}, but without exception, for connections, which can be already closed
+     *
+     * @param connectionId - connection identifier of session
+     * @return - session, or {@code null}
+     */
+    public AuthSession findSessionBy(String connectionId) {
+        return sessions.get(connectionId);
+    }
+
+    private AuthSession createSession(TcpConnection connection) {
+        byte[] key = new byte[LoginCrypt.BLOWFISH_KEY_SIZE];
         random.nextBytes(key);
-        return new AuthSession(connectionId, idPool.borrow(), keyPairGenerator.generateKeyPair(), key,
+        return new AuthSession(connection.getConnectionId(), connection.getHostAddress(), idPool.borrow(), keyPairPool.take(), key,
                 random.nextInt(), random.nextInt(), random.nextInt(), random.nextInt());
     }
 
     @Order(Ordered.HIGHEST_PRECEDENCE)
     @EventListener
-    private void tcpConnectionEventListener(TcpConnectionEvent event) {
-        sessions.put(event.getConnectionId(), createSession(event.getConnectionId()));
+    private void tcpConnectionEventListener(TcpConnectionOpenEvent event) {
+        final AuthSession session = createSession((TcpConnection) event.getSource());
+        sessions.put(event.getConnectionId(), session);
+
+        // bind session to netty connection, so codec doesn't need lookup for each packet
+        if (event.getSource() instanceof NettyTcpConnection) {
+            ((NettyTcpConnection) event.getSource()).setAttachment(session);
+        }
     }
 
     @EventListener
@@ -21,33 +21,173 @@ package ru.jts_dev.authserver.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jms.JmsException;
 import org.springframework.jms.annotation.JmsListener;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import ru.jts_dev.authserver.packets.out.ServerList;
 import ru.jts_dev.common.messaging.GameServerInfo;
+import ru.jts_dev.common.messaging.SessionKeys;
+import ru.jts_dev.common.packets.OutgoingMessageWrapper;
+import ru.jts_dev.common.packets.SerializedOutgoingMessage;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 /**
+ * Registry of connected game servers. Registry is immutable snapshot, replaced on each status change,
+ * so clients read it without locks. {@link ServerList} is written once per snapshot,
+ * and each client gets shared copy of it.
+ * <p>
+ * Game servers send status heartbeats, server is removed, when it didn't send heartbeat for expiration time.
+ * Servers are listed from least loaded, overloaded servers (by queued packets or tick lag) are shown as full.
+ * <p>
+ * Session keys of client are pushed to selected game server, which validates them, when client connects.
+ *
  * @author Camelion
  * @since 09.12.15
  */
 @Service
 public class GameServerService {
     private static final Logger log = LoggerFactory.getLogger(GameServerService.class);
-    private Set<GameServerInfo> gameServers = new HashSet<>();
 
-    public Set<GameServerInfo> getGameServers() {
-        return Collections.unmodifiableSet(gameServers);
+    private final JmsTemplate jmsTemplate;
+    private final long expireAfter;
+    private final int maxQueuedPackets;
+    private final int maxTickLag;
+
+    private volatile Registry registry = new Registry(Collections.emptyMap(), Collections.emptySet());
+    // last heartbeat time by server id, guarded by this
+    private final Map<Integer, Long> lastSeen = new HashMap<>();
+
+    @Autowired
+    public GameServerService(JmsTemplate jmsTemplate,
+                             @Value("${authserver.gameservers.expire-after:15000}") long expireAfter,
+                             @Value("${authserver.gameservers.overload.queued-packets:10000}") int maxQueuedPackets,
+                             @Value("${authserver.gameservers.overload.tick-lag:1000}") int maxTickLag) {
+        this.jmsTemplate = jmsTemplate;
+        this.expireAfter = expireAfter;
+        this.maxQueuedPackets = maxQueuedPackets;
+        this.maxTickLag = maxTickLag;
+    }
+
+    /**
+     * @return - connected game servers, ordered by id
+     */
+    public Collection<GameServerInfo> getGameServers() {
+        return registry.servers.values();
+    }
+
+    /**
+     * @return - {@link ServerList} message for single send, with payload shared with other clients
+     */
+    public OutgoingMessageWrapper newServerList() {
+        return registry.serverList.newMessage();
+    }
+
+    /**
+     * Send session keys to game server queue, before client gets play keys
+     *
+     * @param serverId - selected game server id
+     * @param keys     - session keys of client
+     * @return - {@code false} if game server is not connected, or keys can't be sent
+     */
+    public boolean pushSessionKeys(int serverId, SessionKeys keys) {
+        if (!registry.servers.containsKey(serverId))
+            return false;
+
+        try {
+            jmsTemplate.convertAndSend(SessionKeys.queueOf(serverId), keys);
+            return true;
+        } catch (JmsException e) {
+            log.warn("Failed to send session keys to GameServer with id: " + serverId, e);
+            return false;
+        }
     }
 
     @JmsListener(destination = "gameServersQueue")
     public void processGameServerInfo(GameServerInfo gameServerInfo) {
-        if (!gameServers.contains(gameServerInfo)) {
+        update(gameServerInfo, System.currentTimeMillis());
+    }
+
+    @Scheduled(fixedDelay = 1000)
+    public void expireSilentServers() {
+        expire(System.currentTimeMillis());
+    }
+
+    // single writer, readers use volatile snapshot
+    synchronized void update(GameServerInfo gameServerInfo, long now) {
+        final Map<Integer, GameServerInfo> servers = new TreeMap<>(registry.servers);
+        if (servers.put(gameServerInfo.getServerId(), gameServerInfo) == null) {
             log.info("Connected new GameServer with id: "
                     + gameServerInfo.getServerId() + " from: " + gameServerInfo.getAddress());
         }
-        gameServers.add(gameServerInfo);
+        lastSeen.put(gameServerInfo.getServerId(), now);
+
+        publish(servers);
+    }
+
+    synchronized void expire(long now) {
+        Map<Integer, GameServerInfo> servers = null;
+        for (Iterator<Map.Entry<Integer, Long>> it = lastSeen.entrySet().iterator(); it.hasNext(); ) {
+            final Map.Entry<Integer, Long> entry = it.next();
+            if (now - entry.getValue() <= expireAfter)
+                continue;
+
+            log.warn("GameServer with id: " + entry.getKey() + " didn't send heartbeat for "
+                    + (now - entry.getValue()) + " ms, removed");
+            if (servers == null) {
+                servers = new TreeMap<>(registry.servers);
+            }
+            servers.remove(entry.getKey());
+            it.remove();
+        }
+
+        if (servers != null) {
+            publish(servers);
+        }
+    }
+
+    private void publish(Map<Integer, GameServerInfo> servers) {
+        final Set<Integer> overloaded = new HashSet<>();
+        for (GameServerInfo server : servers.values()) {
+            if (server.getQueuedPackets() > maxQueuedPackets || server.getTickLag() > maxTickLag) {
+                overloaded.add(server.getServerId());
+            }
+        }
+        registry = new Registry(servers, overloaded);
+    }
+
+    private static double load(GameServerInfo server) {
+        return (double) server.getOnlinePlayers() / Math.max(1, server.getMaxPlayers());
+    }
+
+    private static final class Registry {
+        private final Map<Integer, GameServerInfo> servers;
+        private final SerializedOutgoingMessage serverList;
+
+        private Registry(Map<Integer, GameServerInfo> servers, Set<Integer> overloaded) {
+            this.servers = Collections.unmodifiableMap(servers);
+
+            final List<GameServerInfo> listed = new ArrayList<>(servers.values());
+            listed.sort(Comparator.<GameServerInfo, Boolean>comparing(s -> overloaded.contains(s.getServerId()))
+                    .thenComparingDouble(GameServerService::load));
+
+            // unpooled copy isn't released, so replaced registry can be still used by readers
+            this.serverList = SerializedOutgoingMessage.copyOf(
+                    new ServerList(listed, s -> overloaded.contains(s.getServerId())));
+        }
     }
 }
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.authserver.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stage for expensive password hashing and verification, separated from client packets executor.
+ * Fixed count of workers with bounded queue, so attack can't take all processors and delay other packets.
+ * Attempts are rejected, when queue is full, or when remote address or account
+ * already has max count of attempts in progress.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+@Service
+@ManagedResource(objectName = "ru.jts_dev.authserver:type=PasswordVerificationService",
+        description = "Password verification stage")
+public class PasswordVerificationService {
+    private static final Logger log = LoggerFactory.getLogger(PasswordVerificationService.class);
+
+    private final ThreadPoolExecutor workers;
+    private final int maxPerAddress;
+    private final int maxPerAccount;
+
+    // attempts in progress, keys are removed with last attempt
+    private final Map<String, Integer> addressAttempts = new ConcurrentHashMap<>();
+    private final Map<String, Integer> accountAttempts = new ConcurrentHashMap<>();
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejectedQueueFull = new LongAdder();
+    private final LongAdder rejectedAddressLimit = new LongAdder();
+    private final LongAdder rejectedAccountLimit = new LongAdder();
+    private final MillisHistogram queueWait = new MillisHistogram();
+    private final MillisHistogram verifyTime = new MillisHistogram();
+
+    @Autowired
+    public PasswordVerificationService(
+            @Value("${authserver.login.verification.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+                    int threads,
+            @Value("${authserver.login.verification.queue-capacity:64}") int queueCapacity,
+            @Value("${authserver.login.verification.max-per-address:4}") int maxPerAddress,
+            @Value("${authserver.login.verification.max-per-account:2}") int maxPerAccount) {
+        if (threads <= 0 || queueCapacity <= 0 || maxPerAddress <= 0 || maxPerAccount <= 0)
+            throw new IllegalArgumentException("verification threads, queue capacity and limits must be positive");
+
+        this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-verification-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.maxPerAddress = maxPerAddress;
+        this.maxPerAccount = maxPerAccount;
+    }
+
+    /**
+     * Queue verification, if limits allow it
+     *
+     * @param remoteAddress - client host address
+     * @param account       - account login
+     * @param verification  - password hashing or verification, and sending of result to client
+     * @return - admission result, verification is executed only with {@link Admission#ACCEPTED}
+     */
+    public Admission submit(String remoteAddress, String account, Runnable verification) {
+        if (!acquire(addressAttempts, remoteAddress, maxPerAddress)) {
+            rejectedAddressLimit.increment();
+            return Admission.ADDRESS_LIMIT;
+        }
+        if (!acquire(accountAttempts, account, maxPerAccount)) {
+            release(addressAttempts, remoteAddress);
+            rejectedAccountLimit.increment();
+            return Admission.ACCOUNT_LIMIT;
+        }
+
+        final long submitted = System.nanoTime();
+        try {
+            workers.execute(() -> {
+                final long started = System.nanoTime();
+                queueWait.record(started - submitted);
+                try {
+                    verification.run();
+                } catch (RuntimeException e) {
+                    log.error("Password verification failed for account '" + account + "'", e);
+                } finally {
+                    verifyTime.record(System.nanoTime() - started);
+                    release(accountAttempts, account);
+                    release(addressAttempts, remoteAddress);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            release(accountAttempts, account);
+            release(addressAttempts, remoteAddress);
+            rejectedQueueFull.increment();
+            return Admission.QUEUE_FULL;
+        }
+
+        accepted.increment();
+        return Admission.ACCEPTED;
+    }
+
+    private static boolean acquire(Map<String, Integer> attempts, String key, int limit) {
+        if (attempts.merge(key, 1, Integer::sum) > limit) {
+            release(attempts, key);
+            return false;
+        }
+        return true;
+    }
+
+    private static void release(Map<String, Integer> attempts, String key) {
+        attempts.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+    }
+
+    @PreDestroy
+    void destroy() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(5, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+
+    @ManagedAttribute(description = "Count of queued verifications")
+    public int getQueued() {
+        return workers.getQueue().size();
+    }
+
+    @ManagedAttribute(description = "Count of accepted verifications")
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    @ManagedAttribute(description = "Count of verifications, rejected because queue was full")
+    public long getRejectedQueueFull() {
+        return rejectedQueueFull.sum();
+    }
+
+    @ManagedAttribute(description = "Count of verifications, rejected by limit per remote address")
+    public long getRejectedAddressLimit() {
+        return rejectedAddressLimit.sum();
+    }
+
+    @ManagedAttribute(description = "Count of verifications, rejected by limit per account")
+    public long getRejectedAccountLimit() {
+        return rejectedAccountLimit.sum();
+    }
+
+    @ManagedAttribute(description = "Queue wait, verifications with <1, 1-2, 2-4, ... 512+ ms")
+    public long[] getQueueWaitHistogram() {
+        return queueWait.snapshot();
+    }
+
+    @ManagedAttribute(description = "Verify time, verifications with <1, 1-2, 2-4, ... 512+ ms")
+    public long[] getVerifyTimeHistogram() {
+        return verifyTime.snapshot();
+    }
+
+    @ManagedOperation(description = "Reset statistics")
+    public void reset() {
+        accepted.reset();
+        rejectedQueueFull.reset();
+        rejectedAddressLimit.reset();
+        rejectedAccountLimit.reset();
+        queueWait.reset();
+        verifyTime.reset();
+    }
+
+    public enum Admission {
+        ACCEPTED,
+        QUEUE_FULL,
+        ADDRESS_LIMIT,
+        ACCOUNT_LIMIT
+    }
+
+    /**
+     * Histogram of durations with power of two millisecond buckets: less than 1, 1-2, 2-4, ... 512 and more
+     */
+    private static final class MillisHistogram {
+        private static final int BUCKETS = 11;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        void record(long nanos) {
+            final long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            final int bucket = millis == 0 ? 0 : 64 - Long.numberOfLeadingZeros(millis);
+            buckets.incrementAndGet(Math.min(bucket, BUCKETS - 1));
+        }
+
+        long[] snapshot() {
+            final long[] result = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                result[i] = buckets.get(i);
+            }
+            return result;
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+        }
+    }
+}
@@ -19,7 +19,10 @@
 
 package ru.jts_dev.authserver.util;
 
+import io.netty.buffer.ByteBuf;
+
 import java.io.IOException;
+import java.nio.ByteOrder;
 
 public class BlowfishEngine
 {
@@ -1428,6 +1431,97 @@ public class BlowfishEngine
         bits32ToBytes(xl, dst, dstIndex + 4);
     }
 
+    /**
+     * Method to encrypt the block at the given index of buffer in place.<br>
+     * Buffer may have any byte order, block words are always little endian.<br>
+     * <br>
+     * This method does not perform any error checking.<br>
+     * Engine isn't modified after {@link #init(byte[])}, so it can be shared between threads.
+     * @param buf buffer with the plain data
+     * @param index absolute index where the block to encrypt is located
+     */
+    public void encryptBlock(ByteBuf buf, final int index)
+    {
+        int xl = getInt32(buf, index);
+        int xr = getInt32(buf, index + 4);
+
+        xl ^= P[0];
+        xr ^= func(xl) ^ P[1];
+        xl ^= func(xr) ^ P[2];
+        xr ^= func(xl) ^ P[3];
+        xl ^= func(xr) ^ P[4];
+        xr ^= func(xl) ^ P[5];
+        xl ^= func(xr) ^ P[6];
+        xr ^= func(xl) ^ P[7];
+        xl ^= func(xr) ^ P[8];
+        xr ^= func(xl) ^ P[9];
+        xl ^= func(xr) ^ P[10];
+        xr ^= func(xl) ^ P[11];
+        xl ^= func(xr) ^ P[12];
+        xr ^= func(xl) ^ P[13];
+        xl ^= func(xr) ^ P[14];
+        xr ^= func(xl) ^ P[15];
+        xl ^= func(xr) ^ P[16];
+        xr ^= P[17];
+
+        setInt32(buf, index, xr);
+        setInt32(buf, index + 4, xl);
+    }
+
+    /**
+     * Method to decrypt the block at the given index of buffer in place.<br>
+     * Buffer may have any byte order, block words are always little endian.<br>
+     * <br>
+     * This method does not perform any error checking.<br>
+     * Engine isn't modified after {@link #init(byte[])}, so it can be shared between threads.
+     * @param buf buffer with the encrypted data
+     * @param index absolute index where the block to decrypt is located
+     */
+    public void decryptBlock(ByteBuf buf, final int index)
+    {
+        int xl = getInt32(buf, index);
+        int xr = getInt32(buf, index + 4);
+
+        xl ^= P[17];
+        xr ^= func(xl) ^ P[16];
+        xl ^= func(xr) ^ P[15];
+        xr ^= func(xl) ^ P[14];
+        xl ^= func(xr) ^ P[13];
+        xr ^= func(xl) ^ P[12];
+        xl ^= func(xr) ^ P[11];
+        xr ^= func(xl) ^ P[10];
+        xl ^= func(xr) ^ P[9];
+        xr ^= func(xl) ^ P[8];
+        xl ^= func(xr) ^ P[7];
+        xr ^= func(xl) ^ P[6];
+        xl ^= func(xr) ^ P[5];
+        xr ^= func(xl) ^ P[4];
+        xl ^= func(xr) ^ P[3];
+        xr ^= func(xl) ^ P[2];
+        xl ^= func(xr) ^ P[1];
+        xr ^= P[0];
+
+        setInt32(buf, index, xr);
+        setInt32(buf, index + 4, xl);
+    }
+
+    /**
+     * Little endian int from buffer, without creating of swapped buffer
+     */
+    private static int getInt32(ByteBuf buf, int index)
+    {
+        final int value = buf.getInt(index);
+        return buf.order() == ByteOrder.LITTLE_ENDIAN ? value : Integer.reverseBytes(value);
+    }
+
+    /**
+     * Little endian int to buffer, without creating of swapped buffer
+     */
+    private static void setInt32(ByteBuf buf, int index, int value)
+    {
+        buf.setInt(index, buf.order() == ByteOrder.LITTLE_ENDIAN ? value : Integer.reverseBytes(value));
+    }
+
     /**
      * Method to construct an int from the source array.<br>
      * 4 bytes are used from the given index.<br>
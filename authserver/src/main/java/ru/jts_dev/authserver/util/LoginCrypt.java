@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.authserver.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.jts_dev.authserver.model.AuthSession;
+
+import java.nio.ByteOrder;
+import java.security.InvalidParameterException;
+import java.util.Random;
+
+/**
+ * Login packets crypt, padding, checksum or XOR scramble and blowfish encryption are fused in single pass
+ * over packet data.
+ * <p>
+ * Outgoing packet is padded, checksummed (or XOR scrambled for {@link ru.jts_dev.authserver.packets.out.Init})
+ * and encrypted block by block, in place of pooled packet buffer.
+ * Incoming packet is decrypted and checksum validated in place, result is slice of frame, without copying.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+@Component
+public class LoginCrypt {
+    public static final int BLOWFISH_KEY_SIZE = 16;
+    static final byte[] STATIC_BLOWFISH_KEY = {
+            (byte) 0x6b, (byte) 0x60, (byte) 0xcb, (byte) 0x5b,
+            (byte) 0x82, (byte) 0xce, (byte) 0x90, (byte) 0xb1,
+            (byte) 0xcc, (byte) 0x2b, (byte) 0x6c, (byte) 0x55,
+            (byte) 0x6c, (byte) 0x6c, (byte) 0x6c, (byte) 0x6c
+    };
+    private static final int BLOCK_SIZE = 8;
+
+    private final Random random;
+
+    // shared by all sessions, key schedule is computed once
+    private final BlowfishEngine staticBlowfishEngine = new BlowfishEngine();
+
+    @Autowired
+    public LoginCrypt(Random random) {
+        this.random = random;
+
+        staticBlowfishEngine.init(STATIC_BLOWFISH_KEY);
+    }
+
+    /**
+     * Pad with random bytes, append XOR checksum and encrypt packet with session key
+     *
+     * @param buf     - packet data, from reader index
+     * @param session - client session
+     * @return - same buffer
+     */
+    public ByteBuf encrypt(ByteBuf buf, AuthSession session) {
+        final BlowfishEngine engine = session.getBlowfishEngine();
+        final int padding = BLOCK_SIZE - buf.readableBytes() % BLOCK_SIZE;
+        buf.ensureWritable(padding + BLOCK_SIZE);
+        writePadding(buf, padding);
+
+        int checksum = 0;
+        final int end = buf.writerIndex();
+        for (int i = buf.readerIndex(); i < end; i += BLOCK_SIZE) {
+            checksum ^= buf.getInt(i) ^ buf.getInt(i + 4);
+            engine.encryptBlock(buf, i);
+        }
+
+        buf.writeInt(checksum);
+        buf.writeInt(0);
+        engine.encryptBlock(buf, end);
+
+        return buf;
+    }
+
+    /**
+     * Copy shared packet data to new buffer and encrypt it, as {@link #encrypt(ByteBuf, AuthSession)}.
+     * Source data is released.
+     *
+     * @param data    - shared packet data, from reader index
+     * @param session - client session
+     * @return - encrypted data
+     * @see ru.jts_dev.common.packets.OutgoingMessageWrapper#isShared()
+     */
+    public ByteBuf encryptCopy(ByteBuf data, AuthSession session) {
+        try {
+            final int length = data.readableBytes();
+            final ByteBuf copy = PooledByteBufAllocator.DEFAULT.heapBuffer(length + BLOCK_SIZE * 2)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            copy.writeBytes(data, data.readerIndex(), length);
+
+            return encrypt(copy, session);
+        } finally {
+            data.release();
+        }
+    }
+
+    /**
+     * Pad with random bytes, XOR scramble and encrypt {@link ru.jts_dev.authserver.packets.out.Init} packet
+     * with static key
+     *
+     * @param buf - packet data, from reader index
+     * @return - same buffer
+     */
+    public ByteBuf encryptInit(ByteBuf buf) {
+        final int padding = BLOCK_SIZE - buf.readableBytes() % BLOCK_SIZE;
+        buf.ensureWritable(padding + BLOCK_SIZE * 2);
+        writePadding(buf, padding);
+        buf.writeLong(random.nextLong());
+
+        int xorKey = 0;
+        final int start = buf.readerIndex();
+        final int end = buf.writerIndex();
+        for (int i = start; i < end; i += BLOCK_SIZE) {
+            // first int isn't scrambled
+            if (i != start) {
+                xorKey = scramble(buf, i, xorKey);
+            }
+            xorKey = scramble(buf, i + 4, xorKey);
+
+            staticBlowfishEngine.encryptBlock(buf, i);
+        }
+
+        buf.writeInt(xorKey);
+        buf.writeInt(random.nextInt());
+        staticBlowfishEngine.encryptBlock(buf, end);
+
+        return buf;
+    }
+
+    /**
+     * Decrypt packet with session key and validate XOR checksum, in place
+     *
+     * @param frame   - encrypted packet, readable bytes must be multiply of 8
+     * @param session - client session
+     * @return - slice of frame, without checksum, frame reference is not retained
+     */
+    public ByteBuf decrypt(ByteBuf frame, AuthSession session) {
+        final int start = frame.readerIndex();
+        final int end = frame.writerIndex();
+        if (frame.readableBytes() % BLOCK_SIZE != 0 || frame.readableBytes() == 0)
+            throw new IndexOutOfBoundsException("frame.readableBytes() must be positive multiply of " + BLOCK_SIZE);
+
+        final BlowfishEngine engine = session.getBlowfishEngine();
+        // last int is checksum of previous ints, so xor of all ints is 0
+        int checksum = 0;
+        for (int i = start; i < end; i += BLOCK_SIZE) {
+            engine.decryptBlock(frame, i);
+            checksum ^= frame.getInt(i) ^ frame.getInt(i + 4);
+        }
+
+        if (checksum != 0)
+            throw new InvalidParameterException("Wrong checksum");
+
+        return frame.slice(start, frame.readableBytes() - 4);
+    }
+
+    private void writePadding(ByteBuf buf, int padding) {
+        long stuff = random.nextLong();
+        for (int i = 0; i < padding; i++) {
+            buf.writeByte((int) stuff);
+            stuff >>>= 8;
+        }
+    }
+
+    private static int scramble(ByteBuf buf, int index, int xorKey) {
+        final int value = buf.getInt(index);
+        xorKey += value;
+        buf.setInt(index, value ^ xorKey);
+        return xorKey;
+    }
+}
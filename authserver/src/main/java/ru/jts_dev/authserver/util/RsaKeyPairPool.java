@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.authserver.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import ru.jts_dev.authserver.config.KeyGenerationConfig;
+import ru.jts_dev.authserver.model.ScrambledKeyPair;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of pre-generated RSA key pairs for client sessions, with scrambled modulus.
+ * Background threads fill pool up to high watermark, and start again, when pool drops below low watermark.
+ * If pool is empty, key pair is generated in calling thread.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+@ManagedResource(objectName = "ru.jts_dev.authserver:type=RsaKeyPairPool",
+        description = "Pre-generated RSA key pairs")
+public class RsaKeyPairPool implements InitializingBean, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(RsaKeyPairPool.class);
+
+    private final ThreadLocal<KeyPairGenerator> generators;
+    private final BlockingQueue<ScrambledKeyPair> pool;
+    private final int lowWatermark;
+    private final int highWatermark;
+    private final int refillThreads;
+
+    private final Object refillLock = new Object();
+    // guarded by refillLock
+    private boolean refilling = true;
+    private volatile boolean running;
+    private ExecutorService refillExecutor;
+
+    private final LongAdder taken = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+    private final LongAdder refilled = new LongAdder();
+    private final LongAdder refillNanos = new LongAdder();
+
+    /**
+     * @param generatorFactory - factory of RSA generators, KeyPairGenerator isn't thread safe, so each thread uses own
+     * @param lowWatermark     - refill is started, when pool size drops below this value
+     * @param highWatermark    - refill is stopped, when pool size reaches this value
+     * @param refillThreads    - count of background generation threads
+     */
+    public RsaKeyPairPool(ObjectFactory<KeyPairGenerator> generatorFactory,
+                          int lowWatermark, int highWatermark, int refillThreads) {
+        if (highWatermark <= 0 || lowWatermark < 0 || lowWatermark > highWatermark)
+            throw new IllegalArgumentException("watermarks must be 0 <= low <= high and high > 0, but low: "
+                    + lowWatermark + ", high: " + highWatermark);
+        if (refillThreads <= 0)
+            throw new IllegalArgumentException("refillThreads must be positive: " + refillThreads);
+
+        this.generators = ThreadLocal.withInitial(generatorFactory::getObject);
+        this.pool = new ArrayBlockingQueue<>(highWatermark);
+        this.lowWatermark = lowWatermark;
+        this.highWatermark = highWatermark;
+        this.refillThreads = refillThreads;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        running = true;
+        refillExecutor = Executors.newFixedThreadPool(refillThreads, new CustomizableThreadFactory("rsa-refill-"));
+        for (int i = 0; i < refillThreads; i++) {
+            refillExecutor.execute(this::refill);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        synchronized (refillLock) {
+            refillLock.notifyAll();
+        }
+
+        refillExecutor.shutdownNow();
+        refillExecutor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Take key pair from pool, or generate new one, if pool is empty
+     *
+     * @return - unique key pair
+     */
+    public ScrambledKeyPair take() {
+        taken.increment();
+
+        ScrambledKeyPair keyPair = pool.poll();
+        if (keyPair == null) {
+            fallbacks.increment();
+            keyPair = generate();
+        }
+
+        if (pool.size() < lowWatermark) {
+            synchronized (refillLock) {
+                if (!refilling) {
+                    refilling = true;
+                    refillLock.notifyAll();
+                }
+            }
+        }
+
+        return keyPair;
+    }
+
+    private ScrambledKeyPair generate() {
+        final KeyPair keyPair = generators.get().generateKeyPair();
+        final byte[] scrambledModulus = KeyGenerationConfig.scrambleModulus(
+                ((RSAPublicKey) keyPair.getPublic()).getModulus());
+
+        return new ScrambledKeyPair(keyPair, scrambledModulus);
+    }
+
+    private void refill() {
+        try {
+            while (running) {
+                synchronized (refillLock) {
+                    while (running && !refilling) {
+                        refillLock.wait();
+                    }
+                }
+                if (!running)
+                    return;
+
+                final long start = System.nanoTime();
+                try {
+                    if (pool.offer(generate())) {
+                        refilled.increment();
+                    }
+                } catch (RuntimeException e) {
+                    log.error("RSA key pair generation failed", e);
+                }
+                refillNanos.add(System.nanoTime() - start);
+
+                if (pool.size() >= highWatermark) {
+                    synchronized (refillLock) {
+                        // recheck, key pairs may be taken after last offer
+                        if (pool.size() >= highWatermark) {
+                            refilling = false;
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @ManagedAttribute(description = "Count of ready key pairs")
+    public int getPoolSize() {
+        return pool.size();
+    }
+
+    @ManagedAttribute(description = "Refill starts below this pool size")
+    public int getLowWatermark() {
+        return lowWatermark;
+    }
+
+    @ManagedAttribute(description = "Refill stops at this pool size")
+    public int getHighWatermark() {
+        return highWatermark;
+    }
+
+    @ManagedAttribute(description = "Count of taken key pairs")
+    public long getTaken() {
+        return taken.sum();
+    }
+
+    @ManagedAttribute(description = "Count of key pairs, generated in calling thread, because pool was empty")
+    public long getFallbacks() {
+        return fallbacks.sum();
+    }
+
+    @ManagedAttribute(description = "Count of key pairs, generated by refill threads")
+    public long getRefilled() {
+        return refilled.sum();
+    }
+
+    @ManagedAttribute(description = "Key pairs per second, generated by all refill threads while refilling")
+    public double getRefillRate() {
+        final long nanos = refillNanos.sum();
+        return nanos == 0 ? 0 : refilled.sum() * refillThreads * 1e9 / nanos;
+    }
+}
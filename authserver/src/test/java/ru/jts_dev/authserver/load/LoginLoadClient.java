@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.authserver.load;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import ru.jts_dev.authserver.model.AuthSession;
+import ru.jts_dev.authserver.util.LoginClientCrypt;
+import ru.jts_dev.authserver.util.LoginCrypt;
+
+import javax.crypto.Cipher;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAKeyGenParameterSpec;
+import java.security.spec.RSAPublicKeySpec;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+
+/**
+ * Headless login client, one virtual user of {@link LoginLoadGenerator}.
+ * <p>
+ * Speaks client side of login protocol over blocking socket: decodes Init with static key,
+ * unscrambles RSA modulus, and passes AuthGameGuard, RequestAuthLogin, RequestServerList and RequestServerLogin,
+ * until PlayOk is received. Not thread safe, each virtual user owns its client.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+public final class LoginLoadClient implements Closeable {
+    private static final int HEADER_SIZE = 2;
+    private static final int MODULUS_SIZE = 0x80;
+    private static final int BLOWFISH_KEY_SIZE = 16;
+    private static final int LOGIN_OFFSET = 0x5E;
+    private static final int LOGIN_LENGTH = 14;
+    private static final int PASSWORD_OFFSET = 0x6C;
+    private static final int PASSWORD_LENGTH = 16;
+
+    private static final int INIT = 0x00;
+    private static final int LOGIN_FAIL = 0x01;
+    private static final int LOGIN_OK = 0x03;
+    private static final int SERVER_LIST = 0x04;
+    private static final int PLAY_OK = 0x07;
+    private static final int GG_AUTH = 0x0B;
+
+    // Init decryption is stateless, shared by all clients
+    private static final LoginClientCrypt CLIENT_CRYPT = new LoginClientCrypt();
+
+    private final LoginCrypt loginCrypt;
+    private final Socket socket = new Socket();
+
+    private DataInputStream in;
+    private OutputStream out;
+    private Stage stage = Stage.CONNECT;
+
+    // session state, received from server
+    private AuthSession session;
+    private PublicKey rsaKey;
+    private int loginKey1;
+    private int loginKey2;
+
+    /**
+     * @param loginCrypt - packet crypt, may be shared by clients
+     */
+    public LoginLoadClient(LoginCrypt loginCrypt) {
+        this.loginCrypt = loginCrypt;
+    }
+
+    /**
+     * Connect and pass all login stages, up to PlayOk for first listed game server
+     *
+     * @param address  - auth server address
+     * @param timeout  - connect and read timeout in milliseconds
+     * @param login    - account name, up to 14 characters
+     * @param password - account password, up to 16 characters
+     * @throws LoginLoadException - if any stage fails, with failed stage
+     */
+    public void login(InetSocketAddress address, int timeout, String login, String password)
+            throws LoginLoadException {
+        try {
+            stage = Stage.CONNECT;
+            socket.connect(address, timeout);
+            socket.setSoTimeout(timeout);
+            socket.setTcpNoDelay(true);
+            in = new DataInputStream(socket.getInputStream());
+            out = socket.getOutputStream();
+
+            stage = Stage.INIT;
+            readInit();
+
+            stage = Stage.GG_AUTH;
+            final ByteBuf gameGuard = newPacket(0x07).writeInt(session.getSessionId());
+            gameGuard.writeZero(16);
+            send(gameGuard);
+            receive(GG_AUTH).release();
+
+            stage = Stage.AUTH_LOGIN;
+            send(newPacket(0x00).writeBytes(encryptCredentials(login, password)));
+            final ByteBuf loginOk = receive(LOGIN_OK);
+            loginKey1 = loginOk.readInt();
+            loginKey2 = loginOk.readInt();
+            loginOk.release();
+
+            stage = Stage.SERVER_LIST;
+            send(newPacket(0x05).writeInt(loginKey1).writeInt(loginKey2));
+            final ByteBuf serverList = receive(SERVER_LIST);
+            final int count = serverList.readUnsignedByte();
+            serverList.skipBytes(1); // last server
+            if (count == 0) {
+                serverList.release();
+                throw new IllegalStateException("Empty server list");
+            }
+            final int serverId = serverList.readUnsignedByte();
+            serverList.release();
+
+            stage = Stage.SERVER_LOGIN;
+            send(newPacket(0x02).writeInt(loginKey1).writeInt(loginKey2).writeByte(serverId));
+            receive(PLAY_OK).release();
+        } catch (Exception e) {
+            throw new LoginLoadException(stage, e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    private void readInit() throws IOException, GeneralSecurityException {
+        final ByteBuf init = CLIENT_CRYPT.decryptInit(readFrame());
+        if (init.readUnsignedByte() != INIT)
+            throw new IllegalStateException("Unexpected packet: 0x" + Integer.toHexString(init.getUnsignedByte(0)));
+
+        final int sessionId = init.readInt();
+        init.skipBytes(4); // protocol revision
+        final byte[] modulus = new byte[MODULUS_SIZE];
+        init.readBytes(modulus);
+        init.skipBytes(16);
+        final byte[] blowfishKey = new byte[BLOWFISH_KEY_SIZE];
+        init.readBytes(blowfishKey);
+        init.release();
+
+        session = new AuthSession("load", socket.getInetAddress().getHostAddress(), sessionId, null,
+                blowfishKey, 0, 0, 0, 0);
+        rsaKey = KeyFactory.getInstance("RSA").generatePublic(
+                new RSAPublicKeySpec(new BigInteger(1, unscrambleModulus(modulus)), RSAKeyGenParameterSpec.F4));
+    }
+
+    private byte[] encryptCredentials(String login, String password) throws GeneralSecurityException {
+        final byte[] block = new byte[MODULUS_SIZE];
+        final byte[] loginBytes = login.getBytes(StandardCharsets.UTF_8);
+        final byte[] passwordBytes = password.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(loginBytes, 0, block, LOGIN_OFFSET, Math.min(loginBytes.length, LOGIN_LENGTH));
+        System.arraycopy(passwordBytes, 0, block, PASSWORD_OFFSET, Math.min(passwordBytes.length, PASSWORD_LENGTH));
+
+        final Cipher cipher = Cipher.getInstance("RSA/ECB/nopadding");
+        cipher.init(Cipher.ENCRYPT_MODE, rsaKey);
+        return cipher.doFinal(block);
+    }
+
+    private static ByteBuf newPacket(int opcode) {
+        return Unpooled.buffer(64).order(LITTLE_ENDIAN).writeByte(opcode);
+    }
+
+    private void send(ByteBuf packet) throws IOException {
+        final ByteBuf frame = loginCrypt.encrypt(packet, session);
+        final int length = frame.readableBytes() + HEADER_SIZE;
+        final byte[] bytes = new byte[length];
+        bytes[0] = (byte) length;
+        bytes[1] = (byte) (length >>> 8);
+        frame.readBytes(bytes, HEADER_SIZE, frame.readableBytes());
+        frame.release();
+
+        out.write(bytes);
+        out.flush();
+    }
+
+    /**
+     * @param opcode - expected packet opcode
+     * @return - decrypted packet data after opcode
+     */
+    private ByteBuf receive(int opcode) throws IOException {
+        final ByteBuf packet = loginCrypt.decrypt(readFrame(), session);
+        final int actual = packet.readUnsignedByte();
+        if (actual == opcode)
+            return packet;
+
+        final String message = actual == LOGIN_FAIL
+                ? "LoginFail reason: " + packet.readInt()
+                : "Unexpected packet: 0x" + Integer.toHexString(actual);
+        packet.release();
+        throw new IllegalStateException(message);
+    }
+
+    private ByteBuf readFrame() throws IOException {
+        final int length = (in.readUnsignedByte() | in.readUnsignedByte() << 8) - HEADER_SIZE;
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return Unpooled.wrappedBuffer(bytes).order(LITTLE_ENDIAN);
+    }
+
+    /**
+     * Reverse of {@link ru.jts_dev.authserver.config.KeyGenerationConfig#scrambleModulus(BigInteger)},
+     * steps are undone in reverse order
+     *
+     * @param scrambled - scrambled modulus from Init, not modified
+     * @return - modulus bytes, big endian
+     */
+    static byte[] unscrambleModulus(byte[] scrambled) {
+        final byte[] modulus = scrambled.clone();
+        // step 4
+        for (int i = 0; i < 0x40; i++) {
+            modulus[0x40 + i] ^= modulus[i];
+        }
+        // step 3
+        for (int i = 0; i < 4; i++) {
+            modulus[0x0d + i] ^= modulus[0x34 + i];
+        }
+        // step 2
+        for (int i = 0; i < 0x40; i++) {
+            modulus[i] ^= modulus[0x40 + i];
+        }
+        // step 1
+        for (int i = 0; i < 4; i++) {
+            final byte temp = modulus[i];
+            modulus[i] = modulus[0x4d + i];
+            modulus[0x4d + i] = temp;
+        }
+        return modulus;
+    }
+
+    /**
+     * Login stages, in protocol order
+     */
+    public enum Stage {
+        CONNECT, INIT, GG_AUTH, AUTH_LOGIN, SERVER_LIST, SERVER_LOGIN
+    }
+
+    /**
+     * Failure of single login, with stage where it happened
+     */
+    public static final class LoginLoadException extends Exception {
+        private final Stage stage;
+
+        LoginLoadException(Stage stage, Throwable cause) {
+            super(stage + ": " + cause, cause);
+            this.stage = stage;
+        }
+
+        public Stage getStage() {
+            return stage;
+        }
+
+        /**
+         * @return - failure reason for aggregation, protocol errors by message, others by exception type
+         */
+        public String getReason() {
+            final Throwable cause = getCause();
+            return stage + ": " + (cause instanceof IllegalStateException
+                    ? cause.getMessage() : cause.getClass().getSimpleName());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.authserver.load;
+
+import org.junit.jupiter.api.Test;
+import ru.jts_dev.authserver.config.KeyGenerationConfig;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Camelion
+ * @since 17.10.26
+ */
+public class LoginLoadClientTest {
+    private final Random random = new Random(42);
+
+    @Test
+    public void testUnscrambleModulus() {
+        for (int i = 0; i < 100; i++) {
+            final BigInteger modulus = new BigInteger(1024, random).setBit(1023);
+
+            final byte[] scrambled = KeyGenerationConfig.scrambleModulus(modulus);
+
+            assertThat(new BigInteger(1, LoginLoadClient.unscrambleModulus(scrambled))).isEqualTo(modulus);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.authserver.load;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.jts_dev.authserver.AuthServerApplication;
+import ru.jts_dev.authserver.load.LoginLoadClient.LoginLoadException;
+import ru.jts_dev.authserver.service.GameServerService;
+import ru.jts_dev.authserver.util.LoginCrypt;
+import ru.jts_dev.common.messaging.GameServerInfo;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Login load generator, runs virtual users with {@link LoginLoadClient}, each user logs in sequentially,
+ * with new connection for each login. Reports login rate, handshake latency percentiles and errors by stage.
+ * <p>
+ * Run with {@link #main(String[])}, it starts in-process {@link AuthServerApplication} on embedded HSQLDB,
+ * without embedded game server, and registers fake game server with heartbeats.
+ * Settings are system properties: {@code load.users} (50), {@code load.logins} per user (20),
+ * {@code load.port} (2106) and {@code load.timeout} in milliseconds (10000).
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+public final class LoginLoadGenerator {
+    private static final String PASSWORD = "password";
+    private static final int GAME_SERVER_ID = 1;
+
+    private final InetSocketAddress address;
+    private final int users;
+    private final int loginsPerUser;
+    private final int timeout;
+    private final LoginCrypt loginCrypt = new LoginCrypt(new Random());
+
+    public LoginLoadGenerator(InetSocketAddress address, int users, int loginsPerUser, int timeout) {
+        this.address = address;
+        this.users = users;
+        this.loginsPerUser = loginsPerUser;
+        this.timeout = timeout;
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int users = Integer.getInteger("load.users", 50);
+        final int logins = Integer.getInteger("load.logins", 20);
+        final int port = Integer.getInteger("load.port", 2106);
+        final int timeout = Integer.getInteger("load.timeout", 10000);
+
+        // devtools restarter would run this method again in restart class loader, it's checked before environment
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        // command line arguments override application.properties
+        final ConfigurableApplicationContext context = new SpringApplicationBuilder(AuthServerApplication.class)
+                .run("--authserver.port=" + port,
+                        "--authserver.gameserver.embedded=false",
+                        "--authserver.artemis.acceptor.enabled=false",
+                        // all virtual users share loopback address
+                        "--authserver.login.verification.max-per-address=" + users,
+                        "--authserver.login.verification.queue-capacity=" + users,
+                        "--logging.level.=warn");
+
+        final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor();
+        try {
+            final GameServerService gameServerService = context.getBean(GameServerService.class);
+            final GameServerInfo gameServer = new GameServerInfo(GAME_SERVER_ID, InetAddress.getLoopbackAddress(), 7777);
+            gameServer.setMaxPlayers(users);
+            gameServer.setEnabled(true);
+            heartbeat.scheduleWithFixedDelay(() -> gameServerService.processGameServerInfo(gameServer),
+                    0, 1, TimeUnit.SECONDS);
+
+            final InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+            awaitListening(address, timeout);
+
+            final LoginLoadGenerator generator = new LoginLoadGenerator(address, users, logins, timeout);
+            System.out.println(generator.run());
+        } finally {
+            heartbeat.shutdownNow();
+            context.close();
+        }
+    }
+
+    /**
+     * Run all virtual users and wait for completion
+     *
+     * @return - load report
+     */
+    public LoadReport run() throws InterruptedException, ExecutionException {
+        final ExecutorService executor = Executors.newFixedThreadPool(users);
+        final CountDownLatch start = new CountDownLatch(1);
+        final ConcurrentMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+        try {
+            final List<Future<long[]>> results = new ArrayList<>(users);
+            for (int i = 0; i < users; i++) {
+                final String login = "load" + i;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return runUser(login, errors);
+                }));
+            }
+
+            final long startTime = System.nanoTime();
+            start.countDown();
+
+            final long[][] latencies = new long[users][];
+            for (int i = 0; i < users; i++) {
+                latencies[i] = results.get(i).get();
+            }
+
+            return new LoadReport(users * loginsPerUser, System.nanoTime() - startTime, latencies, errors);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return - handshake latencies of successful logins in nanoseconds
+     */
+    private long[] runUser(String login, ConcurrentMap<String, LongAdder> errors) {
+        final long[] latencies = new long[loginsPerUser];
+        int successes = 0;
+        for (int i = 0; i < loginsPerUser; i++) {
+            final long startTime = System.nanoTime();
+            try (LoginLoadClient client = new LoginLoadClient(loginCrypt)) {
+                client.login(address, timeout, login, PASSWORD);
+                latencies[successes++] = System.nanoTime() - startTime;
+            } catch (LoginLoadException e) {
+                errors.computeIfAbsent(e.getReason(), reason -> new LongAdder()).increment();
+            } catch (IOException ignored) {
+                // failed close, login is already counted
+            }
+        }
+        return Arrays.copyOf(latencies, successes);
+    }
+
+    private static void awaitListening(InetSocketAddress address, int timeout)
+            throws InterruptedException, IOException {
+        final long deadline = System.currentTimeMillis() + timeout;
+        while (true) {
+            try (Socket socket = new Socket()) {
+                socket.connect(address, timeout);
+                return;
+            } catch (IOException e) {
+                if (System.currentTimeMillis() > deadline)
+                    throw e;
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    /**
+     * Results of load run
+     */
+    public static final class LoadReport {
+        private final int attempts;
+        private final long elapsedNanos;
+        private final long[] latencies;
+        private final Map<String, Long> errors = new TreeMap<>();
+
+        LoadReport(int attempts, long elapsedNanos, long[][] userLatencies, Map<String, LongAdder> errors) {
+            this.attempts = attempts;
+            this.elapsedNanos = elapsedNanos;
+            this.latencies = Arrays.stream(userLatencies).flatMapToLong(Arrays::stream).sorted().toArray();
+            errors.forEach((reason, count) -> this.errors.put(reason, count.sum()));
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public int getSuccesses() {
+            return latencies.length;
+        }
+
+        public long getErrors() {
+            return attempts - latencies.length;
+        }
+
+        /**
+         * @return - errors count by failed stage and reason
+         */
+        public Map<String, Long> getErrorsByReason() {
+            return errors;
+        }
+
+        /**
+         * @return - completed connections per second, successful or not
+         */
+        public double getConnectsPerSecond() {
+            return attempts * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * @param percentile - percentile in range (0, 100]
+         * @return - handshake latency of successful logins in milliseconds, from connect to PlayOk
+         */
+        public double getLatencyMillis(double percentile) {
+            if (latencies.length == 0)
+                return 0;
+            final int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+            return latencies[Math.max(index, 0)] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder sb = new StringBuilder()
+                    .append(String.format("attempts: %d, successes: %d, errors: %d, elapsed: %.1f s%n",
+                            attempts, getSuccesses(), getErrors(), elapsedNanos / 1e9))
+                    .append(String.format("connects/s: %.1f, handshake p50: %.2f ms, p99: %.2f ms%n",
+                            getConnectsPerSecond(), getLatencyMillis(50), getLatencyMillis(99)));
+            errors.forEach((reason, count) -> sb.append(String.format("  %s: %d%n", reason, count)));
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.authserver.packets.in;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.ip.IpHeaders;
+import org.springframework.integration.ip.tcp.connection.TcpNioServerConnectionFactory;
+import ru.jts_dev.authserver.model.AuthSession;
+import ru.jts_dev.authserver.model.ScrambledKeyPair;
+import ru.jts_dev.authserver.packets.out.LoginFail;
+import ru.jts_dev.authserver.service.AccountService;
+import ru.jts_dev.authserver.service.AuthSessionService;
+import ru.jts_dev.authserver.service.BroadcastService;
+import ru.jts_dev.authserver.service.PasswordVerificationService;
+import ru.jts_dev.authserver.service.PasswordVerificationService.Admission;
+import ru.jts_dev.common.packets.OutgoingMessageWrapper;
+
+import javax.crypto.Cipher;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.netty.buffer.Unpooled.wrappedBuffer;
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.jts_dev.authserver.packets.out.LoginFail.REASON_ACCESS_FAILED;
+import static ru.jts_dev.authserver.packets.out.LoginFail.REASON_SERVER_OVERLOADED;
+
+/**
+ * @author Camelion
+ * @since 17.10.26
+ */
+public class RequestAuthLoginTest {
+    private static final String CONNECTION_ID = "connection";
+
+    // sent packets and closed connections, in order
+    private final List<String> events = new ArrayList<>();
+    private AuthSession session;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        final KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(1024);
+        final KeyPair keyPair = generator.generateKeyPair();
+
+        session = new AuthSession(CONNECTION_ID, "127.0.0.1", 1, new ScrambledKeyPair(keyPair, new byte[128]),
+                new byte[16], 1, 2, 3, 4);
+    }
+
+    @Test
+    public void testQueueFullRejection() throws Exception {
+        run(Admission.QUEUE_FULL);
+
+        assertThat(events).containsExactly("LoginFail " + REASON_SERVER_OVERLOADED, "close " + CONNECTION_ID);
+    }
+
+    @Test
+    public void testLimitRejection() throws Exception {
+        run(Admission.ACCOUNT_LIMIT);
+
+        assertThat(events).containsExactly("LoginFail " + REASON_ACCESS_FAILED, "close " + CONNECTION_ID);
+    }
+
+    private void run(Admission admission) throws Exception {
+        final DirectChannel packetChannel = new DirectChannel();
+        packetChannel.subscribe(message -> {
+            final OutgoingMessageWrapper packet = (OutgoingMessageWrapper) message;
+            packet.write();
+            // opcode, then reason
+            events.add(packet.getClass().getSimpleName() + " " + packet.getPayload().getInt(1));
+            packet.getPayload().release();
+        });
+
+        final RequestAuthLogin packet = new RequestAuthLogin(null,
+                new TcpNioServerConnectionFactory(0) {
+                    @Override
+                    public boolean closeConnection(String connectionId) {
+                        return events.add("close " + connectionId);
+                    }
+                },
+                new AuthSessionService(null, null, null) {
+                    @Override
+                    public AuthSession getSessionBy(String connectionId) {
+                        return session;
+                    }
+                },
+                new BroadcastService(packetChannel),
+                new AccountService(null, 1, 1, 1),
+                new PasswordVerificationService(1, 1, 1, 1) {
+                    @Override
+                    public Admission submit(String remoteAddress, String account, Runnable verification) {
+                        return admission;
+                    }
+                });
+
+        packet.getHeaders().put(IpHeaders.CONNECTION_ID, CONNECTION_ID);
+        packet.setPayload(wrappedBuffer(credentials("login", "password")));
+        packet.prepare();
+        packet.run();
+    }
+
+    private byte[] credentials(String login, String password) throws Exception {
+        final byte[] data = new byte[128];
+        final byte[] loginBytes = login.getBytes(StandardCharsets.UTF_8);
+        final byte[] passwordBytes = password.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(loginBytes, 0, data, 0x5E, loginBytes.length);
+        System.arraycopy(passwordBytes, 0, data, 0x6C, passwordBytes.length);
+
+        final Cipher cipher = Cipher.getInstance("RSA/ECB/nopadding");
+        cipher.init(Cipher.ENCRYPT_MODE, session.getRsaKeyPair().getPublic());
+        return cipher.doFinal(data);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.authserver.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.jts_dev.authserver.model.Account;
+import ru.jts_dev.authserver.repositories.AccountRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Camelion
+ * @since 17.10.26
+ */
+public class AccountServiceTest {
+    private final Map<String, Account> database = new HashMap<>();
+    private final AtomicInteger queries = new AtomicInteger();
+    private AccountService service;
+
+    @BeforeEach
+    public void setUp() {
+        // only findOne and save are used by service
+        AccountRepository repository = (AccountRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{AccountRepository.class}, (proxy, method, args) -> {
+                    queries.incrementAndGet();
+                    switch (method.getName()) {
+                        case "findOne":
+                            return database.get(args[0]);
+                        case "save":
+                            Account account = (Account) args[0];
+                            database.put(account.getLogin(), account);
+                            return account;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        service = new AccountService(repository, 2, 300, 300);
+    }
+
+    @Test
+    public void testSingleQueryPerLogin() {
+        database.put("first", new Account("first", "hash"));
+
+        assertThat(service.findAccount("first")).hasValueSatisfying(a -> assertThat(a.getLogin()).isEqualTo("first"));
+        assertThat(service.findAccount("first")).isPresent();
+        assertThat(queries.get()).isEqualTo(1);
+        assertThat(service.getMisses()).isEqualTo(1);
+        assertThat(service.getHits()).isEqualTo(1);
+    }
+
+    @Test
+    public void testNegativeCache() {
+        assertThat(service.findAccount("missing")).isEmpty();
+        assertThat(service.findAccount("missing")).isEmpty();
+        assertThat(queries.get()).isEqualTo(1);
+        assertThat(service.getNegativeHits()).isEqualTo(1);
+    }
+
+    @Test
+    public void testWriteThrough() {
+        assertThat(service.findAccount("new")).isEmpty();
+
+        service.createAccount("new", "hash");
+        assertThat(database).containsKey("new");
+
+        // neither negative entry nor database query
+        assertThat(service.findAccount("new")).isPresent();
+        assertThat(queries.get()).isEqualTo(2);
+        assertThat(service.getHits()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSizeEvictionAndInvalidate() {
+        database.put("first", new Account("first", "hash"));
+        database.put("second", new Account("second", "hash"));
+        database.put("third", new Account("third", "hash"));
+
+        service.findAccount("first");
+        service.findAccount("second");
+        service.findAccount("third");
+        assertThat(service.getSize()).isLessThanOrEqualTo(2);
+
+        service.invalidate("third");
+        database.get("third").setPasswordHash("changed");
+        assertThat(service.findAccount("third"))
+                .hasValueSatisfying(a -> assertThat(a.getPasswordHash()).isEqualTo("changed"));
+        assertThat(service.getMisses()).isEqualTo(4);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.authserver.service;
+
+import io.netty.buffer.ByteBuf;
+import org.junit.jupiter.api.Test;
+import ru.jts_dev.authserver.packets.out.ServerList;
+import ru.jts_dev.common.messaging.GameServerInfo;
+import ru.jts_dev.common.packets.OutgoingMessageWrapper;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.Collection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Camelion
+ * @since 17.10.26
+ */
+public class GameServerServiceTest {
+    private final GameServerService service = new GameServerService(null, 15_000, 100, 500);
+
+    @Test
+    public void testSnapshotReplacement() throws Exception {
+        assertThat(service.getGameServers()).isEmpty();
+
+        final GameServerInfo second = new GameServerInfo(2, InetAddress.getLoopbackAddress(), 7778);
+        service.processGameServerInfo(second);
+        final Collection<GameServerInfo> snapshot = service.getGameServers();
+
+        final GameServerInfo first = new GameServerInfo(1, InetAddress.getLoopbackAddress(), 7777);
+        service.processGameServerInfo(first);
+
+        // previous snapshot isn't changed, new one is ordered by id
+        assertThat(snapshot).containsExactly(second);
+        assertThat(service.getGameServers()).containsExactly(first, second);
+
+        // status update replaces server
+        final GameServerInfo updated = new GameServerInfo(2, InetAddress.getLoopbackAddress(), 7779);
+        service.processGameServerInfo(updated);
+        assertThat(service.getGameServers()).hasSize(2);
+        assertThat(service.getGameServers().stream().filter(s -> s.getServerId() == 2).findFirst().get().getPort())
+                .isEqualTo(7779);
+    }
+
+    @Test
+    public void testExpireSilentServers() throws Exception {
+        service.update(new GameServerInfo(1, InetAddress.getLoopbackAddress(), 7777), 0);
+        service.update(new GameServerInfo(2, InetAddress.getLoopbackAddress(), 7778), 10_000);
+
+        service.expire(15_000);
+        assertThat(service.getGameServers()).hasSize(2);
+
+        service.expire(20_000);
+        assertThat(service.getGameServers()).extracting(GameServerInfo::getServerId).containsExactly(2);
+
+        // heartbeat after expiration registers server again
+        service.update(new GameServerInfo(1, InetAddress.getLoopbackAddress(), 7777), 21_000);
+        service.expire(30_000);
+        assertThat(service.getGameServers()).extracting(GameServerInfo::getServerId).containsExactly(1);
+    }
+
+    @Test
+    public void testServerListByLoad() throws Exception {
+        final GameServerInfo busy = status(1, 900, 0, 0);
+        final GameServerInfo overloaded = status(2, 10, 0, 600);
+        final GameServerInfo light = status(3, 100, 0, 0);
+        service.processGameServerInfo(busy);
+        service.processGameServerInfo(overloaded);
+        service.processGameServerInfo(light);
+
+        final ServerList expectedPacket = new ServerList(Arrays.asList(light, busy, overloaded),
+                s -> s.getServerId() == 2);
+        expectedPacket.write();
+        final ByteBuf expected = expectedPacket.getPayload();
+
+        final OutgoingMessageWrapper msg = service.newServerList();
+        assertThat(msg.getPayload()).isEqualTo(expected);
+        // online players of overloaded server are shown as max
+        assertThat(msg.getPayload().getByte(3)).isEqualTo((byte) 3);
+        assertThat(msg.getPayload().getShort(3 + 21 * 2 + 11)).isEqualTo((short) 1000);
+
+        msg.getPayload().release();
+        expected.release();
+    }
+
+    @Test
+    public void testServerListWrittenOnce() throws Exception {
+        service.processGameServerInfo(new GameServerInfo(1, InetAddress.getLoopbackAddress(), 7777));
+
+        final ServerList expectedPacket = new ServerList(Arrays.asList(
+                new GameServerInfo(1, InetAddress.getLoopbackAddress(), 7777)));
+        expectedPacket.write();
+        final ByteBuf expected = expectedPacket.getPayload();
+
+        final OutgoingMessageWrapper first = service.newServerList();
+        final OutgoingMessageWrapper second = service.newServerList();
+        first.write();
+        second.write();
+
+        assertThat(first.isShared()).isTrue();
+        assertThat(first.getPayload()).isEqualTo(expected);
+        assertThat(second.getPayload()).isEqualTo(expected);
+
+        first.getPayload().release();
+        second.getPayload().release();
+        expected.release();
+
+        // messages can be created after previous were sent
+        final OutgoingMessageWrapper third = service.newServerList();
+        assertThat(third.getPayload()).isEqualTo(second.getPayload());
+        third.getPayload().release();
+    }
+
+    private static GameServerInfo status(int id, int online, int queuedPackets, int tickLag) {
+        final GameServerInfo info = new GameServerInfo(id, InetAddress.getLoopbackAddress(), 7777);
+        info.setOnlinePlayers(online);
+        info.setMaxPlayers(1000);
+        info.setQueuedPackets(queuedPackets);
+        info.setTickLag(tickLag);
+        return info;
+    }
+}
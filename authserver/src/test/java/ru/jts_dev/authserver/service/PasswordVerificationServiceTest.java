@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.authserver.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.jts_dev.authserver.service.PasswordVerificationService.Admission;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Camelion
+ * @since 17.10.26
+ */
+public class PasswordVerificationServiceTest {
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PasswordVerificationService service;
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        release.countDown();
+        service.destroy();
+    }
+
+    @Test
+    public void testLimits() throws Exception {
+        service = new PasswordVerificationService(4, 16, 2, 1);
+
+        assertThat(service.submit("1.1.1.1", "first", this::block)).isEqualTo(Admission.ACCEPTED);
+        assertThat(service.submit("1.1.1.1", "first", this::block)).isEqualTo(Admission.ACCOUNT_LIMIT);
+        assertThat(service.submit("1.1.1.1", "second", this::block)).isEqualTo(Admission.ACCEPTED);
+        assertThat(service.submit("1.1.1.1", "third", this::block)).isEqualTo(Admission.ADDRESS_LIMIT);
+        assertThat(service.submit("2.2.2.2", "third", this::block)).isEqualTo(Admission.ACCEPTED);
+
+        assertThat(service.getRejectedAccountLimit()).isEqualTo(1);
+        assertThat(service.getRejectedAddressLimit()).isEqualTo(1);
+
+        // limits are released after verification
+        release.countDown();
+        final long deadline = System.currentTimeMillis() + 5000;
+        Admission admission;
+        while ((admission = service.submit("1.1.1.1", "first", () -> {
+        })) != Admission.ACCEPTED && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(admission).isEqualTo(Admission.ACCEPTED);
+    }
+
+    @Test
+    public void testQueueFull() throws Exception {
+        service = new PasswordVerificationService(1, 1, 10, 10);
+
+        final CountDownLatch started = new CountDownLatch(1);
+        assertThat(service.submit("1.1.1.1", "first", () -> {
+            started.countDown();
+            block();
+        })).isEqualTo(Admission.ACCEPTED);
+        started.await(5, TimeUnit.SECONDS);
+
+        assertThat(service.submit("1.1.1.1", "second", this::block)).isEqualTo(Admission.ACCEPTED);
+        assertThat(service.submit("1.1.1.1", "third", this::block)).isEqualTo(Admission.QUEUE_FULL);
+        assertThat(service.getQueued()).isEqualTo(1);
+        assertThat(service.getRejectedQueueFull()).isEqualTo(1);
+
+        // rejected attempt doesn't hold limits
+        assertThat(service.submit("1.1.1.1", "third", this::block)).isEqualTo(Admission.QUEUE_FULL);
+        assertThat(service.getAccepted()).isEqualTo(2);
+    }
+
+    @Test
+    public void testHistograms() throws Exception {
+        service = new PasswordVerificationService(1, 4, 10, 10);
+        release.countDown();
+
+        final CountDownLatch done = new CountDownLatch(1);
+        service.submit("1.1.1.1", "first", () -> {
+            sleep(5);
+            done.countDown();
+        });
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+
+        service.destroy();
+        assertThat(LongStream.of(service.getQueueWaitHistogram()).sum()).isEqualTo(1);
+        // at least 5 ms, not in first bucket
+        assertThat(service.getVerifyTimeHistogram()[0]).isEqualTo(0);
+    }
+
+    private void block() {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.authserver.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+
+/**
+ * Compares packet encryption with reused {@link BlowfishEngine}, by array and {@link ByteBuf} block methods,
+ * with previous implementation, which initialized new engine for each packet.
+ * <p>
+ * Run with {@link #main(String[])}.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlowfishEngineBenchmark {
+    @Param({"32", "256", "1024"})
+    private int size;
+
+    private byte[] key;
+    private BlowfishEngine engine;
+    private ByteBuf heap;
+    private ByteBuf direct;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BlowfishEngineBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random random = new Random();
+        key = new byte[LoginCrypt.BLOWFISH_KEY_SIZE];
+        random.nextBytes(key);
+
+        engine = new BlowfishEngine();
+        engine.init(key);
+
+        final byte[] data = new byte[size];
+        random.nextBytes(data);
+        heap = Unpooled.copiedBuffer(data).order(LITTLE_ENDIAN);
+        direct = Unpooled.directBuffer(size).writeBytes(data).order(LITTLE_ENDIAN);
+    }
+
+    @Benchmark
+    public ByteBuf legacyNewEngine() {
+        final BlowfishEngine blowfishEngine = new BlowfishEngine();
+        blowfishEngine.init(key);
+
+        final byte[] array = heap.array();
+        final int offset = heap.arrayOffset() + heap.readerIndex();
+        for (int i = 0; i < heap.readableBytes(); i += 8) {
+            blowfishEngine.encryptBlock(array, offset + i, array, offset + i);
+        }
+        return heap;
+    }
+
+    @Benchmark
+    public ByteBuf legacyNewEngineDirect() {
+        final BlowfishEngine blowfishEngine = new BlowfishEngine();
+        blowfishEngine.init(key);
+
+        final byte[] block = new byte[8];
+        for (int i = direct.readerIndex(); i < direct.writerIndex(); i += 8) {
+            direct.getBytes(i, block);
+            blowfishEngine.encryptBlock(block, 0, block, 0);
+            direct.setBytes(i, block);
+        }
+        return direct;
+    }
+
+    @Benchmark
+    public ByteBuf sessionEngineArray() {
+        final byte[] array = heap.array();
+        final int offset = heap.arrayOffset() + heap.readerIndex();
+        for (int i = 0; i < heap.readableBytes(); i += 8) {
+            engine.encryptBlock(array, offset + i, array, offset + i);
+        }
+        return heap;
+    }
+
+    @Benchmark
+    public ByteBuf sessionEngineByteBuf() {
+        for (int i = heap.readerIndex(); i < heap.writerIndex(); i += 8) {
+            engine.encryptBlock(heap, i);
+        }
+        return heap;
+    }
+
+    @Benchmark
+    public ByteBuf sessionEngineByteBufDirect() {
+        for (int i = direct.readerIndex(); i < direct.writerIndex(); i += 8) {
+            engine.encryptBlock(direct, i);
+        }
+        return direct;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.authserver.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks {@link ByteBuf} block methods against array block methods with new engine for each packet,
+ * as it was done by login packets encoder before
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+public class BlowfishEngineTest {
+    private static final int PACKETS = 50;
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void testEncryptCompatibility() {
+        final byte[] key = randomBytes(LoginCrypt.BLOWFISH_KEY_SIZE);
+        final BlowfishEngine engine = new BlowfishEngine();
+        engine.init(key);
+
+        for (int i = 0; i < PACKETS; i++) {
+            final byte[] data = randomBytes(8 * (1 + random.nextInt(32)));
+            final byte[] expected = legacyEncrypt(key, data);
+
+            for (ByteBuf buf : buffers(data)) {
+                for (int index = buf.readerIndex(); index < buf.writerIndex(); index += 8) {
+                    engine.encryptBlock(buf, index);
+                }
+
+                assertThat(toArray(buf)).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    public void testDecryptCompatibility() {
+        final byte[] key = randomBytes(LoginCrypt.BLOWFISH_KEY_SIZE);
+        final BlowfishEngine engine = new BlowfishEngine();
+        engine.init(key);
+
+        for (int i = 0; i < PACKETS; i++) {
+            final byte[] data = randomBytes(8 * (1 + random.nextInt(32)));
+            final byte[] expected = legacyDecrypt(key, data);
+
+            for (ByteBuf buf : buffers(data)) {
+                for (int index = buf.readerIndex(); index < buf.writerIndex(); index += 8) {
+                    engine.decryptBlock(buf, index);
+                }
+
+                assertThat(toArray(buf)).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    public void testRoundTrip() {
+        final BlowfishEngine engine = new BlowfishEngine();
+        engine.init(randomBytes(LoginCrypt.BLOWFISH_KEY_SIZE));
+
+        final byte[] data = randomBytes(64);
+        final ByteBuf buf = Unpooled.copiedBuffer(data);
+        for (int index = 0; index < buf.writerIndex(); index += 8) {
+            engine.encryptBlock(buf, index);
+        }
+        assertThat(toArray(buf)).isNotEqualTo(data);
+
+        for (int index = 0; index < buf.writerIndex(); index += 8) {
+            engine.decryptBlock(buf, index);
+        }
+        assertThat(toArray(buf)).isEqualTo(data);
+    }
+
+    /**
+     * Big and little endian, heap and direct buffers, with data at non zero reader index
+     */
+    private static ByteBuf[] buffers(byte[] data) {
+        final ByteBuf direct = Unpooled.directBuffer(data.length + 3).writerIndex(3).readerIndex(3).writeBytes(data);
+        return new ByteBuf[]{
+                Unpooled.copiedBuffer(data),
+                Unpooled.copiedBuffer(data).order(LITTLE_ENDIAN),
+                direct,
+                direct.copy().order(LITTLE_ENDIAN)
+        };
+    }
+
+    private static byte[] legacyEncrypt(byte[] key, byte[] data) {
+        final BlowfishEngine engine = new BlowfishEngine();
+        engine.init(key);
+
+        final byte[] result = data.clone();
+        for (int i = 0; i < result.length; i += 8) {
+            engine.encryptBlock(result, i, result, i);
+        }
+        return result;
+    }
+
+    private static byte[] legacyDecrypt(byte[] key, byte[] data) {
+        final BlowfishEngine engine = new BlowfishEngine();
+        engine.init(key);
+
+        final byte[] result = data.clone();
+        for (int i = 0; i < result.length; i += 8) {
+            engine.decryptBlock(result, i, result, i);
+        }
+        return result;
+    }
+
+    private static byte[] toArray(ByteBuf buf) {
+        final byte[] result = new byte[buf.readableBytes()];
+        buf.getBytes(buf.readerIndex(), result);
+        return result;
+    }
+
+    private byte[] randomBytes(int length) {
+        final byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
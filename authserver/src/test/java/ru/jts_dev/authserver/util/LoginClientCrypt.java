@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.authserver.util;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Client side transforms of login packets, reverse of {@link LoginCrypt}, for tests and load client
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+public final class LoginClientCrypt {
+    private static final int BLOCK_SIZE = 8;
+
+    private final BlowfishEngine staticBlowfishEngine = new BlowfishEngine();
+
+    public LoginClientCrypt() {
+        staticBlowfishEngine.init(LoginCrypt.STATIC_BLOWFISH_KEY);
+    }
+
+    /**
+     * Decrypt {@link ru.jts_dev.authserver.packets.out.Init} packet with static key and revert XOR scramble,
+     * in place, reverse of {@link LoginCrypt#encryptInit(ByteBuf)}, as done by client
+     *
+     * @param frame - encrypted packet, readable bytes must be multiply of 8
+     * @return - slice of frame, without XOR key block, frame reference is not retained
+     */
+    public ByteBuf decryptInit(ByteBuf frame) {
+        final int start = frame.readerIndex();
+        final int end = frame.writerIndex();
+        if (frame.readableBytes() % BLOCK_SIZE != 0 || frame.readableBytes() < BLOCK_SIZE * 2)
+            throw new IndexOutOfBoundsException("frame.readableBytes() must be multiply of " + BLOCK_SIZE
+                    + ", and at least " + BLOCK_SIZE * 2);
+
+        for (int i = start; i < end; i += BLOCK_SIZE) {
+            staticBlowfishEngine.decryptBlock(frame, i);
+        }
+
+        // scrambled from second int, each int is xored with sum of previous plain ints and itself
+        int xorKey = frame.getInt(end - BLOCK_SIZE);
+        for (int i = end - BLOCK_SIZE - 4; i > start; i -= 4) {
+            final int value = frame.getInt(i) ^ xorKey;
+            frame.setInt(i, value);
+            xorKey -= value;
+        }
+
+        return frame.slice(start, frame.readableBytes() - BLOCK_SIZE);
+    }
+}
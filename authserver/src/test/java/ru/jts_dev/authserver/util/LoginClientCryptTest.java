@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.authserver.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Camelion
+ * @since 17.10.26
+ */
+public class LoginClientCryptTest {
+    private static final int PACKETS = 50;
+
+    private final Random random = new Random(42);
+    private final LoginCrypt loginCrypt = new LoginCrypt(random);
+    private final LoginClientCrypt clientCrypt = new LoginClientCrypt();
+
+    @Test
+    public void testDecryptInit() {
+        for (int i = 0; i < PACKETS; i++) {
+            final byte[] data = randomBytes(1 + random.nextInt(200));
+            final ByteBuf frame = loginCrypt.encryptInit(packet(data));
+
+            final ByteBuf actual = clientCrypt.decryptInit(frame);
+
+            // padding and random long are left in place
+            assertThat(actual.readableBytes()).isGreaterThanOrEqualTo(data.length);
+            assertThat(actual.slice(0, data.length)).isEqualTo(packet(data));
+        }
+    }
+
+    private static ByteBuf packet(byte[] data) {
+        return Unpooled.buffer(data.length).order(LITTLE_ENDIAN).writeBytes(data);
+    }
+
+    private byte[] randomBytes(int length) {
+        final byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.authserver.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+import ru.jts_dev.authserver.model.AuthSession;
+
+import java.security.InvalidParameterException;
+import java.util.Random;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.expectThrows;
+
+/**
+ * Checks {@link LoginCrypt} against separate transformations of login packets, as they were done before
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+public class LoginCryptTest {
+    private static final int PACKETS = 50;
+
+    private final Random random = new Random(42);
+    // padding and random tails are zeroes, so results can be compared byte by byte
+    private final Random zeroRandom = new Random() {
+        @Override
+        protected int next(int bits) {
+            return 0;
+        }
+    };
+    private final LoginCrypt loginCrypt = new LoginCrypt(zeroRandom);
+
+    @Test
+    public void testEncryptCompatibility() {
+        final AuthSession session = newSession();
+
+        for (int i = 0; i < PACKETS; i++) {
+            final byte[] data = randomBytes(1 + random.nextInt(100));
+
+            final ByteBuf expected = legacyEncrypt(legacyChecksum(legacyPadding(packet(data))),
+                    session.getBlowfishKey());
+            final ByteBuf actual = loginCrypt.encrypt(packet(data), session);
+
+            assertThat(actual).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void testEncryptCopy() {
+        final AuthSession session = newSession();
+        final byte[] data = randomBytes(37);
+        final ByteBuf shared = Unpooled.unmodifiableBuffer(packet(data));
+
+        final ByteBuf actual = loginCrypt.encryptCopy(shared, session);
+
+        assertThat(actual).isEqualTo(loginCrypt.encrypt(packet(data), session));
+        assertThat(shared.refCnt()).isEqualTo(0);
+        actual.release();
+    }
+
+    @Test
+    public void testEncryptInitCompatibility() {
+        for (int i = 0; i < PACKETS; i++) {
+            final byte[] data = randomBytes(1 + random.nextInt(200));
+
+            final ByteBuf expected = legacyEncrypt(legacyXor(legacyPadding(packet(data))),
+                    LoginCrypt.STATIC_BLOWFISH_KEY);
+            final ByteBuf actual = loginCrypt.encryptInit(packet(data));
+
+            assertThat(actual).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void testDecryptCompatibility() {
+        final AuthSession session = newSession();
+
+        for (int i = 0; i < PACKETS; i++) {
+            final byte[] data = randomBytes(1 + random.nextInt(100));
+            final ByteBuf frame = legacyEncrypt(legacyChecksum(legacyPadding(packet(data))), session.getBlowfishKey());
+            final ByteBuf expected = legacyValidateChecksum(legacyDecrypt(frame.copy(), session.getBlowfishKey()));
+
+            final ByteBuf actual = loginCrypt.decrypt(frame, session);
+
+            assertThat(actual).isEqualTo(expected);
+            assertThat(actual.getByte(0)).isEqualTo(data[0]);
+
+            // decrypted data isn't copied
+            actual.release();
+            assertThat(frame.refCnt()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void testDecryptWrongChecksum() {
+        final AuthSession session = newSession();
+        final ByteBuf frame = legacyEncrypt(legacyChecksum(legacyPadding(packet(randomBytes(20)))),
+                session.getBlowfishKey());
+        frame.setByte(3, frame.getByte(3) + 1);
+
+        expectThrows(InvalidParameterException.class, () -> loginCrypt.decrypt(frame, session));
+        expectThrows(IndexOutOfBoundsException.class, () -> loginCrypt.decrypt(packet(new byte[12]), session));
+    }
+
+    private AuthSession newSession() {
+        return new AuthSession("test", "127.0.0.1", 1, null, randomBytes(LoginCrypt.BLOWFISH_KEY_SIZE), 0, 0, 0, 0);
+    }
+
+    // padding is zeroes, as zero random is used
+    private static ByteBuf legacyPadding(ByteBuf buf) {
+        return buf.writeZero(8 - buf.readableBytes() % 8);
+    }
+
+    private static ByteBuf legacyChecksum(ByteBuf buf) {
+        int checksum = 0;
+        for (int i = 0; i < buf.readableBytes(); i += 4) {
+            checksum ^= buf.getInt(i);
+        }
+        buf.writeInt(checksum);
+        buf.writeZero(4); // for blowfish block
+        return buf;
+    }
+
+    private static ByteBuf legacyXor(ByteBuf buf) {
+        int ecx = 0;
+        buf.writeLong(0);
+        for (int pos = 4; pos < buf.readableBytes(); pos += 4) {
+            int edx = buf.getInt(pos);
+            ecx += edx;
+            edx ^= ecx;
+            buf.setInt(pos, edx);
+        }
+        buf.writeInt(ecx);
+        buf.writeInt(0); // for blowfish block
+        return buf;
+    }
+
+    private static ByteBuf legacyValidateChecksum(ByteBuf buf) {
+        if (buf.readableBytes() % 4 != 0 || buf.readableBytes() <= 4)
+            throw new IndexOutOfBoundsException("ByteBuf size must be multiply of 4 and more, that 4");
+
+        long checksum = 0;
+        int i;
+        for (i = 0; i < buf.readableBytes() - 4; i += 4) {
+            checksum ^= buf.getInt(i);
+        }
+        if (buf.getInt(i) != checksum)
+            throw new InvalidParameterException("Wrong checksum");
+
+        return buf.copy(0, buf.readableBytes() - 4);
+    }
+
+    private static ByteBuf legacyEncrypt(ByteBuf buf, byte[] key) {
+        final BlowfishEngine engine = new BlowfishEngine();
+        engine.init(key);
+        for (int i = 0; i < buf.readableBytes(); i += 8) {
+            engine.encryptBlock(buf.array(), buf.arrayOffset() + i);
+        }
+        return buf;
+    }
+
+    private static ByteBuf legacyDecrypt(ByteBuf buf, byte[] key) {
+        final BlowfishEngine engine = new BlowfishEngine();
+        engine.init(key);
+        for (int i = 0; i < buf.readableBytes(); i += 8) {
+            engine.decryptBlock(buf.array(), buf.arrayOffset() + i);
+        }
+        return buf;
+    }
+
+    private static ByteBuf packet(byte[] data) {
+        return Unpooled.buffer(data.length).order(LITTLE_ENDIAN).writeBytes(data);
+    }
+
+    private byte[] randomBytes(int length) {
+        final byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.authserver.util;
+
+import org.junit.jupiter.api.Test;
+import ru.jts_dev.authserver.config.KeyGenerationConfig;
+import ru.jts_dev.authserver.model.ScrambledKeyPair;
+
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.expectThrows;
+
+/**
+ * @author Camelion
+ * @since 17.10.26
+ */
+public class RsaKeyPairPoolTest {
+    private final KeyGenerationConfig config = new KeyGenerationConfig();
+
+    @Test
+    public void testRefill() throws Exception {
+        RsaKeyPairPool pool = new RsaKeyPairPool(this::generator, 2, 4, 2);
+        pool.afterPropertiesSet();
+        try {
+            awaitPoolSize(pool, 4);
+
+            ScrambledKeyPair first = pool.take();
+            ScrambledKeyPair second = pool.take();
+            ScrambledKeyPair third = pool.take();
+
+            assertThat(first.getKeyPair()).isNotSameAs(second.getKeyPair());
+            assertThat(first.getScrambledModulus()).isEqualTo(KeyGenerationConfig.scrambleModulus(
+                    ((RSAPublicKey) first.getKeyPair().getPublic()).getModulus()));
+            assertThat(pool.getFallbacks()).isEqualTo(0);
+            assertThat(third).isNotNull();
+
+            // pool dropped below low watermark, so it must be refilled
+            awaitPoolSize(pool, 4);
+            assertThat(pool.getRefilled()).isGreaterThanOrEqualTo(7);
+        } finally {
+            pool.destroy();
+        }
+    }
+
+    @Test
+    public void testFallback() {
+        // refill threads aren't started
+        RsaKeyPairPool pool = new RsaKeyPairPool(this::generator, 1, 1, 1);
+
+        ScrambledKeyPair keyPair = pool.take();
+
+        assertThat(keyPair.getKeyPair().getPrivate()).isNotNull();
+        assertThat(keyPair.getScrambledModulus()).hasSize(128);
+        assertThat(pool.getFallbacks()).isEqualTo(1);
+    }
+
+    @Test
+    public void testInvalidWatermarks() {
+        expectThrows(IllegalArgumentException.class, () -> new RsaKeyPairPool(this::generator, 2, 1, 1));
+        expectThrows(IllegalArgumentException.class, () -> new RsaKeyPairPool(this::generator, 0, 0, 1));
+        expectThrows(IllegalArgumentException.class, () -> new RsaKeyPairPool(this::generator, 0, 1, 0));
+    }
+
+    private KeyPairGenerator generator() {
+        try {
+            return config.RSAKeyPairGenerator();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void awaitPoolSize(RsaKeyPairPool pool, int size) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 30_000;
+        while (pool.getPoolSize() < size && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(pool.getPoolSize()).isEqualTo(size);
+    }
+}
@@ -19,6 +19,8 @@
 
 package ru.jts_dev.common.id;
 
+import java.util.Arrays;
+
 /**
  * Represents IdPool with fixed id range in [1 ... {@linkplain Integer#MAX_VALUE}]
  * Every id pool should be created only once for one creation factory,
@@ -31,4 +33,38 @@ public interface IdPool {
     int borrow();
 
     void release(int id);
+
+    /**
+     * Borrow ids at once, all or none. Default implementation borrows ids one by one,
+     * implementations override it to claim ids with single lock or CAS, where possible.
+     *
+     * @param count - count of ids
+     * @return - borrowed ids, in no particular order
+     * @throws ru.jts_dev.common.id.impl.AllocationException - if pool hasn't enough free ids,
+     *                                                      ids, borrowed by this call, are released
+     */
+    default int[] borrowBatch(final int count) {
+        final int[] ids = new int[count];
+        int borrowed = 0;
+        try {
+            for (; borrowed < count; borrowed++) {
+                ids[borrowed] = borrow();
+            }
+        } catch (RuntimeException e) {
+            releaseBatch(Arrays.copyOf(ids, borrowed));
+            throw e;
+        }
+        return ids;
+    }
+
+    /**
+     * Release ids at once
+     *
+     * @param ids - borrowed ids
+     */
+    default void releaseBatch(final int[] ids) {
+        for (final int id : ids) {
+            release(id);
+        }
+    }
 }
@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.id.impl.bitmap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import ru.jts_dev.common.id.IdPool;
+import ru.jts_dev.common.id.impl.AllocationException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongBinaryOperator;
+
+import static org.springframework.beans.factory.config.ConfigurableBeanFactory.SCOPE_PROTOTYPE;
+
+/**
+ * Lock free id pool on hierarchical bitmap.
+ * <p>
+ * Leaf level has bit per id, set when id is used. Each summary level has bit per word of level below,
+ * set when that word is full, up to single top word, so free id is found by descending one word per level,
+ * instead of scanning bitmap from start. Leaf bits are claimed and released with CAS.
+ * <p>
+ * Summary bits are hints, word can be seen full by summary for a moment, after it got free bit.
+ * Thread, which sets summary bit, checks word again and clears bit, if word isn't full anymore,
+ * so free ids aren't lost, and full top word is checked by scan of leaf level, before pool is reported exhausted.
+ * Each thread starts search from leaf word of its last borrowed id.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+@Component
+@Scope(SCOPE_PROTOTYPE)
+public final class HierarchicalBitmapIdPool implements IdPool {
+    private static final int WORD_SHIFT = 6;
+    private static final long FULL = -1L;
+    private static final LongBinaryOperator OR = (word, bits) -> word | bits;
+    private static final LongBinaryOperator AND = (word, bits) -> word & bits;
+
+    private final Logger logger = LoggerFactory.getLogger(HierarchicalBitmapIdPool.class);
+
+    private final int maxId;
+    // leaf level first, last level has single word
+    private final AtomicLongArray[] levels;
+    // leaf word of last borrowed id, by thread
+    private final ThreadLocal<int[]> hint = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Autowired
+    public HierarchicalBitmapIdPool(@Value("${jts.common.bitset.max-size:#{T(java.lang.Integer).MAX_VALUE}}") int maxId) {
+        if (maxId <= 0) {
+            throw new IllegalArgumentException("maxId must be > 0 current: " + maxId);
+        }
+        this.maxId = maxId;
+
+        final List<AtomicLongArray> levels = new ArrayList<>();
+        // id 0 is never borrowed
+        AtomicLongArray level = newLevel((long) maxId + 1);
+        level.accumulateAndGet(0, 1L, OR);
+        levels.add(level);
+        while (level.length() > 1) {
+            final AtomicLongArray upper = newLevel(level.length());
+            for (int i = 0; i < level.length(); i++) {
+                if (level.get(i) == FULL) {
+                    upper.accumulateAndGet(i >>> WORD_SHIFT, 1L << i, OR);
+                }
+            }
+            levels.add(upper);
+            level = upper;
+        }
+        this.levels = levels.toArray(new AtomicLongArray[levels.size()]);
+    }
+
+    @Override
+    public int borrow() {
+        final int[] hint = this.hint.get();
+        int id = claim(hint[0]);
+        if (id < 0) {
+            id = search();
+        }
+        if (id < 0) {
+            id = scan();
+        }
+        if (id < 0) {
+            throw new AllocationException("No available indexes in pool");
+        }
+        hint[0] = id >>> WORD_SHIFT;
+
+        logger.trace("allocated id: {}", id);
+        return id;
+    }
+
+    @Override
+    public void release(final int id) {
+        if (id <= 0 || id > maxId) {
+            throw new IndexOutOfBoundsException("index must be > 0 and <= " + maxId + " current: " + id);
+        }
+
+        final int index = id >>> WORD_SHIFT;
+        if (levels[0].getAndAccumulate(index, ~(1L << id), AND) == FULL) {
+            markFree(0, index);
+        }
+        logger.trace("released id: {}", id);
+    }
+
+    @Override
+    public int[] borrowBatch(final int count) {
+        final int[] ids = new int[count];
+        if (count == 0) {
+            return ids;
+        }
+
+        final int[] hint = this.hint.get();
+        int borrowed = claim(hint[0], ids, 0);
+        while (borrowed < count) {
+            int id = search();
+            if (id < 0) {
+                id = scan();
+            }
+            if (id < 0) {
+                releaseBatch(Arrays.copyOf(ids, borrowed));
+                throw new AllocationException("No available indexes in pool");
+            }
+            ids[borrowed] = id;
+            // rest of found word
+            borrowed = claim(id >>> WORD_SHIFT, ids, borrowed + 1);
+        }
+        hint[0] = ids[count - 1] >>> WORD_SHIFT;
+
+        logger.trace("allocated {} ids", count);
+        return ids;
+    }
+
+    /**
+     * @param bits - bits count, bits over count are set
+     * @return - level of words for bits
+     */
+    private static AtomicLongArray newLevel(long bits) {
+        final AtomicLongArray level = new AtomicLongArray((int) ((bits + 63) >>> WORD_SHIFT));
+        final int tail = (int) (bits & 63);
+        if (tail != 0) {
+            level.set(level.length() - 1, FULL << tail);
+        }
+        return level;
+    }
+
+    /**
+     * @param index - leaf word index
+     * @return - claimed id, or -1 if word is full
+     */
+    private int claim(final int index) {
+        final AtomicLongArray leaves = levels[0];
+        long word;
+        while ((word = leaves.get(index)) != FULL) {
+            final long bit = Long.lowestOneBit(~word);
+            if (leaves.compareAndSet(index, word, word | bit)) {
+                if ((word | bit) == FULL) {
+                    markFull(0, index);
+                }
+                return index << WORD_SHIFT | Long.numberOfTrailingZeros(bit);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Claim free bits of word, with single CAS
+     *
+     * @param index  - leaf word index
+     * @param ids    - claimed ids, filled up to length
+     * @param offset - count of already claimed ids
+     * @return - count of claimed ids, with claimed in this word
+     */
+    private int claim(final int index, final int[] ids, int offset) {
+        final AtomicLongArray leaves = levels[0];
+        long word;
+        while (offset < ids.length && (word = leaves.get(index)) != FULL) {
+            long bits = 0;
+            long free = ~word;
+            for (int n = offset; n < ids.length && free != 0; n++) {
+                bits |= Long.lowestOneBit(free);
+                free &= free - 1;
+            }
+            if (leaves.compareAndSet(index, word, word | bits)) {
+                if ((word | bits) == FULL) {
+                    markFull(0, index);
+                }
+                for (; bits != 0; bits &= bits - 1) {
+                    ids[offset++] = index << WORD_SHIFT | Long.numberOfTrailingZeros(bits);
+                }
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * Descend from top word by summary bits
+     *
+     * @return - claimed id, or -1 if top word is full
+     */
+    private int search() {
+        final int top = levels.length - 1;
+        while (levels[top].get(0) != FULL) {
+            int level = top;
+            int index = 0;
+            long word;
+            while ((word = levels[level].get(index)) != FULL && level > 0) {
+                index = index << WORD_SHIFT | Long.numberOfTrailingZeros(~word);
+                level--;
+            }
+
+            if (word != FULL) {
+                final int id = claim(index);
+                if (id > 0) {
+                    return id;
+                }
+            } else {
+                // summary bit of this word isn't set yet
+                markFull(level, index);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Full scan of leaf level, when summary shows pool full
+     *
+     * @return - claimed id, or -1 if all leaf words are full
+     */
+    private int scan() {
+        for (int index = 0; index < levels[0].length(); index++) {
+            final int id = claim(index);
+            if (id > 0) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Set summary bits of word, seen full, and of its full summary words
+     *
+     * @param level - level of word
+     * @param index - word index
+     */
+    private void markFull(int level, int index) {
+        for (; level < levels.length - 1; level++) {
+            final int upperIndex = index >>> WORD_SHIFT;
+            levels[level + 1].accumulateAndGet(upperIndex, 1L << index, OR);
+
+            // word could get free bit before summary bit was set, and its release could skip summary
+            if (levels[level].get(index) != FULL) {
+                markFree(level, index);
+                return;
+            }
+            if (levels[level + 1].get(upperIndex) != FULL) {
+                return;
+            }
+            index = upperIndex;
+        }
+    }
+
+    /**
+     * Clear summary bits of word, which isn't full anymore, and of summary words, which were full
+     *
+     * @param level - level of word
+     * @param index - word index
+     */
+    private void markFree(int level, int index) {
+        for (; level < levels.length - 1; level++) {
+            final int upperIndex = index >>> WORD_SHIFT;
+            final long bit = 1L << index;
+            final AtomicLongArray upper = levels[level + 1];
+            if ((upper.get(upperIndex) & bit) == 0) {
+                return;
+            }
+            if (upper.getAndAccumulate(upperIndex, ~bit, AND) != FULL) {
+                return;
+            }
+            index = upperIndex;
+        }
+    }
+}
@@ -66,6 +66,44 @@ public final class BitSetIdPool implements IdPool {
         logger.trace("released id: {}", id);
     }
 
+    @Override
+    public int[] borrowBatch(final int count) {
+        final int[] ids = new int[count];
+        lock.lock();
+        try {
+            int index = 0;
+            for (int borrowed = 0; borrowed < count; borrowed++) {
+                // search continues after previous index, instead of first index
+                index = allocator.nextFreeIndex(index + 1);
+                if (index == -1) {
+                    for (int i = 0; i < borrowed; i++) {
+                        allocator.markFree(ids[i]);
+                    }
+                    throw new AllocationException("No available indexes in pool");
+                }
+                allocator.markUsed(index);
+                ids[borrowed] = index;
+            }
+        } finally {
+            lock.unlock();
+        }
+        logger.trace("allocated {} ids", count);
+        return ids;
+    }
+
+    @Override
+    public void releaseBatch(final int[] ids) {
+        lock.lock();
+        try {
+            for (final int id : ids) {
+                allocator.markFree(id);
+            }
+        } finally {
+            lock.unlock();
+        }
+        logger.trace("released {} ids", ids.length);
+    }
+
     private int allocate() {
         lock.lock();
         try {
@@ -113,7 +151,11 @@ public final class BitSetIdPool implements IdPool {
         }
 
         int nextFreeIndex() {
-            final int nextClear = bitSet.nextClearBit(1);
+            return nextFreeIndex(1);
+        }
+
+        int nextFreeIndex(final int fromIndex) {
+            final int nextClear = bitSet.nextClearBit(fromIndex);
             if (nextClear > bitSetSize)
                 return -1;
             return nextClear;
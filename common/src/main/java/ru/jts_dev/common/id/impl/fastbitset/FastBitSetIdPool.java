@@ -65,6 +65,38 @@ public class FastBitSetIdPool implements IdPool {
         logger.trace("released id: {}", id);
     }
 
+    @Override
+    public int[] borrowBatch(final int count) {
+        final int[] ids = new int[count];
+        lock.lock();
+        try {
+            int index = 0;
+            for (int borrowed = 0; borrowed < count; borrowed++) {
+                // search continues after previous index, instead of first index
+                index = allocator.nextFreeIndex(index + 1);
+                allocator.markUsed(index);
+                ids[borrowed] = index;
+            }
+        } finally {
+            lock.unlock();
+        }
+        logger.trace("allocated {} ids", count);
+        return ids;
+    }
+
+    @Override
+    public void releaseBatch(final int[] ids) {
+        lock.lock();
+        try {
+            for (final int id : ids) {
+                allocator.markFree(id);
+            }
+        } finally {
+            lock.unlock();
+        }
+        logger.trace("released {} ids", ids.length);
+    }
+
     private int allocate() {
         lock.lock();
         try {
@@ -109,7 +141,11 @@ public class FastBitSetIdPool implements IdPool {
         }
 
         int nextFreeIndex() {
-            final int nextClear = bitSet.nextClearBit(1);
+            return nextFreeIndex(1);
+        }
+
+        int nextFreeIndex(final int fromIndex) {
+            final int nextClear = bitSet.nextClearBit(fromIndex);
             return nextClear;
         }
     }
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.id.impl.lease;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.jts_dev.common.id.IdPool;
+import ru.jts_dev.common.id.impl.AllocationException;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Id pool with thread local leases of ids, over other pool.
+ * <p>
+ * Thread borrows ids from its lease, which is refilled with {@link IdPool#borrowBatch(int)} of {@code leaseSize} ids,
+ * so bulk loads from many threads don't contend on pool for each id.
+ * Released ids are returned to pool directly. Unused ids of leases, which weren't used for {@code idleTimeout},
+ * are returned to pool by {@link #returnIdleLeases()}, it should be called periodically, also for leases of finished threads.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+public final class LeasingIdPool implements IdPool {
+    private static final Logger log = LoggerFactory.getLogger(LeasingIdPool.class);
+
+    private final IdPool pool;
+    private final int leaseSize;
+    private final long idleTimeoutNanos;
+
+    // leases with ids
+    private final Set<Lease> leases = ConcurrentHashMap.newKeySet();
+    private final ThreadLocal<Lease> lease = ThreadLocal.withInitial(Lease::new);
+
+    /**
+     * @param pool        - pool of ids
+     * @param leaseSize   - count of ids, borrowed to thread lease at once
+     * @param idleTimeout - lease idle time in milliseconds, after which its ids are returned to pool
+     */
+    public LeasingIdPool(IdPool pool, int leaseSize, long idleTimeout) {
+        if (leaseSize <= 0) {
+            throw new IllegalArgumentException("leaseSize must be > 0 current: " + leaseSize);
+        }
+        this.pool = pool;
+        this.leaseSize = leaseSize;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeout);
+    }
+
+    @Override
+    public int borrow() {
+        final Lease lease = this.lease.get();
+        // uncontended, except with return of idle lease
+        synchronized (lease) {
+            lease.lastUsed = System.nanoTime();
+            if (lease.position == lease.ids.length) {
+                try {
+                    lease.ids = pool.borrowBatch(leaseSize);
+                } catch (AllocationException e) {
+                    // pool is almost exhausted, rest of ids shouldn't be kept in leases
+                    return pool.borrow();
+                }
+                lease.position = 0;
+                leases.add(lease);
+            }
+            return lease.ids[lease.position++];
+        }
+    }
+
+    @Override
+    public void release(final int id) {
+        pool.release(id);
+    }
+
+    @Override
+    public int[] borrowBatch(final int count) {
+        final Lease lease = this.lease.get();
+        synchronized (lease) {
+            lease.lastUsed = System.nanoTime();
+            if (count > lease.ids.length - lease.position) {
+                return pool.borrowBatch(count);
+            }
+            final int[] ids = Arrays.copyOfRange(lease.ids, lease.position, lease.position + count);
+            lease.position += count;
+            return ids;
+        }
+    }
+
+    @Override
+    public void releaseBatch(final int[] ids) {
+        pool.releaseBatch(ids);
+    }
+
+    /**
+     * Return unused ids of idle leases to pool
+     */
+    public void returnIdleLeases() {
+        final long now = System.nanoTime();
+        for (final Lease lease : leases) {
+            final int[] unused;
+            synchronized (lease) {
+                if (now - lease.lastUsed < idleTimeoutNanos) {
+                    continue;
+                }
+                unused = Arrays.copyOfRange(lease.ids, lease.position, lease.ids.length);
+                lease.ids = Lease.EMPTY;
+                lease.position = 0;
+                // lease is added back by next refill
+                leases.remove(lease);
+            }
+            pool.releaseBatch(unused);
+            log.trace("returned {} unused ids of idle lease", unused.length);
+        }
+    }
+
+    /**
+     * @return - count of unused ids in leases
+     */
+    public int getLeasedCount() {
+        int count = 0;
+        for (final Lease lease : leases) {
+            synchronized (lease) {
+                count += lease.ids.length - lease.position;
+            }
+        }
+        return count;
+    }
+
+    private static final class Lease {
+        private static final int[] EMPTY = new int[0];
+
+        private int[] ids = EMPTY;
+        private int position;
+        private long lastUsed;
+    }
+}
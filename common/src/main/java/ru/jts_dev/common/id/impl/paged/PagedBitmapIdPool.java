@@ -0,0 +1,452 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.id.impl.paged;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+import ru.jts_dev.common.id.IdPool;
+import ru.jts_dev.common.id.impl.AllocationException;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongBinaryOperator;
+
+import static org.springframework.beans.factory.config.ConfigurableBeanFactory.SCOPE_PROTOTYPE;
+
+/**
+ * Id pool on sparse bitmap, split to pages of {@code jts.common.paged.page-size} bytes.
+ * <p>
+ * Page is allocated, when first id of its range is borrowed, and removed, when its last id is released,
+ * except one empty page, which is kept to avoid allocation on each borrow at page boundary.
+ * So heap usage depends on borrowed ids, not on {@code jts.common.bitset.max-size},
+ * only page directory and full pages summary, bit per page, are allocated for whole range.
+ * <p>
+ * Ids are claimed with CAS, without lock. Page has counter of borrowed ids, which is reserved before bit is claimed,
+ * and page is removed only by CAS of zero counter, so page can't be removed, while its bit is being claimed.
+ * Each thread starts from page and word of its last borrowed id.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+@Component
+@Scope(SCOPE_PROTOTYPE)
+@Primary
+public final class PagedBitmapIdPool implements IdPool {
+    public static final int MIN_PAGE_SIZE = 4 * 1024;
+    public static final int MAX_PAGE_SIZE = 64 * 1024;
+
+    private static final int WORD_SHIFT = 6;
+    private static final long FULL = -1L;
+    private static final LongBinaryOperator OR = (word, bits) -> word | bits;
+    private static final LongBinaryOperator AND = (word, bits) -> word & bits;
+    // approximate size of page object, its counter and array headers
+    private static final int PAGE_OVERHEAD = 64;
+
+    private final Logger logger = LoggerFactory.getLogger(PagedBitmapIdPool.class);
+
+    private final int maxId;
+    private final int pageSize;
+    // ids per page is 1 << pageShift
+    private final int pageShift;
+    private final AtomicReferenceArray<Page> pages;
+    // bit per page, set when page is full
+    private final AtomicLongArray fullPages;
+    private final AtomicInteger allocatedPages = new AtomicInteger();
+    private final AtomicInteger emptyPages = new AtomicInteger();
+    // last borrowed id, by thread
+    private final ThreadLocal<int[]> hint = ThreadLocal.withInitial(() -> new int[1]);
+
+    @Autowired
+    public PagedBitmapIdPool(@Value("${jts.common.bitset.max-size:#{T(java.lang.Integer).MAX_VALUE}}") int maxId,
+                             @Value("${jts.common.paged.page-size:8192}") int pageSize) {
+        if (maxId <= 0) {
+            throw new IllegalArgumentException("maxId must be > 0 current: " + maxId);
+        }
+        if (Integer.bitCount(pageSize) != 1 || pageSize < MIN_PAGE_SIZE || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("pageSize must be power of 2, >= " + MIN_PAGE_SIZE
+                    + " and <= " + MAX_PAGE_SIZE + " current: " + pageSize);
+        }
+        this.maxId = maxId;
+        this.pageSize = pageSize;
+        // 8 ids per byte
+        this.pageShift = Integer.numberOfTrailingZeros(pageSize) + 3;
+
+        final int pageCount = (int) (((long) maxId >>> pageShift) + 1);
+        pages = new AtomicReferenceArray<>(pageCount);
+        fullPages = new AtomicLongArray((pageCount + 63) >>> WORD_SHIFT);
+        // pages over count are always full
+        if ((pageCount & 63) != 0) {
+            fullPages.set(fullPages.length() - 1, FULL << pageCount);
+        }
+    }
+
+    @Override
+    public int borrow() {
+        final int[] hint = this.hint.get();
+        int id = claim(hint[0] >>> pageShift, hint[0]);
+        if (id < 0) {
+            id = search();
+        }
+        if (id < 0) {
+            id = scan();
+        }
+        if (id < 0) {
+            throw new AllocationException("No available indexes in pool");
+        }
+        hint[0] = id;
+
+        logger.trace("allocated id: {}", id);
+        return id;
+    }
+
+    @Override
+    public void release(final int id) {
+        if (id <= 0 || id > maxId) {
+            throw new IndexOutOfBoundsException("index must be > 0 and <= " + maxId + " current: " + id);
+        }
+
+        final int pageIndex = id >>> pageShift;
+        final Page page = pages.get(pageIndex);
+        // page with borrowed id can't be removed
+        if (page == null) {
+            return;
+        }
+        final long bit = 1L << id;
+        if ((page.words.getAndAccumulate(wordOf(id), ~bit, AND) & bit) == 0) {
+            return;
+        }
+
+        final int count = page.count.decrementAndGet();
+        if (count == page.capacity - 1) {
+            markNotFull(pageIndex);
+        }
+        if (count == 0) {
+            onEmpty(pageIndex, page);
+        }
+        logger.trace("released id: {}", id);
+    }
+
+    @Override
+    public int[] borrowBatch(final int count) {
+        final int[] ids = new int[count];
+        if (count == 0) {
+            return ids;
+        }
+
+        final int[] hint = this.hint.get();
+        int borrowed = claim(hint[0] >>> pageShift, hint[0], ids, 0);
+        for (int i = 0; i < fullPages.length() && borrowed < count; i++) {
+            long word;
+            while (borrowed < count && (word = fullPages.get(i)) != FULL) {
+                final int pageIndex = i << WORD_SHIFT | Long.numberOfTrailingZeros(~word);
+                borrowed = claim(pageIndex, pageIndex << pageShift, ids, borrowed);
+            }
+        }
+        for (int pageIndex = 0; pageIndex < pages.length() && borrowed < count; pageIndex++) {
+            borrowed = claim(pageIndex, pageIndex << pageShift, ids, borrowed);
+        }
+        if (borrowed < count) {
+            releaseBatch(Arrays.copyOf(ids, borrowed));
+            throw new AllocationException("No available indexes in pool");
+        }
+        hint[0] = ids[count - 1];
+
+        logger.trace("allocated {} ids", count);
+        return ids;
+    }
+
+    /**
+     * @return - approximate heap bytes, used by pool, with compressed references
+     */
+    public long getHeapUsage() {
+        return pages.length() * 4L + fullPages.length() * 8L
+                + allocatedPages.get() * (long) (pageSize + PAGE_OVERHEAD);
+    }
+
+    /**
+     * @return - count of allocated pages
+     */
+    public int getAllocatedPages() {
+        return allocatedPages.get();
+    }
+
+    /**
+     * @return - page size in bytes
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    private int wordOf(int id) {
+        return (id & ((1 << pageShift) - 1)) >>> WORD_SHIFT;
+    }
+
+    /**
+     * Reserve and claim id in page, allocate page if it's absent
+     *
+     * @param pageIndex - page index
+     * @param fromId    - search starts from word of this id
+     * @return - claimed id, or -1 if page is full
+     */
+    private int claim(final int pageIndex, final int fromId) {
+        while (true) {
+            final Page page = pageOf(pageIndex);
+            final int reserved = reserve(pageIndex, page, 1);
+            if (reserved < 0) {
+                remove(pageIndex, page);
+                continue;
+            }
+            if (reserved == 0) {
+                return -1;
+            }
+            return pageIndex << pageShift | page.claimBit(fromWord(pageIndex, fromId));
+        }
+    }
+
+    /**
+     * Reserve and claim ids in page, as many as page has, allocate page if it's absent
+     *
+     * @param pageIndex - page index
+     * @param fromId    - search starts from word of this id
+     * @param ids       - claimed ids, filled up to length
+     * @param offset    - count of already claimed ids
+     * @return - count of claimed ids, with claimed in this page
+     */
+    private int claim(final int pageIndex, final int fromId, final int[] ids, final int offset) {
+        while (true) {
+            final Page page = pageOf(pageIndex);
+            final int reserved = reserve(pageIndex, page, ids.length - offset);
+            if (reserved < 0) {
+                remove(pageIndex, page);
+                continue;
+            }
+            page.claimBits(fromWord(pageIndex, fromId), pageIndex << pageShift, ids, offset, reserved);
+            return offset + reserved;
+        }
+    }
+
+    private int fromWord(int pageIndex, int fromId) {
+        return pageIndex == fromId >>> pageShift ? wordOf(fromId) : 0;
+    }
+
+    private Page pageOf(int pageIndex) {
+        while (true) {
+            final Page page = pages.get(pageIndex);
+            if (page != null) {
+                return page;
+            }
+
+            final Page created = newPage(pageIndex);
+            emptyPages.incrementAndGet();
+            if (pages.compareAndSet(pageIndex, null, created)) {
+                allocatedPages.incrementAndGet();
+                return created;
+            }
+            emptyPages.decrementAndGet();
+        }
+    }
+
+    /**
+     * Reserve ids in page counter
+     *
+     * @param pageIndex - page index
+     * @param page      - page
+     * @param count     - wanted count of ids
+     * @return - reserved count, up to wanted, 0 if page is full, or -1 if page is removed by other thread,
+     * it could be not unlinked yet
+     */
+    private int reserve(int pageIndex, Page page, int count) {
+        int used;
+        int reserved;
+        do {
+            used = page.count.get();
+            if (used < 0) {
+                return -1;
+            }
+            reserved = Math.min(count, page.capacity - used);
+            if (reserved == 0) {
+                markFull(pageIndex, page);
+                return 0;
+            }
+        } while (!page.count.compareAndSet(used, used + reserved));
+
+        if (used == 0) {
+            emptyPages.decrementAndGet();
+        }
+        if (used + reserved == page.capacity) {
+            markFull(pageIndex, page);
+        }
+        return reserved;
+    }
+
+    /**
+     * Find first page, which isn't full by summary
+     *
+     * @return - claimed id, or -1 if all pages are full by summary
+     */
+    private int search() {
+        for (int i = 0; i < fullPages.length(); i++) {
+            long word;
+            while ((word = fullPages.get(i)) != FULL) {
+                final int pageIndex = i << WORD_SHIFT | Long.numberOfTrailingZeros(~word);
+                final int id = claim(pageIndex, pageIndex << pageShift);
+                if (id > 0) {
+                    return id;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Try all pages, when summary shows pool full
+     *
+     * @return - claimed id, or -1 if all pages are full
+     */
+    private int scan() {
+        for (int pageIndex = 0; pageIndex < pages.length(); pageIndex++) {
+            final int id = claim(pageIndex, pageIndex << pageShift);
+            if (id > 0) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    private Page newPage(int pageIndex) {
+        final long first = (long) pageIndex << pageShift;
+        final long end = Math.min(first + (1L << pageShift), (long) maxId + 1);
+        final Page page = new Page(1 << (pageShift - WORD_SHIFT), (int) (end - first) - (pageIndex == 0 ? 1 : 0));
+        // id 0 is never borrowed
+        if (pageIndex == 0) {
+            page.words.set(0, 1L);
+        }
+        // ids over max id in last page
+        final int tail = (int) (end - first);
+        if (tail < 1 << pageShift) {
+            final int word = tail >>> WORD_SHIFT;
+            if ((tail & 63) != 0) {
+                page.words.accumulateAndGet(word, FULL << tail, OR);
+            }
+            for (int i = (tail + 63) >>> WORD_SHIFT; i < page.words.length(); i++) {
+                page.words.set(i, FULL);
+            }
+        }
+        return page;
+    }
+
+    private void onEmpty(int pageIndex, Page page) {
+        // one empty page is kept, and counter is decremented when it gets borrowed id
+        if (emptyPages.incrementAndGet() > 1 && page.count.compareAndSet(0, -1)) {
+            emptyPages.decrementAndGet();
+            remove(pageIndex, page);
+        }
+    }
+
+    private void remove(int pageIndex, Page page) {
+        if (pages.compareAndSet(pageIndex, page, null)) {
+            allocatedPages.decrementAndGet();
+        }
+    }
+
+    private void markFull(int pageIndex, Page page) {
+        fullPages.accumulateAndGet(pageIndex >>> WORD_SHIFT, 1L << pageIndex, OR);
+        // page could get free id before bit was set, and its release could skip summary
+        if (page.count.get() != page.capacity) {
+            markNotFull(pageIndex);
+        }
+    }
+
+    private void markNotFull(int pageIndex) {
+        final int index = pageIndex >>> WORD_SHIFT;
+        final long bit = 1L << pageIndex;
+        if ((fullPages.get(index) & bit) != 0) {
+            fullPages.accumulateAndGet(index, ~bit, AND);
+        }
+    }
+
+    private static final class Page {
+        private final AtomicLongArray words;
+        private final int capacity;
+        // borrowed and reserved ids, -1 when page is removed
+        private final AtomicInteger count = new AtomicInteger();
+
+        Page(int words, int capacity) {
+            this.words = new AtomicLongArray(words);
+            this.capacity = capacity;
+        }
+
+        /**
+         * Claim free bit, reserved by counter, starting from word
+         *
+         * @param from - first checked word
+         * @return - bit index in page
+         */
+        int claimBit(int from) {
+            final int length = words.length();
+            for (int i = from; ; i = i + 1 < length ? i + 1 : 0) {
+                long word;
+                while ((word = words.get(i)) != FULL) {
+                    final long bit = Long.lowestOneBit(~word);
+                    if (words.compareAndSet(i, word, word | bit)) {
+                        return i << WORD_SHIFT | Long.numberOfTrailingZeros(bit);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Claim free bits, reserved by counter, starting from word, with single CAS per word
+         *
+         * @param from   - first checked word
+         * @param base   - first id of page
+         * @param ids    - claimed ids
+         * @param offset - first index in ids
+         * @param count  - count of reserved bits
+         */
+        void claimBits(int from, int base, int[] ids, int offset, int count) {
+            final int length = words.length();
+            for (int i = from; count > 0; i = i + 1 < length ? i + 1 : 0) {
+                long word;
+                while (count > 0 && (word = words.get(i)) != FULL) {
+                    long bits = 0;
+                    long free = ~word;
+                    for (int n = 0; n < count && free != 0; n++) {
+                        bits |= Long.lowestOneBit(free);
+                        free &= free - 1;
+                    }
+                    if (words.compareAndSet(i, word, word | bits)) {
+                        for (; bits != 0; bits &= bits - 1) {
+                            ids[offset++] = base | i << WORD_SHIFT | Long.numberOfTrailingZeros(bits);
+                            count--;
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
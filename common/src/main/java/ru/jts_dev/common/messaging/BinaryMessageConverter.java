@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.messaging;
+
+import org.springframework.jms.support.converter.MessageConversionException;
+import org.springframework.jms.support.converter.MessageConverter;
+import org.springframework.jms.support.converter.SimpleMessageConverter;
+import org.springframework.stereotype.Component;
+
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+
+/**
+ * JMS message converter, used by auto configured {@link org.springframework.jms.core.JmsTemplate}
+ * and listeners. Messages, supported by {@link MessageCodec}, are sent as {@link BytesMessage}
+ * with type in {@link #MESSAGE_TYPE_PROPERTY} property, other objects are converted by {@link SimpleMessageConverter}.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+@Component
+public class BinaryMessageConverter implements MessageConverter {
+    public static final String MESSAGE_TYPE_PROPERTY = "jtsMessageType";
+
+    private final SimpleMessageConverter fallback = new SimpleMessageConverter();
+
+    @Override
+    public Message toMessage(Object object, Session session) throws JMSException, MessageConversionException {
+        final byte type = MessageCodec.typeOf(object);
+        if (type == MessageCodec.UNSUPPORTED)
+            return fallback.toMessage(object, session);
+
+        final BytesMessage message = session.createBytesMessage();
+        message.setByteProperty(MESSAGE_TYPE_PROPERTY, type);
+        message.writeBytes(MessageCodec.encode(object));
+        return message;
+    }
+
+    @Override
+    public Object fromMessage(Message message) throws JMSException, MessageConversionException {
+        if (!(message instanceof BytesMessage) || !message.propertyExists(MESSAGE_TYPE_PROPERTY))
+            return fallback.fromMessage(message);
+
+        final BytesMessage bytesMessage = (BytesMessage) message;
+        final byte[] data = new byte[(int) bytesMessage.getBodyLength()];
+        bytesMessage.readBytes(data);
+        try {
+            return MessageCodec.decode(message.getByteProperty(MESSAGE_TYPE_PROPERTY), data);
+        } catch (IllegalArgumentException e) {
+            throw new MessageConversionException("Failed to decode message " + message.getJMSMessageID(), e);
+        }
+    }
+}
@@ -24,6 +24,9 @@ import java.net.InetAddress;
 import java.util.Objects;
 
 /**
+ * Game server registration and status, sent periodically as heartbeat,
+ * auth server forgets servers, which didn't send it for some time.
+ *
  * @author Camelion
  * @since 09.12.15
  */
@@ -40,6 +43,9 @@ public class GameServerInfo implements Serializable {
     private boolean enabled;
     private int serverType;
     private boolean bracketsEnabled;
+    // load figures, not sent to clients
+    private int queuedPackets;
+    private int tickLag;
 
     public GameServerInfo(final int serverId, final InetAddress address, final int port) {
         this.serverId = serverId;
@@ -101,4 +107,54 @@ public class GameServerInfo implements Serializable {
     public final boolean isBracketsEnabled() {
         return bracketsEnabled;
     }
+
+    /**
+     * @return - count of client packets, waiting for execution
+     */
+    public final int getQueuedPackets() {
+        return queuedPackets;
+    }
+
+    /**
+     * @return - delay of scheduled tasks execution in game server, milliseconds
+     */
+    public final int getTickLag() {
+        return tickLag;
+    }
+
+    public final void setAgeLimit(final boolean ageLimit) {
+        this.ageLimit = ageLimit;
+    }
+
+    public final void setPvp(final boolean pvp) {
+        this.pvp = pvp;
+    }
+
+    public final void setOnlinePlayers(final int onlinePlayers) {
+        this.onlinePlayers = onlinePlayers;
+    }
+
+    public final void setMaxPlayers(final int maxPlayers) {
+        this.maxPlayers = maxPlayers;
+    }
+
+    public final void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public final void setServerType(final int serverType) {
+        this.serverType = serverType;
+    }
+
+    public final void setBracketsEnabled(final boolean bracketsEnabled) {
+        this.bracketsEnabled = bracketsEnabled;
+    }
+
+    public final void setQueuedPackets(final int queuedPackets) {
+        this.queuedPackets = queuedPackets;
+    }
+
+    public final void setTickLag(final int tickLag) {
+        this.tickLag = tickLag;
+    }
 }
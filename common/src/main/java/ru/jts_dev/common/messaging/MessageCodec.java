@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.messaging;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary encoding of messages between auth and game servers, instead of java serialization.
+ * Message type is sent separately from data, see {@link BinaryMessageConverter}.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+public final class MessageCodec {
+    public static final byte UNSUPPORTED = 0;
+    public static final byte GAME_SERVER_INFO = 1;
+    public static final byte SESSION_KEYS = 2;
+
+    private static final int FLAG_AGE_LIMIT = 1;
+    private static final int FLAG_PVP = 1 << 1;
+    private static final int FLAG_ENABLED = 1 << 2;
+    private static final int FLAG_BRACKETS = 1 << 3;
+
+    private MessageCodec() {
+    }
+
+    /**
+     * @param message - message object
+     * @return - message type, or {@link #UNSUPPORTED}
+     */
+    public static byte typeOf(Object message) {
+        if (message instanceof GameServerInfo)
+            return GAME_SERVER_INFO;
+        if (message instanceof SessionKeys)
+            return SESSION_KEYS;
+        return UNSUPPORTED;
+    }
+
+    /**
+     * @param message - message of supported type
+     * @return - encoded message data
+     * @throws IllegalArgumentException - if message type is not supported
+     */
+    public static byte[] encode(Object message) {
+        switch (typeOf(message)) {
+            case GAME_SERVER_INFO:
+                return encodeGameServerInfo((GameServerInfo) message);
+            case SESSION_KEYS:
+                return encodeSessionKeys((SessionKeys) message);
+            default:
+                throw new IllegalArgumentException("Unsupported message: " + message);
+        }
+    }
+
+    /**
+     * @param type - message type
+     * @param data - encoded message data
+     * @return - decoded message
+     * @throws IllegalArgumentException - if message type is not supported, or data is malformed
+     */
+    public static Object decode(byte type, byte[] data) {
+        final ByteBuffer buffer = ByteBuffer.wrap(data);
+        try {
+            switch (type) {
+                case GAME_SERVER_INFO:
+                    return decodeGameServerInfo(buffer);
+                case SESSION_KEYS:
+                    return decodeSessionKeys(buffer);
+                default:
+                    throw new IllegalArgumentException("Unsupported message type: " + type);
+            }
+        } catch (BufferUnderflowException | UnknownHostException e) {
+            throw new IllegalArgumentException("Malformed message of type " + type, e);
+        }
+    }
+
+    private static byte[] encodeGameServerInfo(GameServerInfo info) {
+        final byte[] address = info.getAddress().getAddress();
+        final ByteBuffer buffer = ByteBuffer.allocate(4 + 1 + address.length + 2 + 1 + 4 * 5);
+
+        buffer.putInt(info.getServerId());
+        buffer.put((byte) address.length).put(address);
+        buffer.putShort((short) info.getPort());
+
+        int flags = 0;
+        if (info.isAgeLimit())
+            flags |= FLAG_AGE_LIMIT;
+        if (info.isPvp())
+            flags |= FLAG_PVP;
+        if (info.isEnabled())
+            flags |= FLAG_ENABLED;
+        if (info.isBracketsEnabled())
+            flags |= FLAG_BRACKETS;
+        buffer.put((byte) flags);
+
+        buffer.putInt(info.getOnlinePlayers());
+        buffer.putInt(info.getMaxPlayers());
+        buffer.putInt(info.getServerType());
+        buffer.putInt(info.getQueuedPackets());
+        buffer.putInt(info.getTickLag());
+
+        return buffer.array();
+    }
+
+    private static GameServerInfo decodeGameServerInfo(ByteBuffer buffer) throws UnknownHostException {
+        final int serverId = buffer.getInt();
+        final byte[] address = new byte[buffer.get() & 0xFF];
+        buffer.get(address);
+        final int port = buffer.getShort() & 0xFFFF;
+
+        final GameServerInfo info = new GameServerInfo(serverId, InetAddress.getByAddress(address), port);
+        final int flags = buffer.get();
+        info.setAgeLimit((flags & FLAG_AGE_LIMIT) != 0);
+        info.setPvp((flags & FLAG_PVP) != 0);
+        info.setEnabled((flags & FLAG_ENABLED) != 0);
+        info.setBracketsEnabled((flags & FLAG_BRACKETS) != 0);
+
+        info.setOnlinePlayers(buffer.getInt());
+        info.setMaxPlayers(buffer.getInt());
+        info.setServerType(buffer.getInt());
+        info.setQueuedPackets(buffer.getInt());
+        info.setTickLag(buffer.getInt());
+
+        return info;
+    }
+
+    private static byte[] encodeSessionKeys(SessionKeys keys) {
+        final byte[] account = keys.getAccount().getBytes(StandardCharsets.UTF_8);
+        final ByteBuffer buffer = ByteBuffer.allocate(2 + account.length + 4 * 4);
+
+        buffer.putShort((short) account.length).put(account);
+        buffer.putInt(keys.getLoginKey1());
+        buffer.putInt(keys.getLoginKey2());
+        buffer.putInt(keys.getPlayKey1());
+        buffer.putInt(keys.getPlayKey2());
+
+        return buffer.array();
+    }
+
+    private static SessionKeys decodeSessionKeys(ByteBuffer buffer) {
+        final byte[] account = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(account);
+
+        return new SessionKeys(new String(account, StandardCharsets.UTF_8),
+                buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt());
+    }
+}
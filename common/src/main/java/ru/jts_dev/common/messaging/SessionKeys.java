@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.messaging;
+
+import java.io.Serializable;
+
+/**
+ * Session keys of account, which selected game server in auth server.
+ * Sent by auth server to queue of selected game server, before client receives play keys,
+ * so game server validates keys of connected client locally.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+public final class SessionKeys implements Serializable {
+    private static final long serialVersionUID = 3120583049583476920L;
+
+    private static final String QUEUE_PREFIX = "sessionKeysQueue.";
+
+    private final String account;
+    private final int loginKey1;
+    private final int loginKey2;
+    private final int playKey1;
+    private final int playKey2;
+
+    public SessionKeys(final String account, final int loginKey1, final int loginKey2,
+                       final int playKey1, final int playKey2) {
+        this.account = account;
+        this.loginKey1 = loginKey1;
+        this.loginKey2 = loginKey2;
+        this.playKey1 = playKey1;
+        this.playKey2 = playKey2;
+    }
+
+    /**
+     * @param serverId - game server id
+     * @return - name of game server queue for session keys, "sessionKeysQueue.{serverId}"
+     */
+    public static String queueOf(final int serverId) {
+        return QUEUE_PREFIX + serverId;
+    }
+
+    public final boolean matches(final int loginKey1, final int loginKey2, final int playKey1, final int playKey2) {
+        return this.loginKey1 == loginKey1 && this.loginKey2 == loginKey2
+                && this.playKey1 == playKey1 && this.playKey2 == playKey2;
+    }
+
+    public final String getAccount() {
+        return account;
+    }
+
+    public final int getLoginKey1() {
+        return loginKey1;
+    }
+
+    public final int getLoginKey2() {
+        return loginKey2;
+    }
+
+    public final int getPlayKey1() {
+        return playKey1;
+    }
+
+    public final int getPlayKey2() {
+        return playKey2;
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.packets;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanInstantiationException;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.Aware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.beans.factory.config.DependencyDescriptor;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.util.ClassUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Factory of incoming packets, prepared once on startup for each packet bean.
+ * Dependencies of packet (constructor arguments, {@link Autowired}, {@code @Inject} and {@link Value} fields)
+ * are resolved by bean factory once, so creation of packet is a constructor call and fields assignment,
+ * instead of full prototype bean creation with autowiring.
+ * <p>
+ * Packet falls back to {@link AutowireCapableBeanFactory#getBean(String)} on each call, if it depends on
+ * not singleton beans, has lifecycle callbacks or injection methods.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+public abstract class IncomingMessageFactory {
+    private static final Logger log = LoggerFactory.getLogger(IncomingMessageFactory.class);
+    private static final List<Class<? extends Annotation>> INJECTION_ANNOTATIONS = new ArrayList<>(3);
+
+    static {
+        INJECTION_ANNOTATIONS.add(Autowired.class);
+        INJECTION_ANNOTATIONS.add(Value.class);
+        try {
+            INJECTION_ANNOTATIONS.add(ClassUtils.forName("javax.inject.Inject",
+                    IncomingMessageFactory.class.getClassLoader()).asSubclass(Annotation.class));
+        } catch (ClassNotFoundException e) {
+            // JSR-330 is not available
+        }
+    }
+
+    private final String beanName;
+
+    private IncomingMessageFactory(String beanName) {
+        this.beanName = beanName;
+    }
+
+    /**
+     * Prepare factory for packet bean
+     *
+     * @param beanFactory - bean factory, with packet bean definition
+     * @param beanName    - packet bean name, bean should have prototype scope
+     * @return - factory for packet bean
+     */
+    public static IncomingMessageFactory forBean(AutowireCapableBeanFactory beanFactory, String beanName) {
+        final Class<?> type = beanFactory.getType(beanName);
+        if (type == null || !IncomingMessageWrapper.class.isAssignableFrom(type))
+            throw new IllegalArgumentException("bean " + beanName + " is not an incoming packet");
+
+        final String reason = findUnsupportedFeature(type);
+        if (reason != null) {
+            log.debug("packet {} will be created by bean factory: {}", beanName, reason);
+            return new LookupFactory(beanFactory, beanName);
+        }
+
+        final Constructor<?> constructor = findConstructor(type);
+        if (constructor == null) {
+            log.debug("packet {} will be created by bean factory: no suitable constructor", beanName);
+            return new LookupFactory(beanFactory, beanName);
+        }
+
+        final Set<String> dependencies = new LinkedHashSet<>();
+        final Object[] arguments = new Object[constructor.getParameterCount()];
+        final List<Field> fields = new ArrayList<>();
+        final List<Object> values = new ArrayList<>();
+        try {
+            for (int i = 0; i < arguments.length; i++) {
+                final DependencyDescriptor descriptor =
+                        new DependencyDescriptor(new MethodParameter(constructor, i), true);
+                arguments[i] = beanFactory.resolveDependency(descriptor, beanName, dependencies, null);
+            }
+
+            for (Class<?> clazz = type; clazz != IncomingMessageWrapper.class; clazz = clazz.getSuperclass()) {
+                for (final Field field : clazz.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers()))
+                        continue;
+
+                    final Annotation annotation = findInjectionAnnotation(field.getDeclaredAnnotations());
+                    if (annotation == null)
+                        continue;
+
+                    final boolean required = !(annotation instanceof Autowired) || ((Autowired) annotation).required();
+                    final DependencyDescriptor descriptor = new DependencyDescriptor(field, required);
+
+                    field.setAccessible(true);
+                    fields.add(field);
+                    values.add(beanFactory.resolveDependency(descriptor, beanName, dependencies, null));
+                }
+            }
+        } catch (BeansException e) {
+            log.warn("Can't resolve dependencies of packet " + beanName + ", it will be created by bean factory", e);
+            return new LookupFactory(beanFactory, beanName);
+        }
+
+        for (final String dependency : dependencies) {
+            if (!beanFactory.isSingleton(dependency)) {
+                log.debug("packet {} will be created by bean factory: {} is not a singleton", beanName, dependency);
+                return new LookupFactory(beanFactory, beanName);
+            }
+        }
+
+        constructor.setAccessible(true);
+        return new PrecompiledFactory(beanName, constructor, arguments,
+                fields.toArray(new Field[fields.size()]), values.toArray());
+    }
+
+    private static String findUnsupportedFeature(Class<?> type) {
+        if (Aware.class.isAssignableFrom(type)
+                || InitializingBean.class.isAssignableFrom(type)
+                || DisposableBean.class.isAssignableFrom(type))
+            return "lifecycle interface implemented";
+
+        for (Class<?> clazz = type; clazz != IncomingMessageWrapper.class; clazz = clazz.getSuperclass()) {
+            for (final Method method : clazz.getDeclaredMethods()) {
+                if (findInjectionAnnotation(method.getDeclaredAnnotations()) != null)
+                    return "injection method " + method.getName();
+                if (method.isAnnotationPresent(PostConstruct.class) || method.isAnnotationPresent(PreDestroy.class))
+                    return "lifecycle method " + method.getName();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Find constructor, as spring does: single annotated constructor, single constructor, or default constructor
+     */
+    private static Constructor<?> findConstructor(Class<?> type) {
+        final Constructor<?>[] constructors = type.getDeclaredConstructors();
+
+        Constructor<?> candidate = null;
+        for (final Constructor<?> constructor : constructors) {
+            if (findInjectionAnnotation(constructor.getDeclaredAnnotations()) != null) {
+                if (candidate != null)
+                    return null;
+                candidate = constructor;
+            }
+        }
+        if (candidate != null)
+            return candidate;
+
+        if (constructors.length == 1)
+            return constructors[0];
+
+        try {
+            return type.getDeclaredConstructor();
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static Annotation findInjectionAnnotation(Annotation[] annotations) {
+        for (final Annotation annotation : annotations) {
+            for (final Class<? extends Annotation> injectionType : INJECTION_ANNOTATIONS) {
+                if (annotation.annotationType() == injectionType)
+                    return annotation;
+                final Annotation meta = AnnotationUtils.getAnnotation(annotation, injectionType);
+                if (meta != null)
+                    return meta;
+            }
+        }
+        return null;
+    }
+
+    public final String getBeanName() {
+        return beanName;
+    }
+
+    /**
+     * @return - {@code true} if packet creation does not involve bean factory
+     */
+    public abstract boolean isPrecompiled();
+
+    /**
+     * @return - new packet instance
+     */
+    public abstract IncomingMessageWrapper create();
+
+    private static final class PrecompiledFactory extends IncomingMessageFactory {
+        private final Constructor<?> constructor;
+        private final Object[] arguments;
+        private final Field[] fields;
+        private final Object[] values;
+
+        private PrecompiledFactory(String beanName, Constructor<?> constructor, Object[] arguments,
+                                   Field[] fields, Object[] values) {
+            super(beanName);
+            this.constructor = constructor;
+            this.arguments = arguments;
+            this.fields = fields;
+            this.values = values;
+        }
+
+        @Override
+        public boolean isPrecompiled() {
+            return true;
+        }
+
+        @Override
+        public IncomingMessageWrapper create() {
+            try {
+                final IncomingMessageWrapper msg = (IncomingMessageWrapper) constructor.newInstance(arguments);
+                for (int i = 0; i < fields.length; i++) {
+                    fields[i].set(msg, values[i]);
+                }
+                return msg;
+            } catch (InvocationTargetException e) {
+                throw new BeanInstantiationException(constructor, "Constructor threw exception", e.getTargetException());
+            } catch (ReflectiveOperationException e) {
+                throw new BeanInstantiationException(constructor, e.getMessage(), e);
+            }
+        }
+    }
+
+    private static final class LookupFactory extends IncomingMessageFactory {
+        private final AutowireCapableBeanFactory beanFactory;
+
+        private LookupFactory(AutowireCapableBeanFactory beanFactory, String beanName) {
+            super(beanName);
+            this.beanFactory = beanFactory;
+        }
+
+        @Override
+        public boolean isPrecompiled() {
+            return false;
+        }
+
+        @Override
+        public IncomingMessageWrapper create() {
+            return beanFactory.getBean(getBeanName(), IncomingMessageWrapper.class);
+        }
+    }
+}
@@ -31,9 +31,11 @@ import org.springframework.messaging.MessageHeaders;
  */
 public abstract class IncomingMessageWrapper implements Message<ByteBuf>, Runnable {
     public static final char EOS = '\0';
+    public static final int NO_HANDLE = -1;
 
     private final MessageHeaders headers;
     private ByteBuf payload;
+    private int connectionHandle = NO_HANDLE;
 
     protected IncomingMessageWrapper() {
         headers = new MutableMessageHeaders(null);
@@ -104,6 +106,21 @@ public abstract class IncomingMessageWrapper implements Message<ByteBuf>, Runnab
         return (String) headers.get(IpHeaders.CONNECTION_ID);
     }
 
+    /**
+     * Small integer handle of client connection, assigned by server when connection accepted.
+     * Server can keep connection state in arrays indexed by handle, instead of maps by connection id,
+     * which is used only for logging and interop with Spring Integration.
+     *
+     * @return - connection handle, or {@link #NO_HANDLE}, if server doesn't assign handles
+     */
+    public final int getConnectionHandle() {
+        return connectionHandle;
+    }
+
+    public final void setConnectionHandle(final int connectionHandle) {
+        this.connectionHandle = connectionHandle;
+    }
+
     public final <E extends Enum<?>> E readIntAs(final Class<E> enumClass) {
         final int value = readInt();
 
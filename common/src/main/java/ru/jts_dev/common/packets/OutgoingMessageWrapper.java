@@ -20,13 +20,14 @@
 package ru.jts_dev.common.packets;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import org.springframework.integration.support.MutableMessageHeaders;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageHeaders;
 
 import java.nio.ByteOrder;
 
-import static io.netty.buffer.Unpooled.buffer;
 import static ru.jts_dev.common.packets.IncomingMessageWrapper.EOS;
 
 /**
@@ -34,20 +35,52 @@ import static ru.jts_dev.common.packets.IncomingMessageWrapper.EOS;
  * @since 30.11.15
  */
 public abstract class OutgoingMessageWrapper implements Message<ByteBuf> {
+    /**
+     * Default initial buffer capacity, same as {@link io.netty.buffer.Unpooled#buffer()}
+     */
+    public static final int DEFAULT_SIZE_HINT = 256;
+
     boolean static_;
+    boolean shared;
     ByteBuf buffer;
     MessageHeaders headers;
 
     protected OutgoingMessageWrapper() {
-        buffer = buffer().order(ByteOrder.LITTLE_ENDIAN);
+        this(DEFAULT_SIZE_HINT);
+    }
+
+    /**
+     * Buffer is taken from {@link PooledByteBufAllocator#DEFAULT}, and returned to pool
+     * by serializer or netty pipeline, after it was written to socket.
+     * Heap buffer is used, because encoders encrypt packet data in place.
+     *
+     * @param sizeHint - expected packet size, used as initial buffer capacity
+     */
+    protected OutgoingMessageWrapper(final int sizeHint) {
+        buffer = PooledByteBufAllocator.DEFAULT.heapBuffer(sizeHint).order(ByteOrder.LITTLE_ENDIAN);
         headers = new MutableMessageHeaders(null);
     }
 
-    OutgoingMessageWrapper(final boolean static_) {
-        this();
+    /**
+     * Static message lives forever, so its buffer is not taken from pool
+     */
+    OutgoingMessageWrapper(final boolean static_, final int sizeHint) {
+        buffer = Unpooled.buffer(sizeHint).order(ByteOrder.LITTLE_ENDIAN);
+        headers = new MutableMessageHeaders(null);
         this.static_ = static_;
     }
 
+    /**
+     * Message with already serialized, shared payload
+     *
+     * @param payload - read only payload
+     */
+    OutgoingMessageWrapper(final ByteBuf payload) {
+        buffer = payload;
+        headers = new MutableMessageHeaders(null);
+        shared = true;
+    }
+
     @Override
     public final ByteBuf getPayload() {
         if (static_)
@@ -114,4 +147,12 @@ public abstract class OutgoingMessageWrapper implements Message<ByteBuf> {
     public final boolean isStatic() {
         return static_;
     }
+
+    /**
+     * @return - {@code true} if payload is shared with other messages, and should not be modified in place
+     * @see StaticOutgoingMessageWrapper#newMessage()
+     */
+    public final boolean isShared() {
+        return shared;
+    }
 }
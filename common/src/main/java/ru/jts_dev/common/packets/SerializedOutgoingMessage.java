@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.packets;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * Packet, written once to read only buffer, for sending to many clients.
+ * Each {@link #newMessage()} shares this buffer, so packet is not written again,
+ * and only encryption is performed for each recipient.
+ * <p>
+ * Serialized message holds reference to buffer, and should be released after all messages are created.
+ *
+ * @author Camelion
+ * @see OutgoingMessageWrapper#isShared()
+ * @since 17.10.26
+ */
+public final class SerializedOutgoingMessage {
+    private final String name;
+    private final ByteBuf body;
+
+    private SerializedOutgoingMessage(String name, ByteBuf body) {
+        this.name = name;
+        this.body = body;
+    }
+
+    /**
+     * Write message. Not static message should not be used after that.
+     *
+     * @param message - message for serialization
+     * @return - serialized message
+     */
+    public static SerializedOutgoingMessage serialize(OutgoingMessageWrapper message) {
+        final String name = message.getClass().getSimpleName();
+        if (message.isStatic()) {
+            return new SerializedOutgoingMessage(name, ((StaticOutgoingMessageWrapper) message).serialized().retain());
+        }
+
+        message.write();
+        return new SerializedOutgoingMessage(name, Unpooled.unmodifiableBuffer(message.getPayload()));
+    }
+
+    /**
+     * Write message and copy it to unpooled buffer, which is reclaimed by garbage collector.
+     * Such serialized message doesn't need {@link #release()}, so it can be replaced
+     * while other threads still create messages from it.
+     *
+     * @param message - message for serialization
+     * @return - serialized message
+     */
+    public static SerializedOutgoingMessage copyOf(OutgoingMessageWrapper message) {
+        final String name = message.getClass().getSimpleName();
+        if (message.isStatic()) {
+            // static message buffer is unpooled already
+            return new SerializedOutgoingMessage(name, ((StaticOutgoingMessageWrapper) message).serialized());
+        }
+
+        message.write();
+        final ByteBuf payload = message.getPayload();
+        try {
+            return new SerializedOutgoingMessage(name,
+                    Unpooled.unmodifiableBuffer(Unpooled.copiedBuffer(payload).order(payload.order())));
+        } finally {
+            payload.release();
+        }
+    }
+
+    static SerializedOutgoingMessage of(StaticOutgoingMessageWrapper message) {
+        message.write();
+        return new SerializedOutgoingMessage(message.getClass().getSimpleName(),
+                Unpooled.unmodifiableBuffer(message.buffer));
+    }
+
+    /**
+     * Create message for single send, with own headers, and payload, which is retained read only duplicate
+     * of serialized packet. Payload is released as usual, after it was sent.
+     *
+     * @return - message for sending
+     */
+    public OutgoingMessageWrapper newMessage() {
+        return new SharedOutgoingMessage(name, body.duplicate().retain());
+    }
+
+    ByteBuf body() {
+        return body;
+    }
+
+    public void release() {
+        body.release();
+    }
+
+    @Override
+    public String toString() {
+        return "SerializedOutgoingMessage [source=" + name + "]";
+    }
+}
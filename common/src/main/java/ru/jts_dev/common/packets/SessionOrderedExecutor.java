@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.packets;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Executes tasks of each connection serially and in submission order, on fixed count of worker threads.
+ * Every connection has own lightweight queue, which is drained by one worker at a time,
+ * so tasks of different connections are executed in parallel, and thread count does not depend
+ * on count of connections. Queue lives from {@link #open(String)} to {@link #remove(String)} of connection.
+ * <p>
+ * Queue of connection is limited, on overflow task is dropped, and connection is disconnected
+ * if {@link OverflowPolicy#DISCONNECT} policy is used.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+public class SessionOrderedExecutor {
+    private static final Logger log = LoggerFactory.getLogger(SessionOrderedExecutor.class);
+    /**
+     * Max tasks of one connection, executed before worker switches to other connection
+     */
+    private static final int DRAIN_BATCH_SIZE = 16;
+
+    private final ExecutorService workers;
+    private final ConcurrentMap<String, SessionQueue> queues = new ConcurrentHashMap<>();
+    private final int queueLimit;
+    private final OverflowPolicy overflowPolicy;
+    private final LongAdder queuedTasks = new LongAdder();
+
+    private volatile Consumer<String> disconnectHandler = connectionId -> {
+    };
+
+    public SessionOrderedExecutor(String threadNamePrefix, int threads, int queueLimit, OverflowPolicy overflowPolicy) {
+        Assert.isTrue(threads > 0, "threads must be > 0");
+        Assert.isTrue(queueLimit > 0, "queueLimit must be > 0");
+        Assert.notNull(overflowPolicy, "overflowPolicy must not be null");
+
+        this.workers = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory(threadNamePrefix));
+        this.queueLimit = queueLimit;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * @param disconnectHandler - invoked with connection id, which queue overflowed,
+     *                          if {@link OverflowPolicy#DISCONNECT} is used
+     */
+    public void setDisconnectHandler(Consumer<String> disconnectHandler) {
+        this.disconnectHandler = disconnectHandler;
+    }
+
+    /**
+     * Create queue for accepted connection, tasks of unknown connections are dropped
+     *
+     * @param connectionId - opened connection id
+     */
+    public void open(String connectionId) {
+        queues.computeIfAbsent(connectionId, SessionQueue::new);
+    }
+
+    /**
+     * Put task to connection queue
+     *
+     * @param connectionId - connection id
+     * @param task         - task for execution
+     * @return - {@code false} if connection is closed or queue is full, and task is dropped
+     */
+    public boolean execute(String connectionId, Runnable task) {
+        Assert.notNull(connectionId, "connectionId must not be null");
+
+        // queue isn't created for closed connection, it would be never removed
+        final SessionQueue queue = queues.get(connectionId);
+        if (queue == null) {
+            log.debug("Connection {} is closed, task dropped", connectionId);
+            return false;
+        }
+
+        if (queue.offer(task))
+            return true;
+
+        log.warn("Queue limit {} exceeded for {}, task dropped", queueLimit, connectionId);
+        if (overflowPolicy == OverflowPolicy.DISCONNECT) {
+            disconnectHandler.accept(connectionId);
+        }
+        return false;
+    }
+
+    /**
+     * Forget connection queue, already queued tasks will be executed anyway, next tasks are dropped
+     *
+     * @param connectionId - closed connection id
+     */
+    public void remove(String connectionId) {
+        queues.remove(connectionId);
+    }
+
+    public int getQueuedTasks(String connectionId) {
+        final SessionQueue queue = queues.get(connectionId);
+        return queue != null ? queue.size.get() : 0;
+    }
+
+    /**
+     * @return - count of queued tasks of all connections
+     */
+    public int getQueuedTasks() {
+        return queuedTasks.intValue();
+    }
+
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Forcing packet executor shutdown");
+            workers.shutdownNow();
+        }
+    }
+
+    public enum OverflowPolicy {
+        /**
+         * Drop task and close connection
+         */
+        DISCONNECT,
+        /**
+         * Drop task only
+         */
+        DROP
+    }
+
+    private final class SessionQueue implements Runnable {
+        private final String connectionId;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private SessionQueue(String connectionId) {
+            this.connectionId = connectionId;
+        }
+
+        private boolean offer(Runnable task) {
+            if (size.incrementAndGet() > queueLimit) {
+                size.decrementAndGet();
+                return false;
+            }
+
+            tasks.offer(task);
+            queuedTasks.increment();
+            schedule();
+            return true;
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                workers.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < DRAIN_BATCH_SIZE; i++) {
+                final Runnable task = tasks.poll();
+                if (task == null)
+                    break;
+
+                size.decrementAndGet();
+                queuedTasks.decrement();
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.error("Task execution failed for " + connectionId, e);
+                }
+            }
+
+            scheduled.set(false);
+            // task may be added after last poll, but before scheduled flag reset
+            if (!tasks.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
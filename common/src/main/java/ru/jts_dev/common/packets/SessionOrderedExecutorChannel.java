@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.packets;
+
+import io.netty.util.ReferenceCountUtil;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.ApplicationListener;
+import org.springframework.integration.channel.AbstractSubscribableChannel;
+import org.springframework.integration.dispatcher.MessageDispatcher;
+import org.springframework.integration.dispatcher.UnicastingDispatcher;
+import org.springframework.integration.ip.IpHeaders;
+import org.springframework.integration.ip.tcp.connection.TcpConnectionCloseEvent;
+import org.springframework.integration.ip.tcp.connection.TcpConnectionEvent;
+import org.springframework.integration.ip.tcp.connection.TcpConnectionOpenEvent;
+import org.springframework.messaging.Message;
+
+/**
+ * Replacement of {@link org.springframework.integration.channel.ExecutorChannel} for incoming packets.
+ * Messages are dispatched by {@link SessionOrderedExecutor}, with {@link IpHeaders#CONNECTION_ID} as key,
+ * so packets of one client are handled one by one, in receive order.
+ * Queue of connection lives from open to close event, packets of closed connection are dropped.
+ * Payload of dropped message is released.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+public class SessionOrderedExecutorChannel extends AbstractSubscribableChannel
+        implements ApplicationListener<TcpConnectionEvent>, DisposableBean {
+    private final UnicastingDispatcher dispatcher = new UnicastingDispatcher();
+    private final SessionOrderedExecutor executor;
+
+    public SessionOrderedExecutorChannel(SessionOrderedExecutor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    protected MessageDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    @Override
+    protected boolean doSend(Message<?> message, long timeout) {
+        final String connectionId = message.getHeaders().get(IpHeaders.CONNECTION_ID, String.class);
+
+        if (!executor.execute(connectionId, () -> super.doSend(message, timeout))) {
+            ReferenceCountUtil.release(message.getPayload());
+        }
+
+        // dropped message is handled by overflow policy, it is not a delivery failure
+        return true;
+    }
+
+    @Override
+    public void onApplicationEvent(TcpConnectionEvent event) {
+        if (event instanceof TcpConnectionOpenEvent) {
+            executor.open(event.getConnectionId());
+        } else if (event instanceof TcpConnectionCloseEvent) {
+            executor.remove(event.getConnectionId());
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.packets;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Message for single send, with own headers and shared, already written payload.
+ *
+ * @author Camelion
+ * @see SerializedOutgoingMessage
+ * @since 17.10.26
+ */
+final class SharedOutgoingMessage extends OutgoingMessageWrapper {
+    private final String name;
+
+    SharedOutgoingMessage(String name, ByteBuf payload) {
+        super(payload);
+        this.name = name;
+    }
+
+    @Override
+    public void write() {
+        // already written
+    }
+
+    @Override
+    public String toString() {
+        return "SharedOutgoingMessage [source=" + name + "]";
+    }
+}
@@ -19,48 +19,61 @@
 
 package ru.jts_dev.common.packets;
 
+import io.netty.buffer.ByteBuf;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.integration.support.MutableMessageHeaders;
 
 /**
  * Represent immutable static packet. All subclasses of this class should be immutable too.
- * This class use {@link Object#clone()} to perform copy of it object.
- * It means, that all fields of this class (and subclasses) wil be cloned lazily
- * and must be guarantee immutable.
+ * Packet is written once, on first send, to read only buffer,
+ * and each send uses {@link #newMessage()}, which shares this buffer.
  *
  * @author Camelion
- * @see Object#clone()
+ * @see SerializedOutgoingMessage
  * @since 27.01.16
  */
-public abstract class StaticOutgoingMessageWrapper extends OutgoingMessageWrapper implements Cloneable {
+public abstract class StaticOutgoingMessageWrapper extends OutgoingMessageWrapper {
     private static final Logger logger = LoggerFactory.getLogger(StaticOutgoingMessageWrapper.class);
 
+    private volatile SerializedOutgoingMessage serialized;
+
     protected StaticOutgoingMessageWrapper() {
-        super(true);
+        this(DEFAULT_SIZE_HINT);
+    }
+
+    protected StaticOutgoingMessageWrapper(final int sizeHint) {
+        super(true, sizeHint);
     }
 
     /**
-     * Check that message is static, and perform cloning buffer and headers to new object
-     * with deep copy of mutable {@link #buffer} and {@link #headers}.
-     * Also, sets {@link #static_} to {@code false}.
-     * Other fields will be copied as-is, and should be guaranteed immutable,
-     * because this method is final, and there is no other way in which copy of this fields can be obtained.
+     * Create message for single send, with own headers, and payload, which is retained read only duplicate
+     * of serialized packet, so packet is not written again. Payload is released as usual, after it was sent.
+     * Shared payload can't be encrypted in place, see {@link OutgoingMessageWrapper#isShared()}.
      *
-     * @return - cloned message
-     * @throws CloneNotSupportedException - if
-     * @see Object#clone()
+     * @return - message for sending
+     */
+    public final OutgoingMessageWrapper newMessage() {
+        return getSerialized().newMessage();
+    }
+
+    /**
+     * @return - serialized packet buffer, not retained
      */
-    @Override
-    public final OutgoingMessageWrapper clone() throws CloneNotSupportedException {
-        if (!static_)
-            throw new CloneNotSupportedException("Clone not supported for non-static messages");
-        logger.trace("Cloning {}, because it is static message", getClass().getSimpleName());
-        final OutgoingMessageWrapper msg = (OutgoingMessageWrapper) super.clone();
-        msg.headers = new MutableMessageHeaders(headers);
-        msg.buffer = buffer.copy();
-        msg.static_ = false;
+    final ByteBuf serialized() {
+        return getSerialized().body();
+    }
 
-        return msg;
+    private SerializedOutgoingMessage getSerialized() {
+        SerializedOutgoingMessage result = serialized;
+        if (result == null) {
+            synchronized (this) {
+                result = serialized;
+                if (result == null) {
+                    logger.trace("Writing static {}", getClass().getSimpleName());
+                    serialized = result = SerializedOutgoingMessage.of(this);
+                }
+            }
+        }
+        return result;
     }
 }
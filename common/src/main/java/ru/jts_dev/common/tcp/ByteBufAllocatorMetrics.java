@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.tcp;
+
+import io.netty.buffer.PoolArenaMetric;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * JMX view of {@link PooledByteBufAllocator#DEFAULT}, which is shared by outgoing packets,
+ * {@link ProtocolByteBufLengthHeaderSerializer} and {@link NettyServerConnectionFactory}.
+ * Huge allocations (bigger than pool chunk) are not pooled, and reported separately.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+@Component
+@ManagedResource(objectName = "ru.jts_dev.common:type=ByteBufAllocatorMetrics",
+        description = "Pooled ByteBuf allocator usage")
+public class ByteBufAllocatorMetrics {
+    private final PooledByteBufAllocator allocator = PooledByteBufAllocator.DEFAULT;
+
+    @ManagedAttribute(description = "Count of heap arenas")
+    public int getHeapArenas() {
+        return allocator.numHeapArenas();
+    }
+
+    @ManagedAttribute(description = "Count of direct arenas")
+    public int getDirectArenas() {
+        return allocator.numDirectArenas();
+    }
+
+    @ManagedAttribute(description = "Count of thread local caches")
+    public int getThreadLocalCaches() {
+        return allocator.numThreadLocalCaches();
+    }
+
+    @ManagedAttribute(description = "Bytes in use by heap arenas")
+    public long getHeapActiveBytes() {
+        return sum(allocator.heapArenas(), PoolArenaMetric::numActiveBytes);
+    }
+
+    @ManagedAttribute(description = "Bytes in use by direct arenas")
+    public long getDirectActiveBytes() {
+        return sum(allocator.directArenas(), PoolArenaMetric::numActiveBytes);
+    }
+
+    @ManagedAttribute(description = "Active heap buffers")
+    public long getHeapActiveAllocations() {
+        return sum(allocator.heapArenas(), PoolArenaMetric::numActiveAllocations);
+    }
+
+    @ManagedAttribute(description = "Active direct buffers")
+    public long getDirectActiveAllocations() {
+        return sum(allocator.directArenas(), PoolArenaMetric::numActiveAllocations);
+    }
+
+    @ManagedAttribute(description = "Total allocations served from pool")
+    public long getPooledAllocations() {
+        final ToLongFunction<PoolArenaMetric> pooled = metric -> metric.numTinyAllocations()
+                + metric.numSmallAllocations() + metric.numNormalAllocations();
+
+        return sum(allocator.heapArenas(), pooled) + sum(allocator.directArenas(), pooled);
+    }
+
+    @ManagedAttribute(description = "Total huge allocations, not served from pool")
+    public long getUnpooledAllocations() {
+        return sum(allocator.heapArenas(), PoolArenaMetric::numHugeAllocations)
+                + sum(allocator.directArenas(), PoolArenaMetric::numHugeAllocations);
+    }
+
+    @ManagedOperation(description = "Detailed statistic of all arenas")
+    public String dumpStats() {
+        return allocator.dumpStats();
+    }
+
+    private static long sum(List<PoolArenaMetric> arenas, ToLongFunction<PoolArenaMetric> metric) {
+        return arenas.stream().mapToLong(metric).sum();
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.tcp;
+
+import io.netty.util.ReferenceCountUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.integration.ip.IpHeaders;
+import org.springframework.integration.ip.tcp.TcpSendingMessageHandler;
+import org.springframework.integration.ip.tcp.connection.TcpConnection;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandlingException;
+
+/**
+ * {@link TcpSendingMessageHandler} for pooled {@link io.netty.buffer.ByteBuf} payloads, with server connection factory.
+ * Payload of message to closed connection is released, instead of "Unable to find outbound socket" exception.
+ * Payload, passed to connection, is released by {@link ProtocolByteBufLengthHeaderSerializer}.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+public class ByteBufTcpSendingMessageHandler extends TcpSendingMessageHandler {
+    private static final Logger log = LoggerFactory.getLogger(ByteBufTcpSendingMessageHandler.class);
+
+    @Override
+    public void handleMessageInternal(Message<?> message) throws MessageHandlingException {
+        if (getServerConnectionFactory() == null) {
+            super.handleMessageInternal(message);
+            return;
+        }
+
+        // connection is resolved once, so it can't be removed between lookup and send
+        final Object connectionId = message.getHeaders().get(IpHeaders.CONNECTION_ID);
+        final TcpConnection connection = connectionId != null ? getConnections().get(connectionId) : null;
+        if (connection == null) {
+            log.debug("Connection {} not found, message dropped", connectionId);
+            ReferenceCountUtil.release(message.getPayload());
+            return;
+        }
+
+        try {
+            connection.send(message);
+        } catch (Exception e) {
+            log.error("Error sending message to " + connectionId, e);
+            connection.close();
+            if (e instanceof MessageHandlingException)
+                throw (MessageHandlingException) e;
+            throw new MessageHandlingException(message, "Error sending message", e);
+        }
+    }
+}
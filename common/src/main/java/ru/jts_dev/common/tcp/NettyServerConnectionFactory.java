@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.tcp;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.MessageToMessageEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.integration.ip.IpHeaders;
+import org.springframework.integration.ip.tcp.connection.AbstractServerConnectionFactory;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.util.Assert;
+import ru.jts_dev.common.packets.OutgoingMessageWrapper;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static ru.jts_dev.common.tcp.NettyTcpConnection.CONNECTION;
+
+/**
+ * Server connection factory on top of netty, replacement for
+ * {@link org.springframework.integration.ip.tcp.connection.TcpNioServerConnectionFactory}.
+ * Uses epoll transport when available, and pooled buffers allocator.
+ * <p>
+ * With {@link PacketCodec} set, received frames are decoded to
+ * {@link ru.jts_dev.common.packets.IncomingMessageWrapper} right in channel pipeline
+ * and sent to {@link #setOutputChannel(MessageChannel) output channel},
+ * and {@link OutgoingMessageWrapper} passed to {@link #send(OutgoingMessageWrapper)} are encoded in pipeline too,
+ * without byte[] copies and Spring Integration flows.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+public class NettyServerConnectionFactory extends AbstractServerConnectionFactory {
+    private static final Logger log = LoggerFactory.getLogger(NettyServerConnectionFactory.class);
+
+    private final ProtocolLengthFieldPrepender prepender = new ProtocolLengthFieldPrepender();
+    private final PacketEncoder packetEncoder = new PacketEncoder();
+    private final Map<String, NettyTcpConnection> nettyConnections = new ConcurrentHashMap<>();
+
+    private volatile PacketCodec codec;
+    private volatile MessageChannel outputChannel;
+    private volatile int workerThreads;
+    private volatile long flushInterval;
+    private volatile OutboundFlushMetrics flushMetrics;
+
+    private volatile EventLoopGroup bossGroup;
+    private volatile EventLoopGroup workerGroup;
+    private volatile Channel serverChannel;
+
+    public NettyServerConnectionFactory(int port) {
+        super(port);
+    }
+
+    public void setCodec(PacketCodec codec) {
+        this.codec = codec;
+    }
+
+    public void setOutputChannel(MessageChannel outputChannel) {
+        this.outputChannel = outputChannel;
+    }
+
+    /**
+     * @param workerThreads - count of event loop threads, 0 means netty default
+     */
+    public void setWorkerThreads(int workerThreads) {
+        this.workerThreads = workerThreads;
+    }
+
+    /**
+     * @param flushInterval - max delay of coalesced writes in milliseconds, 0 means flush on each write
+     * @see OutboundFlushBatch
+     */
+    public void setFlushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    public void setFlushMetrics(OutboundFlushMetrics flushMetrics) {
+        this.flushMetrics = flushMetrics;
+    }
+
+    @Override
+    protected void onInit() throws Exception {
+        super.onInit();
+        Assert.isTrue(codec == null || outputChannel != null, "outputChannel is required, when codec is set");
+    }
+
+    @Override
+    public void run() {
+        final boolean epoll = Epoll.isAvailable();
+        final Class<? extends ServerChannel> channelClass;
+        if (epoll) {
+            bossGroup = new EpollEventLoopGroup(1);
+            workerGroup = new EpollEventLoopGroup(workerThreads);
+            channelClass = EpollServerSocketChannel.class;
+        } else {
+            bossGroup = new NioEventLoopGroup(1);
+            workerGroup = new NioEventLoopGroup(workerThreads);
+            channelClass = NioServerSocketChannel.class;
+        }
+
+        try {
+            final ServerBootstrap bootstrap = new ServerBootstrap()
+                    .group(bossGroup, workerGroup)
+                    .channel(channelClass)
+                    .option(ChannelOption.SO_BACKLOG, getBacklog())
+                    .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                    .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                    .childOption(ChannelOption.TCP_NODELAY, isSoTcpNoDelay())
+                    .childHandler(new ChannelInitializer<Channel>() {
+                        @Override
+                        protected void initChannel(Channel ch) {
+                            ch.pipeline()
+                                    .addLast("frameDecoder", new ProtocolLengthFieldFrameDecoder())
+                                    .addLast("framePrepender", prepender)
+                                    .addLast("packetEncoder", packetEncoder)
+                                    .addLast("connectionHandler", new ConnectionHandler());
+                        }
+                    });
+
+            serverChannel = (getLocalAddress() == null
+                    ? bootstrap.bind(getPort())
+                    : bootstrap.bind(getLocalAddress(), getPort()))
+                    .syncUninterruptibly()
+                    .channel();
+
+            log.info("{} listening on port {} with {} transport", getComponentName(), getPort(),
+                    epoll ? "epoll" : "nio");
+
+            setListening(true);
+            publishServerListeningEvent(getPort());
+        } catch (Exception e) {
+            log.error("Failed to bind " + getComponentName() + " on port " + getPort(), e);
+            publishServerExceptionEvent(e);
+            shutdownGroups();
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (serverChannel != null) {
+            serverChannel.close().syncUninterruptibly();
+            serverChannel = null;
+        }
+        setListening(false);
+        super.stop();
+        shutdownGroups();
+    }
+
+    private void shutdownGroups() {
+        if (bossGroup != null) {
+            bossGroup.shutdownGracefully();
+            bossGroup = null;
+        }
+        if (workerGroup != null) {
+            workerGroup.shutdownGracefully();
+            workerGroup = null;
+        }
+    }
+
+    /**
+     * Send packet to connection with {@link IpHeaders#CONNECTION_ID} from message headers.
+     *
+     * @param msg - unwritten packet
+     */
+    public void send(OutgoingMessageWrapper msg) {
+        final String connectionId = msg.getHeaders().get(IpHeaders.CONNECTION_ID, String.class);
+        final NettyTcpConnection connection = nettyConnections.get(connectionId);
+        if (connection == null) {
+            log.warn("Connection {} not found, {} dropped", connectionId, msg.getClass().getSimpleName());
+            msg.getPayload().release();
+            return;
+        }
+
+        connection.send(msg);
+    }
+
+    /**
+     * Encodes {@link OutgoingMessageWrapper} with {@link PacketCodec}, on event loop of target connection
+     */
+    @Sharable
+    private final class PacketEncoder extends MessageToMessageEncoder<OutgoingMessageWrapper> {
+        @Override
+        protected void encode(ChannelHandlerContext ctx, OutgoingMessageWrapper msg, List<Object> out) {
+            out.add(codec.encode(ctx.channel().attr(CONNECTION).get(), msg));
+        }
+    }
+
+    /**
+     * Per channel handler, binds {@link NettyTcpConnection} to channel lifecycle
+     */
+    private final class ConnectionHandler extends SimpleChannelInboundHandler<ByteBuf> {
+        private NettyTcpConnection connection;
+
+        private ConnectionHandler() {
+            super(false); // frame released by codec or connection
+        }
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            connection = new NettyTcpConnection(ctx.channel(), codec, outputChannel, getApplicationEventPublisher(),
+                    flushInterval, flushMetrics);
+            connection.registerListener(getListener());
+            connection.registerSender(getSender());
+
+            nettyConnections.put(connection.getConnectionId(), connection);
+            addConnection(connection);
+            connection.onOpen();
+
+            super.channelActive(ctx);
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, ByteBuf frame) {
+            try {
+                connection.onFrame(frame);
+            } catch (RuntimeException e) {
+                log.error("Failed to handle frame from " + connection.getConnectionId(), e);
+            }
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            nettyConnections.remove(connection.getConnectionId());
+            connection.close();
+            harvestClosedConnections();
+
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            log.debug("Closing connection " + (connection != null ? connection.getConnectionId() : ctx.channel())
+                    + " after exception", cause);
+            ctx.close();
+        }
+    }
+}
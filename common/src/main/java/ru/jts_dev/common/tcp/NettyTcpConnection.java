@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.tcp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.util.AttributeKey;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.integration.ip.IpHeaders;
+import org.springframework.integration.ip.tcp.connection.TcpConnectionSupport;
+import org.springframework.integration.ip.tcp.connection.TcpListener;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import ru.jts_dev.common.packets.IncomingMessageWrapper;
+import ru.jts_dev.common.packets.OutgoingMessageWrapper;
+
+import javax.net.ssl.SSLSession;
+import java.net.InetSocketAddress;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.netty.buffer.Unpooled.wrappedBuffer;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+
+/**
+ * {@link TcpConnectionSupport} over netty {@link Channel}, so connection events, {@link IpHeaders#CONNECTION_ID}
+ * and {@link org.springframework.integration.ip.tcp.connection.AbstractConnectionFactory#closeConnection(String)}
+ * works same as for Spring Integration nio connections.
+ * <p>
+ * With positive flush interval writes are coalesced: frames are queued in channel outbound buffer, and written
+ * to socket with single gathering write, at the end of {@link OutboundFlushBatch} or after flush interval.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+public class NettyTcpConnection extends TcpConnectionSupport {
+    static final AttributeKey<NettyTcpConnection> CONNECTION = AttributeKey.valueOf("connection");
+
+    private final Channel channel;
+    private final String connectionId;
+    private final String hostAddress;
+    private final int port;
+    private final PacketCodec codec;
+    private final MessageChannel outputChannel;
+    private final long flushInterval;
+    private final OutboundFlushMetrics flushMetrics;
+    private final AtomicInteger pendingFrames = new AtomicInteger();
+    private final Runnable flushTask = this::flush;
+
+    private volatile Object attachment;
+
+    NettyTcpConnection(Channel channel, PacketCodec codec, MessageChannel outputChannel,
+                       ApplicationEventPublisher applicationEventPublisher,
+                       long flushInterval, OutboundFlushMetrics flushMetrics) {
+        super(applicationEventPublisher);
+        this.channel = channel;
+        this.codec = codec;
+        this.outputChannel = outputChannel;
+        this.flushInterval = flushInterval;
+        this.flushMetrics = flushMetrics;
+
+        final InetSocketAddress remoteAddress = (InetSocketAddress) channel.remoteAddress();
+        final InetSocketAddress localAddress = (InetSocketAddress) channel.localAddress();
+        hostAddress = remoteAddress.getAddress().getHostAddress();
+        port = remoteAddress.getPort();
+        connectionId = hostAddress + ":" + port + ":" + localAddress.getPort() + ":" + UUID.randomUUID();
+
+        channel.attr(CONNECTION).set(this);
+    }
+
+    /**
+     * Pass received frame to {@link PacketCodec} and send resolved packet to output channel,
+     * or to registered {@link TcpListener} as raw bytes, if there is no codec.
+     *
+     * @param frame - frame data, without length header
+     */
+    void onFrame(ByteBuf frame) {
+        if (codec != null) {
+            final IncomingMessageWrapper msg = codec.decode(this, frame.order(LITTLE_ENDIAN));
+            outputChannel.send(msg);
+            return;
+        }
+
+        final byte[] data = new byte[frame.readableBytes()];
+        frame.readBytes(data);
+        frame.release();
+
+        final TcpListener listener = getListener();
+        if (listener != null) {
+            listener.onMessage(MessageBuilder.withPayload(data)
+                    .setHeader(IpHeaders.CONNECTION_ID, connectionId)
+                    .build());
+        }
+    }
+
+    /**
+     * @return - server specific object, bound to this connection
+     */
+    public Object getAttachment() {
+        return attachment;
+    }
+
+    /**
+     * Bind server specific object, client session for example, to this connection,
+     * so {@link PacketCodec} can use it without lookup by connection id.
+     *
+     * @param attachment - object, bound to connection
+     */
+    public void setAttachment(Object attachment) {
+        this.attachment = attachment;
+    }
+
+    void onOpen() {
+        publishConnectionOpenEvent();
+    }
+
+    /**
+     * Write message to channel. {@link OutgoingMessageWrapper} encoded by {@link PacketCodec} in pipeline,
+     * other payloads should be already encoded.
+     *
+     * @param message - message to send
+     */
+    @Override
+    public void send(Message<?> message) {
+        final Object payload;
+        if (message instanceof OutgoingMessageWrapper) {
+            payload = message;
+        } else if (message.getPayload() instanceof byte[]) {
+            payload = wrappedBuffer((byte[]) message.getPayload());
+        } else {
+            payload = message.getPayload();
+        }
+
+        if (flushInterval <= 0) {
+            channel.writeAndFlush(payload).addListener(ChannelFutureListener.FIRE_EXCEPTION_ON_FAILURE);
+            return;
+        }
+
+        channel.write(payload).addListener(ChannelFutureListener.FIRE_EXCEPTION_ON_FAILURE);
+
+        // first pending frame, flush it with batch of current thread, or after flush interval
+        if (pendingFrames.getAndIncrement() == 0 && !OutboundFlushBatch.defer(this)) {
+            channel.eventLoop().schedule(flushTask, flushInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Write pending frames to socket
+     */
+    void flush() {
+        final int frames = pendingFrames.getAndSet(0);
+        if (frames == 0)
+            return;
+
+        if (flushMetrics != null) {
+            flushMetrics.record(frames);
+        }
+        channel.flush();
+    }
+
+    /**
+     * Close channel after pending coalesced frames are written, channel discards unflushed writes on close,
+     * so last packet, sent before close, LoginFail for example, would be lost.
+     */
+    @Override
+    public void close() {
+        if (channel.isOpen()) {
+            final int frames = pendingFrames.getAndSet(0);
+            if (frames > 0 && flushMetrics != null) {
+                flushMetrics.record(frames);
+            }
+            // empty buffer is written from first handler, so length header isn't prepended to it
+            channel.pipeline().firstContext().writeAndFlush(Unpooled.EMPTY_BUFFER)
+                    .addListener(ChannelFutureListener.CLOSE);
+        }
+        super.close();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isActive();
+    }
+
+    @Override
+    public Object getPayload() throws Exception {
+        throw new UnsupportedOperationException("Netty connections are read by channel pipeline");
+    }
+
+    @Override
+    public int getPort() {
+        return port;
+    }
+
+    @Override
+    public Object getDeserializerStateKey() {
+        return null;
+    }
+
+    @Override
+    public SSLSession getSslSession() {
+        return null;
+    }
+
+    @Override
+    public String getConnectionId() {
+        return connectionId;
+    }
+
+    @Override
+    public String getHostAddress() {
+        return hostAddress;
+    }
+
+    @Override
+    public String getHostName() {
+        return hostAddress;
+    }
+
+    @Override
+    public boolean isServer() {
+        return true;
+    }
+
+    @Override
+    public void run() {
+        // reads are performed by channel event loop
+    }
+}
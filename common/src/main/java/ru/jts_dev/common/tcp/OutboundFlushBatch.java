@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.tcp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Defers flush of {@link NettyTcpConnection} writes, made by current thread in {@link #run(Runnable)},
+ * until the end of task, so all packets, sent by one packet handler, are written with single flush per connection.
+ * Writes outside of batch are flushed by connection flush interval.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+public final class OutboundFlushBatch {
+    private static final ThreadLocal<OutboundFlushBatch> BATCH = ThreadLocal.withInitial(OutboundFlushBatch::new);
+
+    private final List<NettyTcpConnection> connections = new ArrayList<>();
+    private boolean active;
+
+    private OutboundFlushBatch() {
+    }
+
+    /**
+     * Run task, and flush connections, written by task, after it
+     *
+     * @param task - task, packet handler for example
+     */
+    public static void run(Runnable task) {
+        final OutboundFlushBatch batch = BATCH.get();
+        if (batch.active) {
+            task.run();
+            return;
+        }
+
+        batch.active = true;
+        try {
+            task.run();
+        } finally {
+            batch.active = false;
+            batch.flush();
+        }
+    }
+
+    /**
+     * Add connection to batch of current thread
+     *
+     * @param connection - connection with pending writes
+     * @return - {@code false} if there is no batch in current thread
+     */
+    static boolean defer(NettyTcpConnection connection) {
+        final OutboundFlushBatch batch = BATCH.get();
+        if (!batch.active)
+            return false;
+
+        batch.connections.add(connection);
+        return true;
+    }
+
+    private void flush() {
+        for (int i = 0; i < connections.size(); i++) {
+            connections.get(i).flush();
+        }
+        connections.clear();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.tcp;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of coalesced writes of {@link NettyTcpConnection}, count of frames, written to socket by one flush.
+ * Frames per flush histogram has power of two buckets: 1, 2-3, 4-7, 8-15, 16-31, 32 and more.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+@Component
+@ManagedResource(objectName = "ru.jts_dev.common:type=OutboundFlushMetrics",
+        description = "Coalesced writes of client connections")
+public class OutboundFlushMetrics {
+    private static final int BUCKETS = 6;
+
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder frames = new LongAdder();
+    private final LongAccumulator maxFrames = new LongAccumulator(Math::max, 0L);
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+    /**
+     * @param flushedFrames - count of frames, written by flush
+     */
+    public void record(int flushedFrames) {
+        flushes.increment();
+        frames.add(flushedFrames);
+        maxFrames.accumulate(flushedFrames);
+
+        final int bucket = 31 - Integer.numberOfLeadingZeros(flushedFrames);
+        histogram.incrementAndGet(Math.min(bucket, BUCKETS - 1));
+    }
+
+    @ManagedAttribute(description = "Count of flushes")
+    public long getFlushes() {
+        return flushes.sum();
+    }
+
+    @ManagedAttribute(description = "Count of flushed frames")
+    public long getFrames() {
+        return frames.sum();
+    }
+
+    @ManagedAttribute(description = "Average frames per flush")
+    public double getAverageFramesPerFlush() {
+        final long flushCount = flushes.sum();
+        return flushCount == 0 ? 0 : (double) frames.sum() / flushCount;
+    }
+
+    @ManagedAttribute(description = "Max frames per flush")
+    public long getMaxFramesPerFlush() {
+        return maxFrames.get();
+    }
+
+    @ManagedAttribute(description = "Flushes with 1, 2-3, 4-7, 8-15, 16-31, 32+ frames")
+    public long[] getFramesPerFlushHistogram() {
+        final long[] result = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            result[i] = histogram.get(i);
+        }
+        return result;
+    }
+
+    @ManagedOperation(description = "Reset statistics")
+    public void reset() {
+        flushes.reset();
+        frames.reset();
+        maxFrames.reset();
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram.set(i, 0);
+        }
+    }
+}
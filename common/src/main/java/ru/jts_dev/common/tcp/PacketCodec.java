@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.tcp;
+
+import io.netty.buffer.ByteBuf;
+import ru.jts_dev.common.packets.IncomingMessageWrapper;
+import ru.jts_dev.common.packets.OutgoingMessageWrapper;
+
+/**
+ * Server specific packets codec for {@link NettyServerConnectionFactory}.
+ * Methods are invoked from connection event loop, so calls for single connection are always ordered.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+public interface PacketCodec {
+    /**
+     * Decrypt frame and resolve incoming packet for it.
+     * Codec owns the frame, and must release it, if packet can't be resolved.
+     *
+     * @param connection - client connection
+     * @param frame      - little endian frame data, without length header
+     * @return - packet with payload, ready for execution
+     */
+    IncomingMessageWrapper decode(NettyTcpConnection connection, ByteBuf frame);
+
+    /**
+     * Write and encrypt outgoing packet.
+     *
+     * @param connection - client connection
+     * @param msg        - unwritten packet
+     * @return - encrypted packet data, without length header
+     */
+    ByteBuf encode(NettyTcpConnection connection, OutgoingMessageWrapper msg);
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.tcp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.springframework.core.serializer.Deserializer;
+import org.springframework.core.serializer.Serializer;
+import org.springframework.integration.ip.tcp.serializer.SoftEndOfStreamException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+
+/**
+ * {@link ByteBuf} analogue of {@link ProtocolByteArrayLengthHeaderSerializer}.
+ * Header is read and written byte by byte, without temporary arrays, and packet data is read
+ * directly to pooled heap buffer, so it can be decrypted in place.
+ * <p>
+ * Connection factory must use {@link org.springframework.integration.ip.tcp.connection.TcpMessageMapper}
+ * with {@code stringToBytes} disabled, to pass {@link ByteBuf} payloads as is.
+ * Serialized buffers are released by this serializer.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+public class ProtocolByteBufLengthHeaderSerializer implements Serializer<ByteBuf>, Deserializer<ByteBuf> {
+    private static final int HEADER_SIZE = 2;
+    private static final int MAX_LENGTH = 0xFFFF;
+
+    private final ByteBufAllocator allocator;
+
+    public ProtocolByteBufLengthHeaderSerializer() {
+        this(PooledByteBufAllocator.DEFAULT);
+    }
+
+    public ProtocolByteBufLengthHeaderSerializer(ByteBufAllocator allocator) {
+        this.allocator = allocator;
+    }
+
+    /**
+     * Header and data are written to connection buffered stream, and flushed with single socket write.
+     *
+     * @param buf          - packet data, released after write
+     * @param outputStream - connection stream
+     * @throws IOException - if write fails
+     */
+    @Override
+    public void serialize(ByteBuf buf, OutputStream outputStream) throws IOException {
+        try {
+            final int length = buf.readableBytes() + HEADER_SIZE; // Protocol thing, length represent header size + data size
+            if (length > MAX_LENGTH) {
+                throw new IllegalArgumentException("Length header:" + HEADER_SIZE
+                        + " too short to accommodate message length:" + length);
+            }
+
+            outputStream.write(length & 0xFF);
+            outputStream.write(length >>> 8);
+            buf.getBytes(buf.readerIndex(), outputStream, buf.readableBytes());
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Override
+    public ByteBuf deserialize(InputStream inputStream) throws IOException {
+        final int low = inputStream.read();
+        if (low < 0) {
+            throw new SoftEndOfStreamException("Stream closed between payloads");
+        }
+        final int high = inputStream.read();
+        if (high < 0) {
+            throw new IOException("Stream closed inside length header");
+        }
+
+        final int length = (low | high << 8) - HEADER_SIZE; // substract header size from data
+        if (length < 0) {
+            throw new IOException("Length header:" + (length + HEADER_SIZE) + " is less than header size");
+        }
+
+        final ByteBuf buf = allocator.heapBuffer(length, length).order(LITTLE_ENDIAN);
+        try {
+            while (buf.isWritable()) {
+                if (buf.writeBytes(inputStream, buf.writableBytes()) < 0) {
+                    throw new IOException("Stream closed after " + buf.readableBytes() + " of " + length + " bytes");
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            buf.release();
+            throw e;
+        }
+
+        return buf;
+    }
+}
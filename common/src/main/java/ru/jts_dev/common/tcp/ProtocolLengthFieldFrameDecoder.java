@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.tcp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+
+/**
+ * Netty analogue of {@link ProtocolByteArrayLengthHeaderSerializer#readHeader}.
+ * Frame starts with unsigned short little endian length, which includes length header size itself.
+ * Length header is stripped from resulted frame.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+public class ProtocolLengthFieldFrameDecoder extends LengthFieldBasedFrameDecoder {
+    static final int HEADER_SIZE = 2;
+    private static final int MAX_FRAME_LENGTH = 0xFFFF;
+
+    public ProtocolLengthFieldFrameDecoder() {
+        super(LITTLE_ENDIAN, MAX_FRAME_LENGTH, 0, HEADER_SIZE, -HEADER_SIZE, HEADER_SIZE, true);
+    }
+
+    /**
+     * Frames are decrypted in place by array based ciphers, so extract it to pooled heap buffer
+     */
+    @Override
+    protected ByteBuf extractFrame(ChannelHandlerContext ctx, ByteBuf buffer, int index, int length) {
+        final ByteBuf frame = ctx.alloc().heapBuffer(length);
+        frame.writeBytes(buffer, index, length);
+        return frame;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.tcp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.EncoderException;
+import io.netty.handler.codec.MessageToMessageEncoder;
+
+import java.util.List;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static ru.jts_dev.common.tcp.ProtocolLengthFieldFrameDecoder.HEADER_SIZE;
+
+/**
+ * Netty analogue of {@link ProtocolByteArrayLengthHeaderSerializer#writeHeader}.
+ * Length header is written to separate buffer and passed to channel with payload as is,
+ * so payload is not copied, and both buffers are written by single gathering write.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+@Sharable
+public class ProtocolLengthFieldPrepender extends MessageToMessageEncoder<ByteBuf> {
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) {
+        final int length = msg.readableBytes() + HEADER_SIZE; // Protocol thing, length represent header size + data size
+        if (length > 0xFFFF) {
+            throw new EncoderException("Length header:" + HEADER_SIZE
+                    + " too short to accommodate message length:" + length);
+        }
+
+        out.add(ctx.alloc().buffer(HEADER_SIZE).order(LITTLE_ENDIAN).writeShort(length));
+        out.add(msg.retain());
+    }
+}
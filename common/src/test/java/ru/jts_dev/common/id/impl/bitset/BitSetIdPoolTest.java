@@ -99,4 +99,18 @@ public class BitSetIdPoolTest {
                 IntStream.rangeClosed(0, 20000).parallel().forEach(value -> idPool.borrow()));
         assertThat(exception.getMessage()).isEqualTo("No available indexes in pool");
     }
-}
\ No newline at end of file
+
+    @DirtiesContext
+    @Test
+    public void testBorrowBatch() {
+        final int[] ids = idPool.borrowBatch(10_000);
+        assertThat(ids).doesNotHaveDuplicates();
+        assertThat(IntStream.of(ids).allMatch(id -> id >= 1 && id <= 20_000)).isTrue();
+
+        // all or none
+        expectThrows(AllocationException.class, () -> idPool.borrowBatch(10_001));
+        idPool.releaseBatch(ids);
+
+        assertThat(idPool.borrowBatch(20_000)).doesNotHaveDuplicates();
+    }
+}
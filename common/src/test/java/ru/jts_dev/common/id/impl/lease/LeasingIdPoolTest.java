@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.id.impl.lease;
+
+import org.junit.jupiter.api.Test;
+import ru.jts_dev.common.id.impl.AllocationException;
+import ru.jts_dev.common.id.impl.paged.PagedBitmapIdPool;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.expectThrows;
+
+/**
+ * @author Camelion
+ * @since 17.10.26
+ */
+public class LeasingIdPoolTest {
+    private final PagedBitmapIdPool pool = new PagedBitmapIdPool(20_000, 4096);
+
+    @Test
+    public void testConcurrentBorrowIsUnique() {
+        final LeasingIdPool leasingPool = new LeasingIdPool(pool, 64, 60_000);
+        final Set<Integer> ids = ConcurrentHashMap.newKeySet();
+
+        IntStream.rangeClosed(1, 10_000).parallel().forEach(value -> assertThat(ids.add(leasingPool.borrow())).isTrue());
+        IntStream.rangeClosed(1, 100).parallel()
+                .forEach(value -> IntStream.of(leasingPool.borrowBatch(10)).forEach(id -> assertThat(ids.add(id)).isTrue()));
+
+        assertThat(ids).hasSize(11_000);
+        assertThat(ids).allMatch(id -> id >= 1 && id <= 20_000);
+    }
+
+    @Test
+    public void testReturnIdleLeases() {
+        final LeasingIdPool leasingPool = new LeasingIdPool(pool, 64, 0);
+        final int id = leasingPool.borrow();
+        assertThat(leasingPool.getLeasedCount()).isEqualTo(63);
+
+        leasingPool.returnIdleLeases();
+
+        assertThat(leasingPool.getLeasedCount()).isEqualTo(0);
+        // all ids, except borrowed, are available in pool
+        assertThat(pool.borrowBatch(19_999)).doesNotContain(id);
+        expectThrows(AllocationException.class, pool::borrow);
+    }
+
+    @Test
+    public void testBorrowFromExhaustedPool() {
+        final LeasingIdPool leasingPool = new LeasingIdPool(pool, 64, 60_000);
+        pool.borrowBatch(19_990);
+
+        // lease can't be refilled, so ids are borrowed one by one
+        IntStream.rangeClosed(1, 10).forEach(value -> leasingPool.borrow());
+
+        expectThrows(AllocationException.class, leasingPool::borrow);
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.id.impl.paged;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import ru.jts_dev.common.config.UtilsConfig;
+import ru.jts_dev.common.id.IdPool;
+import ru.jts_dev.common.id.impl.AllocationException;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.expectThrows;
+
+/**
+ * @author Camelion
+ * @since 17.10.26
+ */
+@SpringJUnitConfig({PagedBitmapIdPool.class, UtilsConfig.class})
+@TestPropertySource(properties = {"jts.common.bitset.max-size=20000", "jts.common.paged.page-size=4096"})
+public class PagedBitmapIdPoolTest {
+    @Autowired
+    private IdPool idPool;
+
+    @DirtiesContext
+    @Test
+    public void testIdBorrow() {
+        IntStream.rangeClosed(1, 10_000).forEach(value -> {
+            final int id = idPool.borrow();
+            assertThat(id).isEqualTo(value);
+        });
+
+        IntStream.rangeClosed(1, 10_000).parallel().forEach(value -> {
+            final int id = idPool.borrow();
+            assertThat(id).isGreaterThanOrEqualTo(10_000);
+        });
+    }
+
+    @DirtiesContext
+    @Test
+    public void testIdRelease() {
+        IntStream.rangeClosed(1, 20_000).forEach(value -> idPool.borrow());
+
+        IntStream.rangeClosed(1, 20_000).parallel().forEach(value -> idPool.release(value));
+    }
+
+    @DirtiesContext
+    @Test
+    public void testIdReusing() {
+        IntStream.rangeClosed(1, 20_000).forEach(value -> idPool.borrow());
+
+        IntStream.rangeClosed(1, 20_000).parallel().forEach(value -> idPool.release(value));
+
+        IntStream.rangeClosed(1, 20_000).parallel().forEach(value -> {
+            int id = idPool.borrow();
+            assertThat(id).isGreaterThanOrEqualTo(1).isLessThanOrEqualTo(20_000);
+        });
+    }
+
+    @DirtiesContext
+    @Test
+    public void releaseZeroIdThrowsException() {
+        Throwable exception = expectThrows(IndexOutOfBoundsException.class, () -> idPool.release(0));
+        assertThat(exception.getMessage()).isEqualTo("index must be > 0 and <= 20000 current: 0");
+    }
+
+    @DirtiesContext
+    @Test
+    public void releaseNegativeIdThrowsException() {
+        Throwable exception = expectThrows(IndexOutOfBoundsException.class, () -> idPool.release(-1));
+        assertThat(exception.getMessage()).isEqualTo("index must be > 0 and <= 20000 current: -1");
+    }
+
+    @DirtiesContext
+    @Test
+    public void throwsExceptionIfNoFreeIndexes() {
+        Throwable exception = expectThrows(AllocationException.class, () ->
+                IntStream.rangeClosed(0, 20000).parallel().forEach(value -> idPool.borrow()));
+        assertThat(exception.getMessage()).isEqualTo("No available indexes in pool");
+    }
+
+    @DirtiesContext
+    @Test
+    public void testConcurrentBorrowIsUnique() {
+        final Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        IntStream.rangeClosed(1, 20_000).parallel().forEach(value -> assertThat(ids.add(idPool.borrow())).isTrue());
+
+        // every second id is released and borrowed again, from parallel threads
+        IntStream.rangeClosed(1, 10_000).parallel().forEach(value -> {
+            idPool.release(value * 2);
+            ids.remove(value * 2);
+        });
+        IntStream.rangeClosed(1, 10_000).parallel().forEach(value -> assertThat(ids.add(idPool.borrow())).isTrue());
+
+        assertThat(ids).hasSize(20_000);
+        expectThrows(AllocationException.class, () -> idPool.borrow());
+    }
+
+    @DirtiesContext
+    @Test
+    public void testBorrowBatch() {
+        final int[] ids = idPool.borrowBatch(10_000);
+        assertThat(ids).doesNotHaveDuplicates();
+        assertThat(IntStream.of(ids).allMatch(id -> id >= 1 && id <= 20_000)).isTrue();
+
+        // all or none
+        expectThrows(AllocationException.class, () -> idPool.borrowBatch(10_001));
+        idPool.releaseBatch(ids);
+
+        assertThat(idPool.borrowBatch(20_000)).doesNotHaveDuplicates();
+    }
+
+    @Test
+    public void testPagesAreAllocatedLazily() {
+        final PagedBitmapIdPool pool = new PagedBitmapIdPool(Integer.MAX_VALUE, 4096);
+        assertThat(pool.getAllocatedPages()).isEqualTo(0);
+        assertThat(pool.getHeapUsage()).isLessThan(1024 * 1024);
+
+        // 32768 ids per page
+        IntStream.rangeClosed(1, 100_000).forEach(value -> assertThat(pool.borrow()).isEqualTo(value));
+
+        assertThat(pool.getAllocatedPages()).isEqualTo(4);
+        assertThat(pool.getHeapUsage()).isLessThan(1024 * 1024 + 4 * 2 * 4096);
+    }
+
+    @Test
+    public void testEmptyPagesAreFreed() {
+        final PagedBitmapIdPool pool = new PagedBitmapIdPool(Integer.MAX_VALUE, 4096);
+        IntStream.rangeClosed(1, 100_000).forEach(value -> pool.borrow());
+
+        IntStream.rangeClosed(1, 100_000).parallel().forEach(pool::release);
+
+        // single empty page is kept
+        assertThat(pool.getAllocatedPages()).isLessThanOrEqualTo(1);
+        assertThat(pool.borrow()).isBetween(1, 100_000);
+        assertThat(pool.getAllocatedPages()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    public void wrongPageSizeThrowsException() {
+        expectThrows(IllegalArgumentException.class, () -> new PagedBitmapIdPool(20_000, 1024));
+        expectThrows(IllegalArgumentException.class, () -> new PagedBitmapIdPool(20_000, 6000));
+        expectThrows(IllegalArgumentException.class, () -> new PagedBitmapIdPool(20_000, 128 * 1024));
+    }
+}
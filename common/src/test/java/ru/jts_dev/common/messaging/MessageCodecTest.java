@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.messaging;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.net.InetAddress;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.expectThrows;
+
+/**
+ * @author Camelion
+ * @since 17.10.26
+ */
+@Tag("fast")
+public class MessageCodecTest {
+    private final GameServerInfo info = newGameServerInfo();
+
+    @Test
+    public void testGameServerInfoRoundTrip() throws Exception {
+        final byte[] data = MessageCodec.encode(info);
+        final GameServerInfo decoded = (GameServerInfo) MessageCodec.decode(MessageCodec.typeOf(info), data);
+
+        assertThat(decoded).isEqualToComparingFieldByField(info);
+    }
+
+    @Test
+    public void testSessionKeysRoundTrip() {
+        final SessionKeys keys = new SessionKeys("account", 1, -2, Integer.MAX_VALUE, Integer.MIN_VALUE);
+
+        final SessionKeys decoded = (SessionKeys) MessageCodec.decode(MessageCodec.typeOf(keys),
+                MessageCodec.encode(keys));
+
+        assertThat(decoded).isEqualToComparingFieldByField(keys);
+        assertThat(decoded.matches(1, -2, Integer.MAX_VALUE, Integer.MIN_VALUE)).isTrue();
+        assertThat(decoded.matches(1, -2, Integer.MAX_VALUE, 0)).isFalse();
+    }
+
+    @Test
+    public void testSmallerThanSerialized() throws Exception {
+        final ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+            out.writeObject(info);
+        }
+
+        assertThat(MessageCodec.encode(info).length).isLessThan(serialized.size() / 10);
+    }
+
+    @Test
+    public void testUnsupported() throws Exception {
+        assertThat(MessageCodec.typeOf("string")).isEqualTo(MessageCodec.UNSUPPORTED);
+        expectThrows(IllegalArgumentException.class, () -> MessageCodec.encode("string"));
+        expectThrows(IllegalArgumentException.class, () -> MessageCodec.decode((byte) 127, new byte[0]));
+
+        final byte[] data = MessageCodec.encode(info);
+        expectThrows(IllegalArgumentException.class,
+                () -> MessageCodec.decode(MessageCodec.GAME_SERVER_INFO, Arrays.copyOf(data, data.length - 1)));
+    }
+
+    private static GameServerInfo newGameServerInfo() {
+        final GameServerInfo info = new GameServerInfo(1, InetAddress.getLoopbackAddress(), 65000);
+        info.setPvp(true);
+        info.setEnabled(true);
+        info.setOnlinePlayers(100);
+        info.setMaxPlayers(5000);
+        info.setServerType(64);
+        info.setQueuedPackets(12);
+        info.setTickLag(3);
+        return info;
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.packets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Scope;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.core.env.MapPropertySource;
+
+import javax.annotation.PostConstruct;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.beans.factory.config.ConfigurableBeanFactory.SCOPE_PROTOTYPE;
+
+/**
+ * @author Camelion
+ * @since 17.10.26
+ */
+public class IncomingMessageFactoryTest {
+    private AnnotationConfigApplicationContext context;
+
+    @BeforeEach
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(
+                new MapPropertySource("test", Collections.singletonMap("test.value", "42")));
+        context.register(TestConfig.class);
+        context.refresh();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        context.close();
+    }
+
+    private IncomingMessageFactory factory(String beanName) {
+        return IncomingMessageFactory.forBean(context.getAutowireCapableBeanFactory(), beanName);
+    }
+
+    @Test
+    public void testFieldInjection() {
+        IncomingMessageFactory factory = factory("fieldPacket");
+
+        FieldPacket first = (FieldPacket) factory.create();
+        FieldPacket second = (FieldPacket) factory.create();
+
+        assertThat(factory.isPrecompiled()).isTrue();
+        assertThat(first).isNotSameAs(second);
+        assertThat(first.service).isSameAs(context.getBean(Service.class));
+        assertThat(first.value).isEqualTo(42);
+        assertThat(second.service).isSameAs(first.service);
+    }
+
+    @Test
+    public void testConstructorInjection() {
+        IncomingMessageFactory factory = factory("constructorPacket");
+
+        ConstructorPacket packet = (ConstructorPacket) factory.create();
+
+        assertThat(factory.isPrecompiled()).isTrue();
+        assertThat(packet.service).isSameAs(context.getBean(Service.class));
+    }
+
+    @Test
+    public void testPrototypeDependencyFallback() {
+        IncomingMessageFactory factory = factory("prototypeDependencyPacket");
+
+        PrototypeDependencyPacket first = (PrototypeDependencyPacket) factory.create();
+        PrototypeDependencyPacket second = (PrototypeDependencyPacket) factory.create();
+
+        assertThat(factory.isPrecompiled()).isFalse();
+        assertThat(first.dependency).isNotSameAs(second.dependency);
+    }
+
+    @Test
+    public void testLifecycleCallbackFallback() {
+        IncomingMessageFactory factory = factory("postConstructPacket");
+
+        PostConstructPacket packet = (PostConstructPacket) factory.create();
+
+        assertThat(factory.isPrecompiled()).isFalse();
+        assertThat(packet.initialized).isTrue();
+    }
+
+    @Configuration
+    static class TestConfig {
+        @Bean
+        public static PropertySourcesPlaceholderConfigurer placeholderConfigurer() {
+            return new PropertySourcesPlaceholderConfigurer();
+        }
+
+        @Bean
+        public Service service() {
+            return new Service();
+        }
+
+        @Bean
+        @Scope(SCOPE_PROTOTYPE)
+        public PrototypeDependency prototypeDependency() {
+            return new PrototypeDependency();
+        }
+
+        @Bean
+        @Scope(SCOPE_PROTOTYPE)
+        public FieldPacket fieldPacket() {
+            return new FieldPacket();
+        }
+
+        @Bean
+        @Scope(SCOPE_PROTOTYPE)
+        public ConstructorPacket constructorPacket(Service service) {
+            return new ConstructorPacket(service);
+        }
+
+        @Bean
+        @Scope(SCOPE_PROTOTYPE)
+        public PrototypeDependencyPacket prototypeDependencyPacket() {
+            return new PrototypeDependencyPacket();
+        }
+
+        @Bean
+        @Scope(SCOPE_PROTOTYPE)
+        public PostConstructPacket postConstructPacket() {
+            return new PostConstructPacket();
+        }
+    }
+
+    static class Service {
+    }
+
+    static class PrototypeDependency {
+    }
+
+    abstract static class TestPacket extends IncomingMessageWrapper {
+        @Override
+        public void prepare() {
+        }
+
+        @Override
+        public void run() {
+        }
+    }
+
+    static class FieldPacket extends TestPacket {
+        @Autowired
+        private Service service;
+        @Value("${test.value}")
+        private int value;
+    }
+
+    static class ConstructorPacket extends TestPacket {
+        private final Service service;
+
+        @Autowired
+        ConstructorPacket(Service service) {
+            this.service = service;
+        }
+    }
+
+    static class PrototypeDependencyPacket extends TestPacket {
+        @Autowired
+        private PrototypeDependency dependency;
+    }
+
+    static class PostConstructPacket extends TestPacket {
+        private boolean initialized;
+
+        @PostConstruct
+        private void init() {
+            initialized = true;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.packets;
+
+import io.netty.buffer.ByteBuf;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Camelion
+ * @since 17.10.26
+ */
+public class SerializedOutgoingMessageTest {
+    @Test
+    public void testSerializeOnce() {
+        TestPacket packet = new TestPacket();
+        ByteBuf buffer = packet.getPayload();
+
+        SerializedOutgoingMessage serialized = SerializedOutgoingMessage.serialize(packet);
+        OutgoingMessageWrapper first = serialized.newMessage();
+        OutgoingMessageWrapper second = serialized.newMessage();
+        first.write();
+        second.write();
+
+        assertThat(packet.writes).isEqualTo(1);
+        assertThat(first.isShared()).isTrue();
+        assertThat(first.getPayload().readableBytes()).isEqualTo(3);
+        assertThat(second.getPayload().getShort(1)).isEqualTo((short) 0x0102);
+        assertThat(first.getHeaders()).isNotSameAs(second.getHeaders());
+
+        serialized.release();
+        first.getPayload().release();
+        assertThat(buffer.refCnt()).isEqualTo(1);
+
+        second.getPayload().release();
+        assertThat(buffer.refCnt()).isEqualTo(0);
+    }
+
+    @Test
+    public void testCopyOf() {
+        TestPacket packet = new TestPacket();
+        ByteBuf buffer = packet.getPayload();
+
+        SerializedOutgoingMessage serialized = SerializedOutgoingMessage.copyOf(packet);
+        // pooled packet buffer is returned right after copy
+        assertThat(buffer.refCnt()).isEqualTo(0);
+
+        OutgoingMessageWrapper msg = serialized.newMessage();
+        assertThat(msg.getPayload().order()).isEqualTo(buffer.order());
+        assertThat(msg.getPayload().getShort(1)).isEqualTo((short) 0x0102);
+        msg.getPayload().release();
+
+        // copy is never released to zero, so messages can be created after others were sent
+        OutgoingMessageWrapper next = serialized.newMessage();
+        assertThat(next.getPayload().refCnt()).isGreaterThan(0);
+        next.getPayload().release();
+    }
+
+    @Test
+    public void testSerializeStatic() {
+        StaticTestPacket packet = new StaticTestPacket();
+
+        SerializedOutgoingMessage serialized = SerializedOutgoingMessage.serialize(packet);
+        OutgoingMessageWrapper msg = serialized.newMessage();
+        serialized.release();
+
+        assertThat(msg.getPayload().getByte(0)).isEqualTo((byte) 0x10);
+        msg.getPayload().release();
+
+        // static packet buffer is still available
+        OutgoingMessageWrapper next = packet.newMessage();
+        assertThat(next.getPayload().getByte(0)).isEqualTo((byte) 0x10);
+        next.getPayload().release();
+    }
+
+    private static class TestPacket extends OutgoingMessageWrapper {
+        private int writes;
+
+        @Override
+        public void write() {
+            writes++;
+            writeByte(0x20);
+            writeShort(0x0102);
+        }
+    }
+
+    private static class StaticTestPacket extends StaticOutgoingMessageWrapper {
+        @Override
+        public void write() {
+            writeByte(0x10);
+        }
+    }
+}
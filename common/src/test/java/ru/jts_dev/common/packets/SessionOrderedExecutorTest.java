@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.packets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.jts_dev.common.packets.SessionOrderedExecutor.OverflowPolicy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Camelion
+ * @since 17.10.26
+ */
+public class SessionOrderedExecutorTest {
+    private SessionOrderedExecutor executor;
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testSessionTasksOrder() throws InterruptedException {
+        executor = new SessionOrderedExecutor("test-", 4, 10_000, OverflowPolicy.DROP);
+        final int sessions = 8;
+        final int tasks = 1000;
+        final List<List<Integer>> results = new ArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(sessions * tasks);
+
+        for (int s = 0; s < sessions; s++) {
+            results.add(Collections.synchronizedList(new ArrayList<>()));
+            executor.open("session" + s);
+        }
+        for (int i = 0; i < tasks; i++) {
+            for (int s = 0; s < sessions; s++) {
+                final List<Integer> result = results.get(s);
+                final int value = i;
+                assertThat(executor.execute("session" + s, () -> {
+                    result.add(value);
+                    latch.countDown();
+                })).isTrue();
+            }
+        }
+
+        assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        for (List<Integer> result : results) {
+            assertThat(result).hasSize(tasks).isSorted();
+        }
+    }
+
+    @Test
+    public void testOverflowDisconnect() throws InterruptedException {
+        executor = new SessionOrderedExecutor("test-", 1, 2, OverflowPolicy.DISCONNECT);
+        final List<String> disconnected = new ArrayList<>();
+        executor.setDisconnectHandler(disconnected::add);
+        executor.open("session");
+        executor.open("other");
+
+        final CountDownLatch blocker = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        executor.execute("session", () -> {
+            started.countDown();
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(executor.execute("session", () -> {
+        })).isTrue();
+        assertThat(executor.execute("session", () -> {
+        })).isTrue();
+        assertThat(executor.execute("session", () -> {
+        })).isFalse();
+        assertThat(disconnected).containsExactly("session");
+
+        // other sessions are not affected
+        assertThat(executor.execute("other", () -> {
+        })).isTrue();
+        // single worker is blocked, dropped task isn't counted
+        assertThat(executor.getQueuedTasks()).isEqualTo(3);
+
+        blocker.countDown();
+    }
+
+    @Test
+    public void testFailedTaskDoesNotBreakQueue() throws InterruptedException {
+        executor = new SessionOrderedExecutor("test-", 1, 16, OverflowPolicy.DROP);
+        executor.open("session");
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        executor.execute("session", () -> {
+            throw new IllegalStateException("test");
+        });
+        executor.execute("session", latch::countDown);
+
+        assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void testClosedConnection() throws InterruptedException {
+        executor = new SessionOrderedExecutor("test-", 1, 16, OverflowPolicy.DISCONNECT);
+        final List<String> disconnected = new ArrayList<>();
+        executor.setDisconnectHandler(disconnected::add);
+
+        // never opened
+        assertThat(executor.execute("unknown", () -> {
+        })).isFalse();
+
+        executor.open("session");
+        final CountDownLatch latch = new CountDownLatch(1);
+        assertThat(executor.execute("session", latch::countDown)).isTrue();
+        assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+
+        // task of closed connection doesn't create new queue
+        executor.remove("session");
+        assertThat(executor.execute("session", () -> {
+        })).isFalse();
+        assertThat(executor.getQueuedTasks("session")).isEqualTo(0);
+        assertThat(disconnected).isEmpty();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.packets;
+
+import io.netty.buffer.ByteBuf;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ReadOnlyBufferException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.expectThrows;
+
+/**
+ * @author Camelion
+ * @since 17.10.26
+ */
+public class StaticOutgoingMessageWrapperTest {
+    @Test
+    public void testWrittenOnce() {
+        TestPacket packet = new TestPacket();
+
+        OutgoingMessageWrapper first = packet.newMessage();
+        OutgoingMessageWrapper second = packet.newMessage();
+
+        assertThat(packet.writes).isEqualTo(1);
+        assertThat(first.getPayload().readableBytes()).isEqualTo(5);
+        assertThat(first.getPayload().getInt(1)).isEqualTo(0x01020304);
+        assertThat(second.getPayload().readableBytes()).isEqualTo(5);
+
+        first.getPayload().release();
+        second.getPayload().release();
+    }
+
+    @Test
+    public void testNewMessage() {
+        TestPacket packet = new TestPacket();
+
+        OutgoingMessageWrapper msg = packet.newMessage();
+        msg.write();
+        msg.getHeaders().put("test", "value");
+
+        assertThat(msg.isStatic()).isFalse();
+        assertThat(msg.isShared()).isTrue();
+        assertThat(msg.getPayload().readableBytes()).isEqualTo(5);
+        assertThat(packet.newMessage().getHeaders()).doesNotContainKey("test");
+        expectThrows(ReadOnlyBufferException.class, () -> msg.getPayload().setByte(0, 0));
+    }
+
+    @Test
+    public void testPayloadRelease() {
+        TestPacket packet = new TestPacket();
+
+        ByteBuf payload = packet.newMessage().getPayload();
+        int refCnt = payload.refCnt();
+        payload.release();
+
+        ByteBuf next = packet.newMessage().getPayload();
+        assertThat(next.refCnt()).isEqualTo(refCnt);
+        assertThat(next.getByte(0)).isEqualTo((byte) 0x7F);
+        next.release();
+    }
+
+    private static class TestPacket extends StaticOutgoingMessageWrapper {
+        private int writes;
+
+        @Override
+        public void write() {
+            writes++;
+            writeByte(0x7F);
+            writeInt(0x01020304);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.tcp;
+
+import io.netty.buffer.ByteBuf;
+import org.junit.jupiter.api.Test;
+import org.springframework.integration.ip.IpHeaders;
+import org.springframework.integration.ip.tcp.connection.TcpConnection;
+import org.springframework.integration.ip.tcp.connection.TcpNioServerConnectionFactory;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.netty.buffer.Unpooled.buffer;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Camelion
+ * @since 17.10.26
+ */
+public class ByteBufTcpSendingMessageHandlerTest {
+    @Test
+    public void testPayloadOfClosedConnectionReleased() {
+        final ByteBufTcpSendingMessageHandler handler = new ByteBufTcpSendingMessageHandler();
+        handler.setConnectionFactory(new TcpNioServerConnectionFactory(0));
+
+        final ByteBuf payload = buffer(8).writeLong(1L);
+        handler.handleMessage(MessageBuilder.withPayload(payload)
+                .setHeader(IpHeaders.CONNECTION_ID, "closed")
+                .build());
+
+        assertThat(payload.refCnt()).isEqualTo(0);
+    }
+
+    @Test
+    public void testPayloadSentToConnection() {
+        final ByteBufTcpSendingMessageHandler handler = new ByteBufTcpSendingMessageHandler();
+        handler.setConnectionFactory(new TcpNioServerConnectionFactory(0));
+
+        final List<Message<?>> sent = new ArrayList<>();
+        handler.addNewConnection((TcpConnection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{TcpConnection.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("getConnectionId"))
+                        return "open";
+                    if (method.getName().equals("send")) {
+                        sent.add((Message<?>) args[0]);
+                    }
+                    return null;
+                }));
+
+        final ByteBuf payload = buffer(8).writeLong(1L);
+        handler.handleMessage(MessageBuilder.withPayload(payload)
+                .setHeader(IpHeaders.CONNECTION_ID, "open")
+                .build());
+
+        assertThat(sent).hasSize(1);
+        assertThat(sent.get(0).getPayload()).isSameAs(payload);
+        // released by serializer of connection
+        assertThat(payload.refCnt()).isEqualTo(1);
+    }
+}
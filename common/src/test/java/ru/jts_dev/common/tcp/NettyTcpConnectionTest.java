@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.tcp;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.integration.ip.tcp.connection.TcpConnectionOpenEvent;
+import org.springframework.integration.support.MessageBuilder;
+
+import java.io.DataInputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Camelion
+ * @since 17.10.26
+ */
+public class NettyTcpConnectionTest {
+    @Test
+    public void testCloseFlushesPendingFrames() throws Exception {
+        final int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+
+        final CompletableFuture<NettyTcpConnection> opened = new CompletableFuture<>();
+        final NettyServerConnectionFactory factory = new NettyServerConnectionFactory(port);
+        // frames are flushed only by close in this test
+        factory.setFlushInterval(SECONDS.toMillis(60));
+        factory.setApplicationEventPublisher(new ApplicationEventPublisher() {
+            @Override
+            public void publishEvent(ApplicationEvent event) {
+                if (event instanceof TcpConnectionOpenEvent) {
+                    opened.complete((NettyTcpConnection) event.getSource());
+                }
+            }
+
+            @Override
+            public void publishEvent(Object event) {
+            }
+        });
+        factory.afterPropertiesSet();
+        factory.start();
+
+        try {
+            for (int i = 0; i < 100 && !factory.isListening(); i++) {
+                Thread.sleep(50);
+            }
+
+            try (Socket client = new Socket("127.0.0.1", port)) {
+                client.setSoTimeout((int) SECONDS.toMillis(5));
+
+                final NettyTcpConnection connection = opened.get(5, SECONDS);
+                connection.send(MessageBuilder.withPayload(new byte[]{0x01, 0x02, 0x03}).build());
+                connection.close();
+
+                final DataInputStream in = new DataInputStream(client.getInputStream());
+                final byte[] frame = new byte[5];
+                in.readFully(frame);
+                assertThat(frame).containsExactly(new byte[]{0x05, 0x00, 0x01, 0x02, 0x03});
+                assertThat(in.read()).isEqualTo(-1);
+            }
+        } finally {
+            factory.stop();
+        }
+    }
+}
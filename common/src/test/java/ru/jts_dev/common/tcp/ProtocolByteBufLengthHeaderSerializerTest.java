@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.tcp;
+
+import io.netty.buffer.ByteBuf;
+import org.junit.jupiter.api.Test;
+import org.springframework.integration.ip.tcp.serializer.SoftEndOfStreamException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static io.netty.buffer.Unpooled.wrappedBuffer;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.expectThrows;
+
+/**
+ * @author Camelion
+ * @since 17.10.26
+ */
+public class ProtocolByteBufLengthHeaderSerializerTest {
+    private final ProtocolByteBufLengthHeaderSerializer serializer = new ProtocolByteBufLengthHeaderSerializer();
+
+    @Test
+    public void testSerialize() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ByteBuf buf = wrappedBuffer(new byte[]{0x01, 0x02, 0x03});
+
+        serializer.serialize(buf, outputStream);
+
+        assertThat(outputStream.toByteArray()).containsExactly(new byte[]{0x05, 0x00, 0x01, 0x02, 0x03});
+        assertThat(buf.refCnt()).isEqualTo(0);
+    }
+
+    @Test
+    public void testDeserialize() throws IOException {
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(new byte[]{0x06, 0x00, 0x01, 0x02, 0x03, 0x04});
+
+        ByteBuf buf = serializer.deserialize(inputStream);
+
+        assertThat(buf.readableBytes()).isEqualTo(4);
+        assertThat(buf.hasArray()).isTrue();
+        assertThat(buf.getInt(0)).isEqualTo(0x04030201);
+        buf.release();
+    }
+
+    @Test
+    public void closedStreamThrowsSoftEndOfStream() {
+        expectThrows(SoftEndOfStreamException.class,
+                () -> serializer.deserialize(new ByteArrayInputStream(new byte[0])));
+    }
+
+    @Test
+    public void truncatedDataThrowsException() {
+        Throwable exception = expectThrows(IOException.class,
+                () -> serializer.deserialize(new ByteArrayInputStream(new byte[]{0x06, 0x00, 0x01})));
+        assertThat(exception.getMessage()).isEqualTo("Stream closed after 1 of 4 bytes");
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.common.tcp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.EncoderException;
+import org.junit.jupiter.api.Test;
+
+import static io.netty.buffer.Unpooled.buffer;
+import static io.netty.buffer.Unpooled.wrappedBuffer;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.expectThrows;
+
+/**
+ * @author Camelion
+ * @since 17.10.26
+ */
+public class ProtocolLengthFieldFrameCodecTest {
+    @Test
+    public void testFrameDecode() {
+        EmbeddedChannel channel = new EmbeddedChannel(new ProtocolLengthFieldFrameDecoder());
+
+        // two frames, second is split
+        channel.writeInbound(wrappedBuffer(new byte[]{0x05, 0x00, 0x01, 0x02, 0x03, 0x04, 0x00}));
+        channel.writeInbound(wrappedBuffer(new byte[]{0x0A, 0x0A}));
+
+        ByteBuf first = (ByteBuf) channel.readInbound();
+        assertThat(first.readableBytes()).isEqualTo(3);
+        assertThat(first.hasArray()).isTrue();
+        assertThat(first.getByte(0)).isEqualTo((byte) 0x01);
+        assertThat(first.getByte(2)).isEqualTo((byte) 0x03);
+        first.release();
+
+        ByteBuf second = (ByteBuf) channel.readInbound();
+        assertThat(second.readableBytes()).isEqualTo(2);
+        assertThat(second.getByte(0)).isEqualTo((byte) 0x0A);
+        assertThat(second.getByte(1)).isEqualTo((byte) 0x0A);
+        second.release();
+
+        assertThat(channel.finish()).isFalse();
+    }
+
+    @Test
+    public void testFramePrepend() {
+        EmbeddedChannel channel = new EmbeddedChannel(new ProtocolLengthFieldPrepender());
+
+        ByteBuf payload = wrappedBuffer(new byte[]{0x01, 0x02, 0x03});
+        channel.writeOutbound(payload);
+
+        ByteBuf header = (ByteBuf) channel.readOutbound();
+        assertThat(header.readableBytes()).isEqualTo(2);
+        assertThat(header.getByte(0)).isEqualTo((byte) 0x05);
+        assertThat(header.getByte(1)).isEqualTo((byte) 0x00);
+        header.release();
+
+        ByteBuf data = (ByteBuf) channel.readOutbound();
+        assertThat(data).isSameAs(payload);
+        data.release();
+
+        assertThat(payload.refCnt()).isEqualTo(0);
+    }
+
+    @Test
+    public void tooLongFrameThrowsException() {
+        EmbeddedChannel channel = new EmbeddedChannel(new ProtocolLengthFieldPrepender());
+
+        expectThrows(EncoderException.class, () -> channel.writeOutbound(buffer(0xFFFF).writeZero(0xFFFF)));
+    }
+}
@@ -45,6 +45,8 @@ public class GameServerInfoFixtureTemplate implements TemplateLoader {
                 add("enabled", random(true, false));
                 add("serverType", random(1, 2, 4, 8, 16, 32, 64));
                 add("bracketsEnabled", random(true, false));
+                add("queuedPackets", random(Integer.class, range(0, 10_000)));
+                add("tickLag", random(Integer.class, range(0, 1000)));
             }});
 
             Fixture.of(GameServerInfo.class).addTemplate("typical", new Rule() {{
@@ -25,12 +25,12 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.integration.annotation.IntegrationComponentScan;
 import org.springframework.integration.annotation.ServiceActivator;
 import org.springframework.integration.channel.DirectChannel;
-import org.springframework.integration.channel.ExecutorChannel;
 import org.springframework.integration.channel.PublishSubscribeChannel;
 import org.springframework.integration.dsl.IntegrationFlow;
 import org.springframework.integration.dsl.IntegrationFlows;
@@ -38,20 +38,29 @@ import org.springframework.integration.ip.IpHeaders;
 import org.springframework.integration.ip.tcp.TcpReceivingChannelAdapter;
 import org.springframework.integration.ip.tcp.TcpSendingMessageHandler;
 import org.springframework.integration.ip.tcp.connection.AbstractServerConnectionFactory;
+import org.springframework.integration.ip.tcp.connection.TcpMessageMapper;
 import org.springframework.integration.ip.tcp.connection.TcpNioServerConnectionFactory;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
 import ru.jts_dev.common.packets.IncomingMessageWrapper;
 import ru.jts_dev.common.packets.OutgoingMessageWrapper;
-import ru.jts_dev.common.packets.StaticOutgoingMessageWrapper;
-import ru.jts_dev.common.tcp.ProtocolByteArrayLengthHeaderSerializer;
+import ru.jts_dev.common.packets.SessionOrderedExecutor;
+import ru.jts_dev.common.packets.SessionOrderedExecutor.OverflowPolicy;
+import ru.jts_dev.common.packets.SessionOrderedExecutorChannel;
+import ru.jts_dev.common.tcp.ByteBufTcpSendingMessageHandler;
+import ru.jts_dev.common.tcp.NettyServerConnectionFactory;
+import ru.jts_dev.common.tcp.OutboundFlushBatch;
+import ru.jts_dev.common.tcp.OutboundFlushMetrics;
+import ru.jts_dev.common.tcp.ProtocolByteBufLengthHeaderSerializer;
+import ru.jts_dev.common.tcp.TcpTransport;
+import ru.jts_dev.gameserver.model.GameSession;
+import ru.jts_dev.gameserver.packets.GameClientPacketCodec;
 import ru.jts_dev.gameserver.packets.GameClientPacketHandler;
 import ru.jts_dev.gameserver.packets.out.VersionCheck;
+import ru.jts_dev.gameserver.service.GameSessionService;
 import ru.jts_dev.gameserver.util.Encoder;
 
-import java.nio.ByteOrder;
-import java.util.concurrent.Executors;
-
-import static io.netty.buffer.Unpooled.wrappedBuffer;
+import java.util.Objects;
 
 /**
  * @author Camelion
@@ -61,28 +70,71 @@ import static io.netty.buffer.Unpooled.wrappedBuffer;
 @IntegrationComponentScan
 public class GameIntegrationConfig {
     private static final Logger log = LoggerFactory.getLogger(GameIntegrationConfig.class);
+    private static final String TRANSPORT_PROPERTY = "gameserver.transport";
     private final GameClientPacketHandler clientPacketHandler;
+    private final GameClientPacketCodec clientPacketCodec;
     private final Encoder encoder;
+    private final OutboundFlushMetrics flushMetrics;
+    private final GameSessionService sessionService;
     @Value("${gameserver.port}")
     private int port;
+    @Value("${gameserver.transport:NIO}")
+    private TcpTransport transport;
+    @Value("${gameserver.netty.flush-interval:5}")
+    private long flushInterval;
+    @Value("${gameserver.packets.executor.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+    private int executorThreads;
+    @Value("${gameserver.packets.executor.queue-limit:128}")
+    private int executorQueueLimit;
+    @Value("${gameserver.packets.executor.overflow-policy:DISCONNECT}")
+    private OverflowPolicy executorOverflowPolicy;
 
     @Autowired
-    public GameIntegrationConfig(GameClientPacketHandler clientPacketHandler, Encoder encoder) {
+    public GameIntegrationConfig(GameClientPacketHandler clientPacketHandler, GameClientPacketCodec clientPacketCodec,
+                                 Encoder encoder, OutboundFlushMetrics flushMetrics,
+                                 GameSessionService sessionService) {
         this.clientPacketHandler = clientPacketHandler;
+        this.clientPacketCodec = clientPacketCodec;
         this.encoder = encoder;
+        this.flushMetrics = flushMetrics;
+        this.sessionService = sessionService;
     }
 
+    /**
+     * Server connection factory, for game client connections.
+     * With {@link TcpTransport#NETTY} transport packets are decoded and encoded right in netty pipeline,
+     * so {@link #recvFlow()} and {@link #sendFlow} are not used.
+     *
+     * @return - server factory bean
+     */
     @Bean
-    public TcpNioServerConnectionFactory gameConnectionFactory() {
+    public AbstractServerConnectionFactory gameConnectionFactory() {
+        if (transport == TcpTransport.NETTY) {
+            NettyServerConnectionFactory serverConnectionFactory = new NettyServerConnectionFactory(port);
+
+            serverConnectionFactory.setCodec(clientPacketCodec);
+            serverConnectionFactory.setOutputChannel(incomingPacketExecutorChannel());
+            serverConnectionFactory.setFlushInterval(flushInterval);
+            serverConnectionFactory.setFlushMetrics(flushMetrics);
+
+            return serverConnectionFactory;
+        }
+
         TcpNioServerConnectionFactory serverConnectionFactory = new TcpNioServerConnectionFactory(port);
 
-        serverConnectionFactory.setDeserializer(new ProtocolByteArrayLengthHeaderSerializer());
-        serverConnectionFactory.setSerializer(new ProtocolByteArrayLengthHeaderSerializer());
+        ProtocolByteBufLengthHeaderSerializer serializer = new ProtocolByteBufLengthHeaderSerializer();
+        serverConnectionFactory.setDeserializer(serializer);
+        serverConnectionFactory.setSerializer(serializer);
+
+        TcpMessageMapper mapper = new TcpMessageMapper();
+        mapper.setStringToBytes(false); // pass ByteBuf payloads to serializer as is
+        serverConnectionFactory.setMapper(mapper);
 
         return serverConnectionFactory;
     }
 
     @Bean
+    @ConditionalOnProperty(name = TRANSPORT_PROPERTY, havingValue = "NIO", matchIfMissing = true)
     public TcpReceivingChannelAdapter tcpIn(AbstractServerConnectionFactory connectionFactory) {
         TcpReceivingChannelAdapter gateway = new TcpReceivingChannelAdapter();
         gateway.setConnectionFactory(connectionFactory);
@@ -102,50 +154,100 @@ public class GameIntegrationConfig {
      * @return - complete message transformation flow
      */
     @Bean
+    @ConditionalOnProperty(name = TRANSPORT_PROPERTY, havingValue = "NIO", matchIfMissing = true)
     public IntegrationFlow recvFlow() {
         return IntegrationFlows
                 .from(tcpInputChannel())
-                .transform(byte[].class, b -> wrappedBuffer(b).order(ByteOrder.LITTLE_ENDIAN))
-                // no crypt for RequestProtocolVersion
-                .route(ByteBuf.class, b -> b.readableBytes() > 0 && b.getByte(0) == 0x0E,
-                        invoker -> invoker
-                                .subFlowMapping("true",
-                                        sf -> sf.transform(b -> b))
-                                .subFlowMapping("false",
-                                        sf -> sf.transform(encoder, "decrypt")))
-                .transform(clientPacketHandler, "handle")
+                .handle(ByteBuf.class, (data, headers) ->
+                        decode(data, Objects.toString(headers.get(IpHeaders.CONNECTION_ID), null)))
                 .channel(incomingPacketExecutorChannel())
                 .get();
     }
 
+    /**
+     * @param frame        - received frame
+     * @param connectionId - connection id of frame
+     * @return - decoded packet, or {@code null}, if session of connection is already removed
+     */
+    private IncomingMessageWrapper decode(ByteBuf frame, String connectionId) {
+        final GameSession session = sessionService.getSessionBy(connectionId);
+        // frame, received while connection is closing
+        if (session == null) {
+            log.debug("dropped frame of closed connection {}", connectionId);
+            frame.release();
+            return null;
+        }
+
+        try {
+            // no crypt for RequestProtocolVersion
+            if (frame.readableBytes() > 0 && frame.getByte(0) != 0x0E) {
+                encoder.decrypt(frame, session);
+            }
+
+            return clientPacketHandler.handle(frame, connectionId, session.getHandle());
+        } catch (RuntimeException e) {
+            frame.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Channel for decoded client packets. Packets of one connection are executed serially, in receive order,
+     * on fixed count of threads. Connection, which exceeds queue limit, is closed
+     * with {@link OverflowPolicy#DISCONNECT} policy.
+     *
+     * @return - channel
+     */
     @Bean
     public MessageChannel incomingPacketExecutorChannel() {
-        // TODO: 07.12.15 investigate, may be should replace with spring TaskExecutor
-        return new ExecutorChannel(Executors.newCachedThreadPool());
+        return new SessionOrderedExecutorChannel(incomingPacketExecutor());
+    }
+
+    @Bean
+    public SessionOrderedExecutor incomingPacketExecutor() {
+        SessionOrderedExecutor executor = new SessionOrderedExecutor("gameserver-packets-",
+                executorThreads, executorQueueLimit, executorOverflowPolicy);
+        executor.setDisconnectHandler(connectionId -> gameConnectionFactory().closeConnection(connectionId));
+
+        return executor;
     }
 
     @ServiceActivator(inputChannel = "incomingPacketExecutorChannel")
     public void executePacket(IncomingMessageWrapper msg) {
-        msg.prepare();
-        msg.run();
-
-        if (log.isDebugEnabled() && msg.getPayload().readableBytes() > 0) {
-            final StringBuilder leftStr = new StringBuilder("[");
-            msg.getPayload().forEachByte(
-                    msg.getPayload().readerIndex(),
-                    msg.getPayload().readableBytes(),
-                    b -> {
-                        leftStr.append(" ");
-                        leftStr.append(String.format("%02X", b));
-                        return true;
-                    });
-            leftStr.append(" ]");
-
-            log.debug(msg.getPayload().readableBytes() + " byte(s) left in "
-                    + msg.getClass().getSimpleName() + " buffer: "
-                    + leftStr);
+        // packets, queued before connection is closed, are dropped, handle of closed connection isn't resolved
+        if (sessionService.getSessionBy(msg.getConnectionHandle()) == null) {
+            log.debug("dropped {} of closed connection {}", msg.getClass().getSimpleName(), msg.getConnectionId());
+            msg.release();
+            return;
+        }
+
+        // pooled payload is released, even if packet is malformed
+        try {
+            // packets, sent by handler, are flushed once, after handler
+            OutboundFlushBatch.run(() -> {
+                msg.prepare();
+                msg.run();
+            });
+
+            if (log.isDebugEnabled() && msg.getPayload().readableBytes() > 0) {
+                final StringBuilder leftStr = new StringBuilder("[");
+                msg.getPayload().forEachByte(
+                        msg.getPayload().readerIndex(),
+                        msg.getPayload().readableBytes(),
+                        b -> {
+                            leftStr.append(" ");
+                            leftStr.append(String.format("%02X", b));
+                            return true;
+                        });
+                leftStr.append(" ]");
+
+                log.debug(msg.getPayload().readableBytes() + " byte(s) left in "
+                        + msg.getClass().getSimpleName() + " buffer: "
+                        + leftStr);
+            }
+        } finally {
+            msg.release();
         }
-        msg.release();
     }
 
     /**
@@ -176,14 +278,30 @@ public class GameIntegrationConfig {
      * @return - tcp message handler bean
      */
     @Bean
+    @ConditionalOnProperty(name = TRANSPORT_PROPERTY, havingValue = "NIO", matchIfMissing = true)
     @ServiceActivator(inputChannel = "tcpOutChannel")
     public TcpSendingMessageHandler tcpOut(AbstractServerConnectionFactory connectionFactory) {
-        TcpSendingMessageHandler gateway = new TcpSendingMessageHandler();
+        // payloads of messages to closed connections are released
+        TcpSendingMessageHandler gateway = new ByteBufTcpSendingMessageHandler();
         gateway.setConnectionFactory(connectionFactory);
 
         return gateway;
     }
 
+    /**
+     * Endpoint for output messages with netty transport.
+     * Receives unwritten messages directly from packetChannel, they are encoded in connection pipeline.
+     *
+     * @param connectionFactory - server factory bean
+     * @return - netty message handler bean
+     */
+    @Bean
+    @ConditionalOnProperty(name = TRANSPORT_PROPERTY, havingValue = "NETTY")
+    @ServiceActivator(inputChannel = "packetChannel")
+    public MessageHandler nettyOut(AbstractServerConnectionFactory connectionFactory) {
+        return message -> ((NettyServerConnectionFactory) connectionFactory).send((OutgoingMessageWrapper) message);
+    }
+
     /**
      * Outgoing message flow
      * // TODO rewrite to reactive
@@ -191,25 +309,11 @@ public class GameIntegrationConfig {
      * @return - complete message transformations flow
      */
     @Bean
+    @ConditionalOnProperty(name = TRANSPORT_PROPERTY, havingValue = "NIO", matchIfMissing = true)
     public IntegrationFlow sendFlow(@Qualifier("packetChannel") MessageChannel packetChannel,
                                     @Qualifier("tcpOutChannel") MessageChannel tcpOutputChannel) {
         return IntegrationFlows
                 .from(packetChannel)
-                .route(OutgoingMessageWrapper.class, msg -> msg.isStatic(),
-                        invoker -> invoker
-                                .subFlowMapping("true",
-                                        sf -> sf.transform(StaticOutgoingMessageWrapper.class,
-                                                msg -> {
-                                                    try {
-                                                        return msg.clone();
-                                                    } catch (CloneNotSupportedException e) {
-                                                        // just rethrow to unchecked
-                                                        throw new RuntimeException(e);
-                                                    }
-                                                }))
-                                .subFlowMapping("false",
-                                        sf -> sf.transform(OutgoingMessageWrapper.class, msg -> msg))
-                )
                 .transform(OutgoingMessageWrapper.class, msg -> {
                     msg.write();
                     return msg;
@@ -219,15 +323,20 @@ public class GameIntegrationConfig {
                                 .subFlowMapping("true",
                                         sf -> sf.transform(OutgoingMessageWrapper.class, OutgoingMessageWrapper::getPayload))
                                 .subFlowMapping("false",
-                                        sf -> sf
-                                                .transform(OutgoingMessageWrapper.class, OutgoingMessageWrapper::getPayload)
-                                                .transform(encoder, "encrypt")))
-                .transform(ByteBuf.class, buf -> {
-                    byte[] data = new byte[buf.readableBytes()];
-                    buf.readBytes(data);
-                    buf.release();
-                    return data;
-                })
+                                        sf -> sf.handle(OutgoingMessageWrapper.class, (msg, headers) -> {
+                                            final GameSession session = sessionService
+                                                    .getSessionBy((String) headers.get(IpHeaders.CONNECTION_ID));
+                                            if (session == null) {
+                                                // connection is already closed, pooled payload is dropped
+                                                msg.getPayload().release();
+                                                return null;
+                                            }
+
+                                            // static packet payload is shared, so it is encrypted to new buffer
+                                            return msg.isShared()
+                                                    ? encoder.encryptCopy(msg.getPayload(), session)
+                                                    : encoder.encrypt(msg.getPayload(), session);
+                                        })))
                 .channel(tcpOutputChannel)
                 .get();
     }
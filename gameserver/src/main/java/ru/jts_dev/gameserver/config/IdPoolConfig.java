@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.gameserver.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.jts_dev.common.id.impl.lease.LeasingIdPool;
+import ru.jts_dev.common.id.impl.paged.PagedBitmapIdPool;
+
+import java.util.concurrent.ScheduledExecutorService;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * @author Camelion
+ * @since 17.10.26
+ */
+@Configuration
+public class IdPoolConfig {
+    /**
+     * Object ids of world objects, items are loaded by inventories, so ids are leased to loading threads by batches
+     *
+     * @param pool        - new pool instance
+     * @param scheduler   - scheduler for return of idle leases
+     * @param leaseSize   - ids, leased at once
+     * @param idleTimeout - idle lease timeout in milliseconds
+     * @return - object ids pool
+     */
+    @Bean
+    public LeasingIdPool objectIdPool(PagedBitmapIdPool pool, ScheduledExecutorService scheduler,
+                                      @Value("${gameserver.items.id-lease.size:64}") int leaseSize,
+                                      @Value("${gameserver.items.id-lease.idle-timeout:5000}") long idleTimeout) {
+        final LeasingIdPool objectIdPool = new LeasingIdPool(pool, leaseSize, idleTimeout);
+        scheduler.scheduleWithFixedDelay(objectIdPool::returnIdleLeases, idleTimeout, idleTimeout, MILLISECONDS);
+        return objectIdPool;
+    }
+}
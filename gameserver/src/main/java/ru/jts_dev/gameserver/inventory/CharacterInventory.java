@@ -60,6 +60,10 @@ public class CharacterInventory {
         items.add(item);
     }
 
+    final synchronized boolean removeItem(final GameItem item) {
+        return items.remove(item);
+    }
+
     final synchronized void forEach(final Consumer<GameItem> consumer) {
         items.forEach(consumer);
     }
@@ -23,12 +23,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import ru.jts_dev.common.id.IdPool;
 import ru.jts_dev.gameserver.constants.ItemClass;
 import ru.jts_dev.gameserver.model.GameCharacter;
 import ru.jts_dev.gameserver.model.GameItem;
 import ru.jts_dev.gameserver.parser.data.item.ItemData;
 import ru.jts_dev.gameserver.parser.data.item.ItemDatasHolder;
+import ru.jts_dev.gameserver.world.World;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -43,12 +43,14 @@ import java.util.stream.Collectors;
 public class InventoryService {
     private static final Logger log = LoggerFactory.getLogger(InventoryService.class);
 
-    private final IdPool itemIdPool;
+    private final ItemObjectIdService itemObjectIdService;
     private final ItemDatasHolder itemDatasHolder;
+    private final World world;
 
     @Autowired
-    public InventoryService(IdPool itemIdPool, ItemDatasHolder itemDatasHolder) {
-        this.itemIdPool = itemIdPool;
+    public InventoryService(ItemObjectIdService itemObjectIdService, ItemDatasHolder itemDatasHolder, World world) {
+        this.itemObjectIdService = itemObjectIdService;
+        this.world = world;
         this.itemDatasHolder = itemDatasHolder;
     }
 
@@ -69,6 +71,7 @@ public class InventoryService {
 
     /**
      * Create new {@link GameItem} and add it to character inventory.
+     * Item receives object id and is registered in {@link World}, if character is in world.
      *
      * @param character - character, which receive item
      * @param itemId    - itemId, of added item
@@ -76,35 +79,98 @@ public class InventoryService {
     public void giveItem(final GameCharacter character, final int itemId) {
         GameItem gameItem = createGameItem(itemId);
 
-        character.getInventory().giveItem(gameItem);
+        synchronized (character.getInventory()) {
+            character.getInventory().giveItem(gameItem);
+            if (world.contains(character)) {
+                itemObjectIdService.assign(gameItem);
+                world.register(gameItem);
+            }
+        }
     }
 
     /**
      * Creates and add list of items to character.
      * Synchronize {@link CharacterInventory} for performing atomic {@link #giveItem(GameCharacter, int)} operation.
+     * Object ids of all items are borrowed at once, if character is in world.
      *
      * @param character - character, which receive item
      * @param itemIds   - list of itemIds, which will be added to character
      */
     public void giveItems(final GameCharacter character, final List<Integer> itemIds) {
+        final List<GameItem> gameItems = itemIds.stream()
+                .map(this::createGameItem)
+                .collect(Collectors.toList());
+
         synchronized (character.getInventory()) {
-            for (final int itemId : itemIds) {
-                giveItem(character, itemId);
+            gameItems.forEach(character.getInventory()::giveItem);
+            if (world.contains(character)) {
+                itemObjectIdService.assignAll(gameItems);
+                gameItems.forEach(world::register);
             }
         }
     }
 
+    /**
+     * Remove item from character inventory and release it's object id.
+     * Item must not be used after destroy.
+     *
+     * @param character - character, which item will be destroyed
+     * @param item      - destroyed item
+     * @return - true, if item was in character inventory
+     */
+    public boolean destroyItem(final GameCharacter character, final GameItem item) {
+        if (!character.getInventory().removeItem(item)) {
+            return false;
+        }
+
+        world.unregister(item);
+        itemObjectIdService.release(item);
+        return true;
+    }
+
+    /**
+     * Assign object ids to all character items and register them in {@link World}, after character entered world.
+     * Inventory of character must be initialized, see
+     * {@link ru.jts_dev.gameserver.repository.GameCharacterRepository#findWithInventoryById(int)}.
+     *
+     * @param character - character, which entered world
+     */
+    public void enterWorld(final GameCharacter character) {
+        synchronized (character.getInventory()) {
+            // items, given after character entered world, already have object ids
+            final List<GameItem> items = character.getInventory().getItems().stream()
+                    .filter(item -> item.getObjectId() == 0)
+                    .collect(Collectors.toList());
+
+            itemObjectIdService.assignAll(items);
+            items.forEach(world::register);
+        }
+    }
+
+    /**
+     * Unregister all character items and release their object ids, when character is unloaded from world.
+     * Inventory of character must not be used after unload.
+     *
+     * @param character - unloaded character
+     */
+    public void unload(final GameCharacter character) {
+        synchronized (character.getInventory()) {
+            character.getInventory().forEach(world::unregister);
+            itemObjectIdService.releaseAll(character.getInventory().getItems());
+        }
+    }
+
+    // object id is assigned, when item enters world
     private GameItem createGameItem(final int itemId) {
         assert itemDatasHolder.getItemData().containsKey(itemId);
 
         final ItemData itemData = itemDatasHolder.getItemData().get(itemId);
 
-        final GameItem gameItem = new GameItem(itemIdPool.borrow(), itemData);
+        final GameItem gameItem = new GameItem(0, itemData);
 
-        log.trace("Created new item({}) with itemId {} and objectId {}",
+        log.trace("Created new item({}) with itemId {}",
                 gameItem.getItemData().getName(),
-                gameItem.getItemData().getItemId(),
-                gameItem.getObjectId());
+                gameItem.getItemData().getItemId());
 
         return gameItem;
     }
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.gameserver.inventory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.jts_dev.common.id.IdPool;
+import ru.jts_dev.gameserver.model.GameItem;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Object ids of items. Ids are assigned, when items of character enter world, or item is given to character
+ * in world, and are released explicitly, when item is destroyed, or unloaded with character inventory.
+ * Items of characters, which aren't in world, have no object ids.
+ * <p>
+ * Each tracked item has phantom reference, so id of item, which became unreachable without release,
+ * is released after garbage collection, and counted as leaked. Explicit release clears reference,
+ * so id is released once, and items don't need finalization.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+@Service
+@ManagedResource(objectName = "ru.jts_dev.gameserver:type=ItemObjectIdService", description = "Item object ids")
+public class ItemObjectIdService {
+    private static final Logger log = LoggerFactory.getLogger(ItemObjectIdService.class);
+
+    private final IdPool objectIdPool;
+    private final ReferenceQueue<GameItem> queue = new ReferenceQueue<>();
+    // references must be reachable, until they are enqueued
+    private final Set<ObjectIdReference> references = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder released = new LongAdder();
+    private final LongAdder leaked = new LongAdder();
+
+    @Autowired
+    public ItemObjectIdService(@Qualifier("objectIdPool") IdPool objectIdPool) {
+        this.objectIdPool = objectIdPool;
+    }
+
+    /**
+     * Assign new object id to item
+     *
+     * @param item - item without object id
+     */
+    public void assign(GameItem item) {
+        track(item, objectIdPool.borrow());
+    }
+
+    /**
+     * Assign new object ids to items, ids are borrowed at once
+     *
+     * @param items - items without object ids
+     */
+    public void assignAll(Collection<GameItem> items) {
+        final int[] objectIds = objectIdPool.borrowBatch(items.size());
+        int i = 0;
+        for (final GameItem item : items) {
+            track(item, objectIds[i++]);
+        }
+    }
+
+    // object id is tracked, until it's released
+    private void track(GameItem item, int objectId) {
+        item.setObjectId(objectId);
+        final ObjectIdReference reference = new ObjectIdReference(item, objectId, queue);
+        references.add(reference);
+        item.setObjectIdReference(reference);
+    }
+
+    /**
+     * Release object id of destroyed or unloaded item, item must not be used after release
+     *
+     * @param item - item with object id, repeated release is ignored
+     */
+    public void release(GameItem item) {
+        final ObjectIdReference reference = untrack(item);
+        if (reference != null) {
+            objectIdPool.release(reference.objectId);
+            released.increment();
+        }
+    }
+
+    /**
+     * Release object ids of items at once, as {@link #release(GameItem)}
+     *
+     * @param items - items, items without object ids are ignored
+     */
+    public void releaseAll(Collection<GameItem> items) {
+        final int[] objectIds = new int[items.size()];
+        int count = 0;
+        for (final GameItem item : items) {
+            final ObjectIdReference reference = untrack(item);
+            if (reference != null) {
+                objectIds[count++] = reference.objectId;
+            }
+        }
+        objectIdPool.releaseBatch(count == objectIds.length ? objectIds : Arrays.copyOf(objectIds, count));
+        released.add(count);
+    }
+
+    /**
+     * Release object ids of items, which were collected without release
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void releaseLeaked() {
+        int count = 0;
+        Reference<? extends GameItem> reference;
+        while ((reference = queue.poll()) != null) {
+            if (references.remove(reference)) {
+                objectIdPool.release(((ObjectIdReference) reference).objectId);
+                count++;
+            }
+        }
+
+        if (count > 0) {
+            leaked.add(count);
+            log.warn("Released {} object ids of items, which weren't destroyed or unloaded", count);
+        }
+    }
+
+    private ObjectIdReference untrack(GameItem item) {
+        final ObjectIdReference reference = (ObjectIdReference) item.removeObjectIdReference();
+        if (reference == null || !references.remove(reference)) {
+            return null;
+        }
+        // isn't enqueued anymore
+        reference.clear();
+        return reference;
+    }
+
+    @ManagedAttribute(description = "Count of items with object ids")
+    public int getTracked() {
+        return references.size();
+    }
+
+    @ManagedAttribute(description = "Count of explicitly released object ids")
+    public long getReleased() {
+        return released.sum();
+    }
+
+    @ManagedAttribute(description = "Count of object ids, released after garbage collection of items")
+    public long getLeaked() {
+        return leaked.sum();
+    }
+
+    private static final class ObjectIdReference extends PhantomReference<GameItem> {
+        private final int objectId;
+
+        private ObjectIdReference(GameItem item, int objectId, ReferenceQueue<GameItem> queue) {
+            super(item, queue);
+            this.objectId = objectId;
+        }
+    }
+}
@@ -35,13 +35,14 @@ import static ru.jts_dev.gameserver.packets.out.CharacterCreateFail.REASON_CREAT
  * @since 13.12.15
  */
 @Entity
-public class GameCharacter {
+public class GameCharacter implements WorldObject {
     @Id
     @GeneratedValue
     private int id;
 
+    // assigned, when character enters world
     @Transient
-    private int objectId = 10; // should be auto-generated
+    private int objectId;
 
     @Pattern(regexp = "[A-Za-z0-9]{4,16}", message = "4-16 ENG symbols")
     @Column(unique = true)
@@ -121,6 +122,10 @@ public class GameCharacter {
         return maxMp;
     }
 
+    public int getId() {
+        return id;
+    }
+
     public String getAccountName() {
         return accountName;
     }
@@ -137,10 +142,15 @@ public class GameCharacter {
         this.name = name;
     }
 
+    @Override
     public int getObjectId() {
         return objectId;
     }
 
+    public void setObjectId(int objectId) {
+        this.objectId = objectId;
+    }
+
     public String getLogin() {
         return accountName;
     }
@@ -19,12 +19,13 @@
 
 package ru.jts_dev.gameserver.model;
 
-import ru.jts_dev.common.id.IdPool;
 import ru.jts_dev.gameserver.GameServerApplication;
+import ru.jts_dev.gameserver.inventory.ItemObjectIdService;
 import ru.jts_dev.gameserver.parser.data.item.ItemData;
 import ru.jts_dev.gameserver.parser.data.item.ItemDatasHolder;
 
 import javax.persistence.*;
+import java.lang.ref.PhantomReference;
 
 /**
  * This class represent single character item. It has two main parts:
@@ -34,12 +35,15 @@ import javax.persistence.*;
  * <p>
  * Creation of new item available through {@link #GameItem(int, ItemData)} constructor,
  * It is strongly recommended to create new item using {@link ru.jts_dev.gameserver.inventory.InventoryService}.
+ * <p>
+ * Object id is assigned, when owner of item enters world, and is returned to pool,
+ * when item is destroyed or unloaded, see {@link ItemObjectIdService}.
  *
  * @author Camelion
  * @since 17.01.16
  */
 @Entity
-public class GameItem {
+public class GameItem implements WorldObject {
     @Transient
     private int objectId;
     @Id
@@ -53,6 +57,8 @@ public class GameItem {
     private boolean equipped;
     @Transient
     private ItemData itemData;
+    @Transient
+    private PhantomReference<GameItem> objectIdReference;
 
     /**
      * this constructor used only for JPA purposes, and can't be accessed externally
@@ -65,6 +71,7 @@ public class GameItem {
         this.itemData = itemData;
     }
 
+    @Override
     public final int getObjectId() {
         return objectId;
     }
@@ -105,22 +112,28 @@ public class GameItem {
         itemData = itemDatasHolder.getItemData().get(itemId);
     }
 
-    @PostLoad
-    public void postLoad() {
-        final IdPool idPool = GameServerApplication.getBean("itemIdPool", IdPool.class);
-        objectId = idPool.borrow();
+    /**
+     * @param objectId - object id, borrowed by {@link ItemObjectIdService}
+     */
+    public final void setObjectId(final int objectId) {
+        this.objectId = objectId;
+    }
+
+    /**
+     * @param reference - reference, which releases object id, if item becomes unreachable without release
+     */
+    public final synchronized void setObjectIdReference(final PhantomReference<GameItem> reference) {
+        objectIdReference = reference;
     }
 
     /**
-     * We should return {@code objectId} back to pool, because it not be needed anymore.
+     * Object id is released once, so reference is removed from item.
      *
-     * @throws Throwable
+     * @return - reference of object id, or {@code null}, if object id is already released, or isn't tracked
      */
-    @Override
-    protected void finalize() throws Throwable {
-        final IdPool idPool = GameServerApplication.getBean("itemIdPool", IdPool.class);
-        idPool.release(objectId);
-
-        super.finalize();
+    public final synchronized PhantomReference<GameItem> removeObjectIdReference() {
+        final PhantomReference<GameItem> reference = objectIdReference;
+        objectIdReference = null;
+        return reference;
     }
 }
@@ -21,28 +21,32 @@ package ru.jts_dev.gameserver.model;
 
 import io.netty.buffer.ByteBuf;
 import org.springframework.integration.ip.tcp.connection.TcpConnection;
+import ru.jts_dev.gameserver.util.GameCipher;
 
 /**
  * @author Camelion
  * @since 13.12.15
  */
 public final class GameSession {
-    private static final int KEY_SIZE = 16;
     private final TcpConnection connection;
-    private final ByteBuf encryptKey;
-    private final ByteBuf decryptKey;
+    private final int handle;
+    private final GameCipher encryptCipher;
+    private final GameCipher decryptCipher;
 
     private int playKey;
+    private volatile boolean closed;
 
-    public GameSession(final TcpConnection connection, final ByteBuf encryptKey, final ByteBuf decryptKey) {
-        if (encryptKey.readableBytes() != KEY_SIZE)
+    public GameSession(final TcpConnection connection, final int handle,
+                       final ByteBuf encryptKey, final ByteBuf decryptKey) {
+        if (encryptKey.readableBytes() != GameCipher.KEY_SIZE)
             throw new RuntimeException("encryptKey must be 16 bytes");
-        if (decryptKey.readableBytes() != KEY_SIZE)
+        if (decryptKey.readableBytes() != GameCipher.KEY_SIZE)
             throw new RuntimeException("decryptKey must be 16 bytes");
 
         this.connection = connection;
-        this.encryptKey = encryptKey;
-        this.decryptKey = decryptKey;
+        this.handle = handle;
+        this.encryptCipher = new GameCipher(encryptKey);
+        this.decryptCipher = new GameCipher(decryptKey);
     }
 
     public TcpConnection getConnection() {
@@ -53,12 +57,31 @@ public final class GameSession {
         return connection.getConnectionId();
     }
 
-    public ByteBuf getEncryptKey() {
-        return encryptKey;
+    /**
+     * @return - connection handle of session, slot, tagged with generation
+     * @see ru.jts_dev.common.packets.IncomingMessageWrapper#getConnectionHandle()
+     */
+    public int getHandle() {
+        return handle;
     }
 
-    public ByteBuf getDecryptKey() {
-        return decryptKey;
+    /**
+     * @return - {@code true}, if connection is closed, session is still registered until close event is handled
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public void setClosed(final boolean closed) {
+        this.closed = closed;
+    }
+
+    public GameCipher getEncryptCipher() {
+        return encryptCipher;
+    }
+
+    public GameCipher getDecryptCipher() {
+        return decryptCipher;
     }
 
     public int getPlayKey() {
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.gameserver.packets;
+
+import io.netty.buffer.ByteBuf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.jts_dev.common.packets.IncomingMessageWrapper;
+import ru.jts_dev.common.packets.OutgoingMessageWrapper;
+import ru.jts_dev.common.tcp.NettyTcpConnection;
+import ru.jts_dev.common.tcp.PacketCodec;
+import ru.jts_dev.gameserver.model.GameSession;
+import ru.jts_dev.gameserver.packets.out.VersionCheck;
+import ru.jts_dev.gameserver.util.Encoder;
+
+/**
+ * Game client codec for netty transport, same transformations as in
+ * {@link ru.jts_dev.gameserver.config.GameIntegrationConfig#recvFlow()} and
+ * {@link ru.jts_dev.gameserver.config.GameIntegrationConfig#sendFlow} flows.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+@Component
+public class GameClientPacketCodec implements PacketCodec {
+    private final GameClientPacketHandler clientPacketHandler;
+    private final Encoder encoder;
+
+    @Autowired
+    public GameClientPacketCodec(GameClientPacketHandler clientPacketHandler, Encoder encoder) {
+        this.clientPacketHandler = clientPacketHandler;
+        this.encoder = encoder;
+    }
+
+    @Override
+    public IncomingMessageWrapper decode(NettyTcpConnection connection, ByteBuf frame) {
+        try {
+            final GameSession session = sessionOf(connection);
+
+            // no crypt for RequestProtocolVersion
+            if (frame.readableBytes() > 0 && frame.getByte(0) != 0x0E) {
+                encoder.decrypt(frame, session);
+            }
+
+            return clientPacketHandler.handle(frame, connection.getConnectionId(), session.getHandle());
+        } catch (RuntimeException e) {
+            frame.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public ByteBuf encode(NettyTcpConnection connection, OutgoingMessageWrapper msg) {
+        msg.write();
+
+        // TODO: 14.12.15 unencrypted LoginFail
+        if (msg instanceof VersionCheck) {
+            return msg.getPayload();
+        }
+
+        if (msg.isShared()) {
+            return encoder.encryptCopy(msg.getPayload(), sessionOf(connection));
+        }
+
+        return encoder.encrypt(msg.getPayload(), sessionOf(connection));
+    }
+
+    private GameSession sessionOf(NettyTcpConnection connection) {
+        final Object attachment = connection.getAttachment();
+        if (attachment instanceof GameSession) {
+            return (GameSession) attachment;
+        }
+
+        return encoder.getSession(connection.getConnectionId());
+    }
+}
@@ -22,31 +22,40 @@ package ru.jts_dev.gameserver.packets;
 import io.netty.buffer.ByteBuf;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.context.ApplicationContext;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
+import ru.jts_dev.common.packets.IncomingMessageFactory;
 import ru.jts_dev.common.packets.IncomingMessageWrapper;
 
-import javax.annotation.PostConstruct;
 import java.util.HashMap;
 import java.util.Map;
 
 import static org.springframework.integration.ip.IpHeaders.CONNECTION_ID;
-import static ru.jts_dev.gameserver.packets.Opcode.CLIENT_SWITCH_OPCODE;
 
 /**
  * @author Camelion
  * @since 12.12.15
  */
 @Component
-public class GameClientPacketHandler {
-    private static final int BYTES_COUNT = -Byte.MIN_VALUE + Byte.MAX_VALUE;
+public class GameClientPacketHandler implements SmartInitializingSingleton {
+    private static final int OPCODES_COUNT = 0x100;
     private static final Logger log = LoggerFactory.getLogger(GameClientPacketHandler.class);
 
     private final ApplicationContext context;
 
-    private Map<Integer, Object> packets;
+    /**
+     * packet factories, indexed by first (or single) part of packet identifier
+     */
+    private IncomingMessageFactory[] packets;
+    /**
+     * packet factories, indexed by first and second part of packet identifier,
+     * {@code null} for first opcodes without second part
+     */
+    private IncomingMessageFactory[][] extendedPackets;
 
     @Autowired
     public GameClientPacketHandler(ApplicationContext context) {
@@ -54,18 +63,20 @@ public class GameClientPacketHandler {
     }
 
     /**
-     * Find beans with {@link Opcode} annotation, and put it to {@link #packets} map
-     * where key is 'first' (or single) part of packet identifier
-     * and value is a bean name of packet or {@link Map} with 'second' part of
-     * packet identifier as key, and packet bean name as value
+     * Find beans with {@link Opcode} annotation, and put factories of it to {@link #packets} array,
+     * where index is 'first' (or single) part of packet identifier,
+     * or to {@link #extendedPackets} array, where second index is 'second' part of packet identifier.
+     * Called after all singletons are created, because packets dependencies are resolved once here.
      *
-     * @see IncomingMessageWrapper
+     * @see IncomingMessageFactory
      */
-    @PostConstruct
-    private void postConstruct() {
+    @Override
+    public void afterSingletonsInstantiated() {
         final String[] packetBeanNames = context.getBeanNamesForAnnotation(Opcode.class);
+        final AutowireCapableBeanFactory beanFactory = context.getAutowireCapableBeanFactory();
 
-        packets = new HashMap<>(BYTES_COUNT, 1.0f);
+        final IncomingMessageFactory[] packets = new IncomingMessageFactory[OPCODES_COUNT];
+        final Map<Integer, Map<Integer, IncomingMessageFactory>> secondOpcodesMaps = new HashMap<>();
         for (final String beanName : packetBeanNames) {
             final Opcode opcode = context.findAnnotationOnBean(beanName, Opcode.class);
 
@@ -73,22 +84,35 @@ public class GameClientPacketHandler {
 
             final int firstOpcode = opcode.first();
             final int secondOpcode = opcode.second();
+            final IncomingMessageFactory factory = IncomingMessageFactory.forBean(beanFactory, beanName);
             if (secondOpcode != Integer.MIN_VALUE) {
-                final Map<Integer, Object> secondOpcodesMap =
-                        (Map<Integer, Object>) packets.getOrDefault(firstOpcode, new HashMap<Integer, Object>());
+                final Map<Integer, IncomingMessageFactory> secondOpcodesMap =
+                        secondOpcodesMaps.computeIfAbsent(firstOpcode, k -> new HashMap<>());
 
                 assert !secondOpcodesMap.containsKey(secondOpcode)
                         : "duplicate second opcode for " + beanName + ", old is " + secondOpcodesMap.get(secondOpcode);
 
-                secondOpcodesMap.put(secondOpcode, beanName);
-                packets.putIfAbsent(firstOpcode, secondOpcodesMap);
+                secondOpcodesMap.put(secondOpcode, factory);
+            } else {
+                assert packets[firstOpcode] == null
+                        : "duplicate first opcode for " + beanName + ", old is " + packets[firstOpcode].getBeanName();
+
+                packets[firstOpcode] = factory;
             }
+        }
 
-            assert firstOpcode == CLIENT_SWITCH_OPCODE || !packets.containsKey(firstOpcode)
-                    : "duplicate first opcode for " + beanName + ", old is " + packets.get(firstOpcode);
+        final IncomingMessageFactory[][] extendedPackets = new IncomingMessageFactory[OPCODES_COUNT][];
+        for (final Map.Entry<Integer, Map<Integer, IncomingMessageFactory>> entry : secondOpcodesMaps.entrySet()) {
+            final Map<Integer, IncomingMessageFactory> secondOpcodesMap = entry.getValue();
+            final int length = secondOpcodesMap.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1;
 
-            packets.putIfAbsent(firstOpcode, beanName);
+            final IncomingMessageFactory[] secondPackets = new IncomingMessageFactory[length];
+            secondOpcodesMap.forEach((secondOpcode, factory) -> secondPackets[secondOpcode] = factory);
+            extendedPackets[entry.getKey()] = secondPackets;
         }
+
+        this.packets = packets;
+        this.extendedPackets = extendedPackets;
     }
 
     /**
@@ -99,34 +123,46 @@ public class GameClientPacketHandler {
      * @return - handled packet
      */
     public IncomingMessageWrapper handle(ByteBuf buf, @Header(CONNECTION_ID) String connectionId) {
+        return handle(buf, connectionId, IncomingMessageWrapper.NO_HANDLE);
+    }
+
+    /**
+     * Handle incoming packet by first bytes (opcode)
+     *
+     * @param buf              - packet data
+     * @param connectionId     - client connectionId
+     * @param connectionHandle - client connection handle, attached to packet
+     * @return - handled packet
+     */
+    public IncomingMessageWrapper handle(ByteBuf buf, String connectionId, int connectionHandle) {
         if (buf.readableBytes() == 0)
             throw new RuntimeException("At least 1 readable byte excepted in buffer");
 
         int opcode = buf.readUnsignedByte();
 
-        if (!packets.containsKey(opcode))
-            throw new RuntimeException("Invalid first packet opcode: " + String.format("0x%02X", (byte) opcode));
-
-        IncomingMessageWrapper msg;
+        final IncomingMessageFactory factory;
+        final IncomingMessageFactory[] secondPackets = extendedPackets[opcode];
+        if (secondPackets == null) {
+            factory = packets[opcode];
 
-        Object node = packets.get(opcode);
-        if (node instanceof String) {
-            msg = context.getBean((String) node, IncomingMessageWrapper.class);
-        } else { // (node instanceof Map)
+            if (factory == null)
+                throw new RuntimeException("Invalid first packet opcode: " + String.format("0x%02X", (byte) opcode));
+        } else {
             opcode = buf.readUnsignedShort();
 
-            if (!((Map) node).containsKey(opcode))
+            if (opcode >= secondPackets.length || secondPackets[opcode] == null)
                 throw new RuntimeException("Invalid second packet opcode: " + String.format("0x%02X", (byte) opcode));
 
-            node = ((Map) node).get(opcode);
-            msg = context.getBean((String) node, IncomingMessageWrapper.class);
+            factory = secondPackets[opcode];
         }
 
+        final IncomingMessageWrapper msg = factory.create();
         ByteBuf data = buf.slice();
 
         log.debug("received packet: {}, length: {}", msg.getClass().getSimpleName(), data.readableBytes());
 
         msg.getHeaders().put(CONNECTION_ID, connectionId);
+        msg.setConnectionHandle(connectionHandle);
         msg.setPayload(data);
 
         return msg;
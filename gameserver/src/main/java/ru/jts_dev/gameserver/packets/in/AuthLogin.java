@@ -27,10 +27,12 @@ import ru.jts_dev.gameserver.model.GameCharacter;
 import ru.jts_dev.gameserver.model.GameSession;
 import ru.jts_dev.gameserver.packets.Opcode;
 import ru.jts_dev.gameserver.packets.out.CharacterSelectionInfo;
+import ru.jts_dev.gameserver.packets.out.LoginFail;
 import ru.jts_dev.gameserver.repository.GameCharacterRepository;
 import ru.jts_dev.gameserver.service.BroadcastService;
 import ru.jts_dev.gameserver.service.GameSessionService;
 import ru.jts_dev.gameserver.service.GameSessionService.AccountEvent;
+import ru.jts_dev.gameserver.service.SessionKeyService;
 
 import java.util.List;
 
@@ -62,6 +64,9 @@ public class AuthLogin extends IncomingMessageWrapper {
     @Autowired
     private GameServerConfig gameServerConfig;
 
+    @Autowired
+    private SessionKeyService sessionKeyService;
+
     @Override
     public final void prepare() {
         login = readString();
@@ -74,14 +79,23 @@ public class AuthLogin extends IncomingMessageWrapper {
 
     @Override
     public final void run() {
-        final GameSession session = sessionService.getSessionBy(getConnectionId());
+        final GameSession session = sessionService.getSessionBy(getConnectionHandle());
+        if (session == null)
+            return;
+
+        // keys are pushed by auth server, when client selected this server
+        if (!sessionKeyService.validate(login, loginKey1, loginKey2, playKey1, playKey2)) {
+            broadcastService.send(session, new LoginFail(LoginFail.REASON_ACCESS_FAILED));
+            sessionService.forcedClose(session);
+            return;
+        }
+
         session.setPlayKey(playKey1);
 
         publisher.publishEvent(new AccountEvent(getConnectionId(), login));
 
         final List<GameCharacter> characters = repository.findAllByAccountName(login);
 
-        // TODO: 13.12.15 additional playkey check with authserver session keys
         broadcastService.send(session,
                 new CharacterSelectionInfo(characters, session.getPlayKey(), gameServerConfig.isCharCreationDisabled()));
     }
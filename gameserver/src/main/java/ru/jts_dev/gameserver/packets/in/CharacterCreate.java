@@ -123,7 +123,7 @@ public class CharacterCreate extends IncomingMessageWrapper {
 
     @Override
     public void run() {
-        final GameSession session = sessionService.getSessionBy(getConnectionId());
+        final GameSession session = sessionService.getSessionBy(getConnectionHandle());
         final String login = sessionService.getAccountBy(getConnectionId());
         final Set<ConstraintViolation<CharacterCreate>> errors = validator.validate(this);
 
@@ -76,7 +76,7 @@ public class CharacterSelect extends IncomingMessageWrapper {
 
     @Override
     public void run() {
-        final GameSession session = sessionService.getSessionBy(getConnectionId());
+        final GameSession session = sessionService.getSessionBy(getConnectionHandle());
 
         final String account = sessionService.getAccountBy(getConnectionId());
         final List<GameCharacter> characters = repository.findAllByAccountName(account);
@@ -88,9 +88,14 @@ public class CharacterSelect extends IncomingMessageWrapper {
 
         logger.debug(toString());
 
-        final GameCharacter character = characters.get(characterIndex);
+        // characters of list are detached, selected character is loaded with inventory
+        final GameCharacter character = repository.findWithInventoryById(characters.get(characterIndex).getId());
+        if (character == null) {
+            sessionService.forcedClose(session);
+            return;
+        }
 
-        publisher.publishEvent(new CharacterSelectedEvent(getConnectionId(), character));
+        publisher.publishEvent(new CharacterSelectedEvent(session, character));
 
         broadcastService.send(session, SSQInfo.NOTHING);
 
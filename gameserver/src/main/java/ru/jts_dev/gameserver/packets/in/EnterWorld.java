@@ -75,8 +75,8 @@ public class EnterWorld extends IncomingMessageWrapper {
 
     @Override
     public void run() {
-        final GameSession session = sessionService.getSessionBy(getConnectionId());
-        final GameCharacter character = playerService.getCharacterBy(getConnectionId());
+        final GameSession session = sessionService.getSessionBy(getConnectionHandle());
+        final GameCharacter character = playerService.getCharacterBy(getConnectionHandle());
 
         // TODO: 03.01.16 ExQuestItemList packet, ShortCutInit, BookMarkInfo, BasicAction, QuestList, EtcStatusUpdate, StorageMaxCount, FriendList,
         // TODO: 03.01.16 System Message : Welcome to Lineage, SkillCoolTime, ExVoteSystemInfo, Spawn player,
@@ -55,7 +55,7 @@ public class GotoLobby extends IncomingMessageWrapper {
 
     @Override
     public void run() {
-        final GameSession session = sessionService.getSessionBy(getConnectionId());
+        final GameSession session = sessionService.getSessionBy(getConnectionHandle());
         final String accountName = sessionService.getAccountBy(getConnectionId());
         final List<GameCharacter> characters = repository.findAllByAccountName(accountName);
 
@@ -46,7 +46,7 @@ public class Logout extends IncomingMessageWrapper {
     @Override
     public void run() {
         // client close session by himself
-        final GameSession session = sessionService.getSessionBy(getConnectionId());
+        final GameSession session = sessionService.getSessionBy(getConnectionHandle());
         broadcastService.send(session, LeaveWorld.PACKET);
         sessionService.forcedClose(session);
     }
@@ -74,8 +74,8 @@ public final class MoveBackwardToLocation extends IncomingMessageWrapper {
         }
 
         // TODO: 06.01.16
-        final GameSession session = sessionService.getSessionBy(getConnectionId());
-        final GameCharacter character = playerService.getCharacterBy(getConnectionId());
+        final GameSession session = sessionService.getSessionBy(getConnectionHandle());
+        final GameCharacter character = playerService.getCharacterBy(getConnectionHandle());
         final Vector3D end = new Vector3D(targetX, targetY, targetZ);
 
         movementService.stopMovement(character);
@@ -28,6 +28,8 @@ import ru.jts_dev.gameserver.packets.out.VersionCheck;
 import ru.jts_dev.gameserver.service.BroadcastService;
 import ru.jts_dev.gameserver.service.GameSessionService;
 
+import java.util.Arrays;
+
 /**
  * @author Camelion
  * @since 12.12.15
@@ -50,9 +52,9 @@ public class RequestProtocolVersion extends IncomingMessageWrapper {
 
     @Override
     public void run() {
-        GameSession session = sessionService.getSessionBy(getConnectionId());
+        GameSession session = sessionService.getSessionBy(getConnectionHandle());
 
-        byte[] key = session.getDecryptKey().copy(0, 8).array();
+        byte[] key = Arrays.copyOf(session.getDecryptCipher().getKey(), 8);
         if (key.length != 8)
             throw new IndexOutOfBoundsException("client part of key must be 8 byte");
 
@@ -64,8 +64,8 @@ public class Say2C extends IncomingMessageWrapper {
 
     @Override
     public void run() {
-        final GameSession session = sessionService.getSessionBy(getConnectionId());
-        final GameCharacter character = playerService.getCharacterBy(getConnectionId());
+        final GameSession session = sessionService.getSessionBy(getConnectionHandle());
+        final GameCharacter character = playerService.getCharacterBy(getConnectionHandle());
 
         if (type == null) {
             log.warn("Say2: Invalid type: {} Player : {} text: {}", type, character.getName(), text);
@@ -57,8 +57,8 @@ public class ValidatePosition extends IncomingMessageWrapper {
     @Override
     public void run() {
         // TODO
-        /*final GameSession session = sessionService.getSessionBy(getConnectionId());
-        final GameCharacter character = playerService.getCharacterBy(getConnectionId());
+        /*final GameSession session = sessionService.getSessionBy(getConnectionHandle());
+        final GameCharacter character = playerService.getCharacterBy(getConnectionHandle());
 
         final int clientHeading = rotationUtils.convertAngleToClientHeading((int) character.getAngle());
         broadcastService.send(session, new ValidateLocation(character, clientHeading));*/
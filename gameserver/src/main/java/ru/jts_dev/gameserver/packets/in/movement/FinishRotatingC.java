@@ -59,8 +59,8 @@ public class FinishRotatingC extends IncomingMessageWrapper {
 
     @Override
     public void run() {
-        GameSession session = sessionService.getSessionBy(getConnectionId());
-        GameCharacter character = playerService.getCharacterBy(getConnectionId());
+        GameSession session = sessionService.getSessionBy(getConnectionHandle());
+        GameCharacter character = playerService.getCharacterBy(getConnectionHandle());
 
         // TODO broadcastService.broadcast(character, new FinishRotating(character, degree, 0));
         broadcastService.send(session, new FinishRotating(character, degree, 0));
@@ -62,8 +62,8 @@ public class StartRotatingC extends IncomingMessageWrapper {
 
     @Override
     public void run() {
-        GameSession session = sessionService.getSessionBy(getConnectionId());
-        GameCharacter character = playerService.getCharacterBy(getConnectionId());
+        GameSession session = sessionService.getSessionBy(getConnectionHandle());
+        GameCharacter character = playerService.getCharacterBy(getConnectionHandle());
 
         /*Rotation oldRotation = character.getRotation();
         double angle = rotationUtils.convertClientHeadingToAngle(heading);
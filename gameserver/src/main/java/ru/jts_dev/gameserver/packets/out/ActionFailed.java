@@ -19,16 +19,19 @@
 
 package ru.jts_dev.gameserver.packets.out;
 
-import ru.jts_dev.common.packets.OutgoingMessageWrapper;
+import ru.jts_dev.common.packets.StaticOutgoingMessageWrapper;
 
 /**
  * @author Java-man
  * @since 12.01.2016
  */
-public class ActionFailed extends OutgoingMessageWrapper {
+public class ActionFailed extends StaticOutgoingMessageWrapper {
     public static final ActionFailed PACKET = new ActionFailed();
 
+    private static final int SIZE_HINT = 1;
+
     private ActionFailed() {
+        super(SIZE_HINT);
     }
 
     @Override
@@ -30,11 +30,14 @@ import java.util.List;
  */
 public class CharacterSelectionInfo extends OutgoingMessageWrapper {
     private static final int MAX_CHARACTERS_CREATE_SIZE = 7;
+    private static final int HEADER_SIZE_HINT = 16;
+    private static final int CHARACTER_SIZE_HINT = 400;
     private final List<GameCharacter> characters;
     private final int playKey;
     private final boolean charCreationDisabled;
 
     public CharacterSelectionInfo(List<GameCharacter> characters, int playKey, boolean charCreationDisabled) {
+        super(HEADER_SIZE_HINT + characters.size() * CHARACTER_SIZE_HINT);
         this.characters = characters;
         this.playKey = playKey;
         this.charCreationDisabled = charCreationDisabled;
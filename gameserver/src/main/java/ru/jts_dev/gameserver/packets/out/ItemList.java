@@ -32,6 +32,9 @@ import java.util.stream.Collectors;
  */
 public final class ItemList extends OutgoingMessageWrapper {
 
+    private static final int HEADER_SIZE_HINT = 8;
+    private static final int ITEM_SIZE = 68;
+
     private final List<GameItem> items;
     private final boolean silent;
 
@@ -43,6 +46,8 @@ public final class ItemList extends OutgoingMessageWrapper {
      * @param silent - if {@code true}, inventory not will be showed
      */
     public ItemList(final List<GameItem> items, final boolean silent) {
+        super(HEADER_SIZE_HINT + items.size() * ITEM_SIZE);
+
         assert items.stream()
                 .filter(item -> item.getItemData().getItemClass() == ItemClass.QUESTITEM)
                 .collect(Collectors.toList()).isEmpty();
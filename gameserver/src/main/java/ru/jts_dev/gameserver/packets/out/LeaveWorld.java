@@ -19,16 +19,19 @@
 
 package ru.jts_dev.gameserver.packets.out;
 
-import ru.jts_dev.common.packets.OutgoingMessageWrapper;
+import ru.jts_dev.common.packets.StaticOutgoingMessageWrapper;
 
 /**
  * @author Camelion
  * @since 20.12.15
  */
-public class LeaveWorld extends OutgoingMessageWrapper {
+public class LeaveWorld extends StaticOutgoingMessageWrapper {
     public static final LeaveWorld PACKET = new LeaveWorld();
 
+    private static final int SIZE_HINT = 1;
+
     private LeaveWorld() {
+        super(SIZE_HINT);
     }
 
     @Override
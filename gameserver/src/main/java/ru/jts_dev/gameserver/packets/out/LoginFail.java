@@ -31,6 +31,8 @@ import java.util.Map;
 public class LoginFail extends OutgoingMessageWrapper {
     public static final String PASSWORD_DOES_NOT_MATCH_THIS_ACCOUNT = "PASSWORD_DOES_NOT_MATCH_THIS_ACCOUNT";
 
+    public static final int REASON_ACCESS_FAILED = 0x04;
+
     public static final Map<String, LoginFail> ERRORS = new HashMap<>();
 
     static {
@@ -39,7 +41,7 @@ public class LoginFail extends OutgoingMessageWrapper {
 
     private int errorCode;
 
-    private LoginFail(int errorCode) {
+    public LoginFail(int errorCode) {
         this.errorCode = errorCode;
     }
 
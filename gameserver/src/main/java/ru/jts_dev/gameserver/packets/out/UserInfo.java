@@ -34,11 +34,13 @@ import static ru.jts_dev.gameserver.parser.impl.PcParametersHolder.RADIUS;
  * @since 03.01.16
  */
 public class UserInfo extends OutgoingMessageWrapper {
+    private static final int SIZE_HINT = 1024;
 
     private final GameCharacter character;
     private final List<Double> collisions;
 
     public UserInfo(final GameCharacter character, final List<Double> collisions) {
+        super(SIZE_HINT);
         this.character = character;
         this.collisions = collisions;
     }
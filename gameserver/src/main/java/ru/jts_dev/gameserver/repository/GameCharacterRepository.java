@@ -67,6 +67,18 @@ public interface GameCharacterRepository extends CrudRepository<GameCharacter, I
      */
     List<GameCharacter> findAllByAccountName(String accountName);
 
+    /**
+     * Find character with initialized inventory, for character, which enters world.
+     * Characters of {@link #findAllByAccountName(String)} have lazy inventory, which can't be initialized,
+     * after they are detached.
+     *
+     * @param id - id of character
+     * @return - character with items, or {@code null}
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT c FROM GameCharacter c LEFT JOIN FETCH c.inventory.items WHERE c.id = :id")
+    GameCharacter findWithInventoryById(@Param("id") int id);
+
     /**
      * Hits before {@link GameCharacterRepository#save(Object)}
      * sets lastUsed field false for all characters
@@ -19,29 +19,64 @@
 
 package ru.jts_dev.gameserver.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jms.JmsException;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.stereotype.Service;
 import ru.jts_dev.common.messaging.GameServerInfo;
+import ru.jts_dev.common.packets.SessionOrderedExecutor;
 import ru.jts_dev.gameserver.config.GameServerConfig;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
+ * Registers game server in auth server, and sends its status periodically, as heartbeat.
+ * Heartbeat carries online players, queued client packets and tick lag - delay of heartbeat task
+ * in game scheduler, which is shared with other game tasks.
+ *
  * @author Camelion
  * @since 09.12.15
  */
 @Service
 public class AuthServerService {
+    private static final Logger log = LoggerFactory.getLogger(AuthServerService.class);
+
     private final JmsTemplate jmsTemplate;
     private final GameServerConfig gameServerConfig;
+    private final PlayerService playerService;
+    private final SessionOrderedExecutor packetExecutor;
+    private final ScheduledExecutorService scheduler;
+
+    @Value("${gameserver.heartbeat.interval:5000}")
+    private long heartbeatInterval;
+    @Value("${gameserver.max-players:1000}")
+    private int maxPlayers;
+
+    private GameServerInfo status;
+    private long nextHeartbeat;
+    // guarded by this
+    private ScheduledFuture<?> heartbeatFuture;
+    private boolean stopped;
 
     @Autowired
-    public AuthServerService(JmsTemplate jmsTemplate, GameServerConfig gameServerConfig) {
+    public AuthServerService(JmsTemplate jmsTemplate, GameServerConfig gameServerConfig, PlayerService playerService,
+                             @Qualifier("incomingPacketExecutor") SessionOrderedExecutor packetExecutor,
+                             ScheduledExecutorService scheduler) {
         this.jmsTemplate = jmsTemplate;
         this.gameServerConfig = gameServerConfig;
+        this.playerService = playerService;
+        this.packetExecutor = packetExecutor;
+        this.scheduler = scheduler;
     }
 
     /**
@@ -52,6 +87,43 @@ public class AuthServerService {
         byte serverId = gameServerConfig.getServerId();
         String host = gameServerConfig.getHost();
         int port = gameServerConfig.getPort();
-        jmsTemplate.convertAndSend("gameServersQueue", new GameServerInfo(serverId, InetAddress.getByName(host), port));
+
+        status = new GameServerInfo(serverId, InetAddress.getByName(host), port);
+        status.setMaxPlayers(maxPlayers);
+        status.setEnabled(true);
+        jmsTemplate.convertAndSend("gameServersQueue", status);
+
+        scheduleHeartbeat();
+    }
+
+    private synchronized void scheduleHeartbeat() {
+        if (stopped || scheduler.isShutdown())
+            return;
+
+        nextHeartbeat = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(heartbeatInterval);
+        heartbeatFuture = scheduler.schedule(this::heartbeat, heartbeatInterval, TimeUnit.MILLISECONDS);
+    }
+
+    private void heartbeat() {
+        final long lag = System.nanoTime() - nextHeartbeat;
+        try {
+            status.setOnlinePlayers(playerService.getOnlineCount());
+            status.setQueuedPackets(packetExecutor.getQueuedTasks());
+            status.setTickLag((int) Math.max(0, TimeUnit.NANOSECONDS.toMillis(lag)));
+
+            jmsTemplate.convertAndSend("gameServersQueue", status);
+        } catch (JmsException e) {
+            log.warn("Failed to send heartbeat to auth server: " + e.getMessage());
+        } finally {
+            scheduleHeartbeat();
+        }
+    }
+
+    @PreDestroy
+    private synchronized void destroy() {
+        stopped = true;
+        if (heartbeatFuture != null) {
+            heartbeatFuture.cancel(false);
+        }
     }
 }
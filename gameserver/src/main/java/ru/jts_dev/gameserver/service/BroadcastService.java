@@ -26,10 +26,13 @@ import org.springframework.integration.ip.IpHeaders;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.stereotype.Service;
 import ru.jts_dev.common.packets.OutgoingMessageWrapper;
+import ru.jts_dev.common.packets.SerializedOutgoingMessage;
 import ru.jts_dev.common.packets.StaticOutgoingMessageWrapper;
 import ru.jts_dev.gameserver.model.GameSession;
 
-import java.util.stream.Stream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
 
 /**
  * @author Java-man
@@ -37,7 +40,7 @@ import java.util.stream.Stream;
  */
 @Service
 public class BroadcastService {
-    private static final int THRESHOLD = 25;
+    private static final int BATCH_SIZE = 32;
     private static final Logger logger = LoggerFactory.getLogger(BroadcastService.class);
 
     private final GameSessionService sessionService;
@@ -49,10 +52,40 @@ public class BroadcastService {
         this.sessionService = sessionService;
     }
 
+    /**
+     * Send message to all clients. Message is written once, and each client receives shared copy of it,
+     * see {@link SerializedOutgoingMessage}. Clients are split to batches, which are sent in parallel.
+     *
+     * @param message - message for sending, should not be used after that
+     */
     public final void sendToAll(final OutgoingMessageWrapper message) {
-        Stream<GameSession> stream = sessionService.getSessions().size() > THRESHOLD ?
-                sessionService.getSessions().values().parallelStream() : sessionService.getSessions().values().stream();
-        stream.forEach(gameSession -> send(gameSession.getConnectionId(), message));
+        final List<GameSession> sessions = new ArrayList<>(sessionService.getSessions().values());
+        final SerializedOutgoingMessage serialized = SerializedOutgoingMessage.serialize(message);
+        try {
+            if (sessions.size() <= BATCH_SIZE) {
+                sendBatch(sessions, serialized);
+                return;
+            }
+
+            final int batches = (sessions.size() + BATCH_SIZE - 1) / BATCH_SIZE;
+            IntStream.range(0, batches).parallel().forEach(batch -> sendBatch(
+                    sessions.subList(batch * BATCH_SIZE, Math.min(sessions.size(), (batch + 1) * BATCH_SIZE)),
+                    serialized));
+        } finally {
+            serialized.release();
+        }
+    }
+
+    private void sendBatch(final List<GameSession> sessions, final SerializedOutgoingMessage serialized) {
+        for (final GameSession session : sessions) {
+            try {
+                final OutgoingMessageWrapper msg = serialized.newMessage();
+                msg.getHeaders().put(IpHeaders.CONNECTION_ID, session.getConnectionId());
+                packetChannel.send(msg);
+            } catch (RuntimeException e) {
+                logger.warn("Can't send " + serialized + " to " + session.getConnectionId(), e);
+            }
+        }
     }
 
     public final void send(final GameSession session, final OutgoingMessageWrapper message) {
@@ -60,10 +93,9 @@ public class BroadcastService {
     }
 
     public final void send(final String connectionId, OutgoingMessageWrapper message) {
-        if (message.isStatic() && message instanceof StaticOutgoingMessageWrapper) {
-            send(connectionId, message);
-            logger.trace("Clone {} packet", message.getClass().getSimpleName());
-            return;
+        if (message.isStatic()) {
+            logger.trace("Share {} packet", message.getClass().getSimpleName());
+            message = ((StaticOutgoingMessageWrapper) message).newMessage();
         }
         message.getHeaders().put(IpHeaders.CONNECTION_ID, connectionId);
         packetChannel.send(message);
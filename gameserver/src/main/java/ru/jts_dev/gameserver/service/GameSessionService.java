@@ -20,16 +20,21 @@
 package ru.jts_dev.gameserver.service;
 
 import io.netty.buffer.ByteBuf;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
 import org.springframework.integration.ip.tcp.connection.TcpConnection;
 import org.springframework.integration.ip.tcp.connection.TcpConnectionCloseEvent;
-import org.springframework.integration.ip.tcp.connection.TcpConnectionEvent;
+import org.springframework.integration.ip.tcp.connection.TcpConnectionOpenEvent;
 import org.springframework.stereotype.Service;
+import ru.jts_dev.common.tcp.NettyTcpConnection;
 import ru.jts_dev.gameserver.model.GameSession;
+import ru.jts_dev.gameserver.util.SlotTable;
 
 import javax.annotation.Nullable;
 import java.nio.ByteOrder;
@@ -47,18 +52,41 @@ import static io.netty.buffer.Unpooled.copiedBuffer;
  */
 @Service
 public class GameSessionService {
+    private static final Logger log = LoggerFactory.getLogger(GameSessionService.class);
     private static final byte[] STATIC_KEY_PART = new byte[]{
             (byte) 0xc8, (byte) 0x27, (byte) 0x93, (byte) 0x01, (byte) 0xa1, (byte) 0x6c, (byte) 0x31, (byte) 0x97
     };
 
+    // sessions by connection id, for interop with Spring Integration
     private final Map<String, GameSession> sessions = new ConcurrentHashMap<>();
+    // sessions by connection handle, for packets
+    private final SlotTable<GameSession> slots;
     private final Map<String, String> accounts = new ConcurrentHashMap<>();
 
     private final Random random;
 
     @Autowired
-    public GameSessionService(Random random) {
+    public GameSessionService(Random random, @Value("${gameserver.sessions.capacity:4096}") int capacity) {
         this.random = random;
+        this.slots = new SlotTable<>(capacity);
+    }
+
+    /**
+     * @return - maximum count of simultaneous sessions, all slots of connection handles are less than it
+     */
+    public int getCapacity() {
+        return slots.capacity();
+    }
+
+    /**
+     * Slot of handle is reused by next connections, so state, indexed by slot, must be checked
+     * against {@link #getSessionBy(int)}, for stale handles of closed connections
+     *
+     * @param handle - connection handle of session
+     * @return - slot of handle
+     */
+    public int getSlotBy(int handle) {
+        return slots.slotOf(handle);
     }
 
     Map<String, GameSession> getSessions() {
@@ -81,6 +109,19 @@ public class GameSessionService {
         return sessions.getOrDefault(connectionId, null);
     }
 
+    /**
+     * Same as {@link #getSessionBy(String)}, but without hashing,
+     * should be used by packets with {@link ru.jts_dev.common.packets.IncomingMessageWrapper#getConnectionHandle()}.
+     * Handle of closed connection isn't resolved to session of next connection with same slot.
+     *
+     * @param handle - connection handle of session
+     * @return stored GameSession or {@code null}
+     */
+    @Nullable
+    public GameSession getSessionBy(int handle) {
+        return slots.get(handle);
+    }
+
     /**
      * Note: this method can return null.
      * Always check returned value with null, and break, if check not passed.
@@ -101,7 +142,7 @@ public class GameSessionService {
         session.getConnection().close();
     }
 
-    private GameSession createSession(TcpConnection connection) {
+    private GameSession createSession(TcpConnection connection, int handle) {
         ByteBuf encryptKey = buffer(16, 16).order(ByteOrder.LITTLE_ENDIAN);
         // randomize first 8 bytes of key
         random.nextBytes(encryptKey.array());
@@ -114,18 +155,40 @@ public class GameSessionService {
         ByteBuf decryptKey = copiedBuffer(encryptKey).order(ByteOrder.LITTLE_ENDIAN);
 
         // and pass keys to a game session object
-        return new GameSession(connection, encryptKey, decryptKey);
+        final GameSession session = new GameSession(connection, handle, encryptKey, decryptKey);
+
+        // bind session to netty connection, so codec doesn't need lookup for each packet
+        if (connection instanceof NettyTcpConnection) {
+            ((NettyTcpConnection) connection).setAttachment(session);
+        }
+
+        return session;
     }
 
     @Order(Ordered.HIGHEST_PRECEDENCE)
     @EventListener
-    private void tcpConnectionEventListener(TcpConnectionEvent event) {
-        sessions.put(event.getConnectionId(), createSession((TcpConnection) event.getSource()));
+    private void tcpConnectionEventListener(TcpConnectionOpenEvent event) {
+        final TcpConnection connection = (TcpConnection) event.getSource();
+        final int handle = slots.acquire();
+        if (handle == SlotTable.NO_SLOT) {
+            log.warn("sessions limit {} reached, connection {} closed", slots.capacity(), event.getConnectionId());
+            connection.close();
+            return;
+        }
+
+        final GameSession session = createSession(connection, handle);
+        slots.set(handle, session);
+        sessions.put(event.getConnectionId(), session);
     }
 
+    // after all other listeners, so they can still resolve session by handle
+    @Order(Ordered.LOWEST_PRECEDENCE)
     @EventListener
     private void tcpConnectionEventListener(TcpConnectionCloseEvent event) {
-        sessions.remove(event.getConnectionId());
+        final GameSession session = sessions.remove(event.getConnectionId());
+        if (session != null) {
+            slots.release(session.getHandle());
+        }
         accounts.remove(event.getConnectionId());
     }
 
@@ -22,14 +22,22 @@ package ru.jts_dev.gameserver.service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.integration.ip.tcp.connection.TcpConnectionCloseEvent;
 import org.springframework.stereotype.Service;
+import ru.jts_dev.gameserver.inventory.InventoryService;
 import ru.jts_dev.gameserver.model.GameCharacter;
+import ru.jts_dev.gameserver.model.GameSession;
 import ru.jts_dev.gameserver.repository.GameCharacterRepository;
+import ru.jts_dev.gameserver.world.World;
 
+import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * @author Camelion
@@ -37,44 +45,129 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 @Service
 public class PlayerService {
-    private final Map<String, GameCharacter> characters = new ConcurrentHashMap<>();
+    // selected characters by slot of connection handle
+    private AtomicReferenceArray<GameCharacter> characters;
+    private final AtomicInteger onlineCount = new AtomicInteger();
     @Autowired
     private GameCharacterRepository gameCharacterRepository;
+    @Autowired
+    private GameSessionService sessionService;
+    @Autowired
+    private InventoryService inventoryService;
+    @Autowired
+    private World world;
+
+    @PostConstruct
+    private void init() {
+        characters = new AtomicReferenceArray<>(sessionService.getCapacity());
+    }
 
     public final GameCharacter getCharacterBy(final String connectionId) {
-        return characters.get(connectionId);
+        final GameSession session = sessionService.getSessionBy(connectionId);
+        return session != null ? getCharacterBy(session.getHandle()) : null;
+    }
+
+    /**
+     * @param connectionHandle - connection handle of session
+     * @return - selected character, or {@code null}
+     * @see ru.jts_dev.common.packets.IncomingMessageWrapper#getConnectionHandle()
+     */
+    public final GameCharacter getCharacterBy(final int connectionHandle) {
+        final GameSession session = sessionService.getSessionBy(connectionHandle);
+        if (session == null)
+            return null;
+
+        final GameCharacter character = characters.get(sessionService.getSlotBy(connectionHandle));
+        // slot is cleared before session is removed, so character of next connection can't be read by stale handle
+        return sessionService.getSessionBy(connectionHandle) == session ? character : null;
+    }
+
+    /**
+     * @return - count of sessions with selected character
+     */
+    public final int getOnlineCount() {
+        return onlineCount.get();
     }
 
     @EventListener
     public final void characterSelected(final CharacterSelectedEvent event) {
-        characters.put(event.getConnectionId(), (GameCharacter) event.getSource());
+        final GameCharacter character = (GameCharacter) event.getSource();
+        final int connectionHandle = event.getConnectionHandle();
+        final GameSession session = sessionService.getSessionBy(connectionHandle);
+        if (session == null || session.isClosed())
+            return;
+
+        world.enter(character);
+        inventoryService.enterWorld(character);
+
+        final int slot = sessionService.getSlotBy(connectionHandle);
+        final GameCharacter previous = characters.getAndSet(slot, character);
+        if (previous == null) {
+            onlineCount.incrementAndGet();
+        } else {
+            leaveWorld(previous);
+        }
+
+        // connection closed meanwhile, close listener could clear slot before character was stored
+        if (session.isClosed() && characters.compareAndSet(slot, character, null)) {
+            onlineCount.decrementAndGet();
+            leaveWorld(character);
+        }
     }
 
     // TODO: 03.01.16 move to character logout event
+    // before session is removed, connection handle must not be reused until character is cleared
+    @Order(Ordered.HIGHEST_PRECEDENCE)
     @EventListener
     private void tcpConnectionEventListener(final TcpConnectionCloseEvent event) {
-        final GameCharacter character = characters.remove(event.getConnectionId());
+        final GameSession session = sessionService.getSessionBy(event.getConnectionId());
+        if (session == null)
+            return;
+
+        // marked before slot is cleared, so character, selected concurrently, is cleared by one of listeners
+        session.setClosed(true);
+        final GameCharacter character = characters.getAndSet(sessionService.getSlotBy(session.getHandle()), null);
         if (character != null) {
-            gameCharacterRepository.save(character);
+            onlineCount.decrementAndGet();
+            leaveWorld(character);
         }
     }
 
+    private void leaveWorld(final GameCharacter character) {
+        world.leave(character);
+        gameCharacterRepository.save(character);
+        inventoryService.unload(character);
+    }
+
     @PreDestroy
     private void destroy() {
-        gameCharacterRepository.save(characters.values());
+        final List<GameCharacter> selected = new ArrayList<>();
+        for (int i = 0; i < characters.length(); i++) {
+            final GameCharacter character = characters.get(i);
+            if (character != null) {
+                selected.add(character);
+            }
+        }
+        gameCharacterRepository.save(selected);
     }
 
     public static class CharacterSelectedEvent extends ApplicationEvent {
         private static final long serialVersionUID = 2145294139798098206L;
         private final String connectionId;
+        private final int connectionHandle;
 
-        public CharacterSelectedEvent(final String connectionId, final GameCharacter character) {
+        public CharacterSelectedEvent(final GameSession session, final GameCharacter character) {
             super(character);
-            this.connectionId = connectionId;
+            this.connectionId = session.getConnectionId();
+            this.connectionHandle = session.getHandle();
         }
 
         public final String getConnectionId() {
             return connectionId;
         }
+
+        public final int getConnectionHandle() {
+            return connectionHandle;
+        }
     }
 }
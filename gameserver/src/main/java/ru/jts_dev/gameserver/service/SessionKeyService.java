@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.gameserver.service;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jms.annotation.JmsListener;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+import ru.jts_dev.common.messaging.SessionKeys;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Session keys, pushed by auth server, when client selected this game server.
+ * Keys are validated locally, when client logs in, and are removed after successful validation,
+ * or by {@link HashedWheelTimer}, if client didn't log in for ttl.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+@Service
+@ManagedResource(objectName = "ru.jts_dev.gameserver:type=SessionKeyService", description = "Session keys from auth server")
+public class SessionKeyService {
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final HashedWheelTimer timer;
+    private final long ttl;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    @Autowired
+    public SessionKeyService(HashedWheelTimer timer, @Value("${gameserver.session-keys.ttl:60000}") long ttl) {
+        this.timer = timer;
+        this.ttl = ttl;
+    }
+
+    @JmsListener(destination = "sessionKeysQueue.${gameserver.id}")
+    public void put(SessionKeys keys) {
+        final String account = keys.getAccount();
+        final Entry entry = new Entry(keys);
+
+        // keys of new login through auth server replace previous
+        final Entry previous = entries.put(account, entry);
+        if (previous != null) {
+            previous.cancel();
+        }
+
+        // scheduled after put, so timeout, fired before assignment, still removes entry
+        entry.timeout = timer.newTimeout(timeout -> {
+            if (entries.remove(account, entry)) {
+                expired.increment();
+            }
+        }, ttl, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Validate client keys, keys are removed if they match
+     *
+     * @param account   - account login
+     * @param loginKey1 - login key 1
+     * @param loginKey2 - login key 2
+     * @param playKey1  - play key 1
+     * @param playKey2  - play key 2
+     * @return - {@code true} if keys match keys from auth server
+     */
+    public boolean validate(String account, int loginKey1, int loginKey2, int playKey1, int playKey2) {
+        final Entry entry = entries.get(account);
+        if (entry != null && entry.keys.matches(loginKey1, loginKey2, playKey1, playKey2)
+                && entries.remove(account, entry)) {
+            entry.cancel();
+            accepted.increment();
+            return true;
+        }
+
+        rejected.increment();
+        return false;
+    }
+
+    @ManagedAttribute(description = "Count of stored session keys")
+    public int getSize() {
+        return entries.size();
+    }
+
+    @ManagedAttribute(description = "Count of successfully validated keys")
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    @ManagedAttribute(description = "Count of rejected logins")
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    @ManagedAttribute(description = "Count of keys, removed by ttl")
+    public long getExpired() {
+        return expired.sum();
+    }
+
+    private static final class Entry {
+        private final SessionKeys keys;
+        // null, until timeout is scheduled
+        private volatile Timeout timeout;
+
+        private Entry(SessionKeys keys) {
+            this.keys = keys;
+        }
+
+        // timeout of removed entry, which isn't scheduled yet, does nothing when fired
+        private void cancel() {
+            final Timeout timeout = this.timeout;
+            if (timeout != null) {
+                timeout.cancel();
+            }
+        }
+    }
+}
@@ -20,16 +20,18 @@
 package ru.jts_dev.gameserver.util;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.integration.annotation.Transformer;
-import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Component;
 import ru.jts_dev.gameserver.model.GameSession;
 import ru.jts_dev.gameserver.service.GameSessionService;
 
-import static org.springframework.integration.ip.IpHeaders.CONNECTION_ID;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
 
 /**
+ * Game packets encryption, with {@link GameCipher} of client session.
+ * Methods with connection id find session by id, methods with session should be used, if session is known.
+ *
  * @author Camelion
  * @since 13.12.15
  */
@@ -42,49 +44,58 @@ public class Encoder {
         this.sessionService = sessionService;
     }
 
-    @Transformer
-    public ByteBuf decrypt(ByteBuf data, @Header(CONNECTION_ID) String connectionId) {
-        GameSession gameSession = sessionService.getSessionBy(connectionId);
-
-        assert gameSession != null : "GameSession for " + connectionId + " does not exist";
+    public ByteBuf decrypt(ByteBuf data, String connectionId) {
+        return decrypt(data, getSession(connectionId));
+    }
 
-        ByteBuf key = gameSession.getDecryptKey();
+    public ByteBuf decrypt(ByteBuf data, GameSession session) {
+        session.getDecryptCipher().decrypt(data);
 
-        int temp = 0;
-        for (int i = 0; i < data.readableBytes(); i++) {
-            final int temp2 = data.getUnsignedByte(i);
-            data.setByte(i, (byte) (temp2 ^ key.getByte(i & 15) ^ temp));
-            temp = temp2;
-        }
+        return data;
+    }
 
-        int old = key.getInt(8);
-        old += data.readableBytes();
+    public ByteBuf encrypt(ByteBuf data, String connectionId) {
+        return encrypt(data, getSession(connectionId));
+    }
 
-        key.setInt(8, old);
+    public ByteBuf encrypt(ByteBuf data, GameSession session) {
+        session.getEncryptCipher().encrypt(data, data);
 
         return data;
     }
 
-    @Transformer
-    public ByteBuf encrypt(ByteBuf data, @Header(CONNECTION_ID) String connectionId) {
-        GameSession gameSession = sessionService.getSessionBy(connectionId);
-
-        assert gameSession != null : "GameSession for " + connectionId + " does not exist";
-
-        ByteBuf key = gameSession.getEncryptKey();
+    public ByteBuf encryptCopy(ByteBuf data, String connectionId) {
+        return encryptCopy(data, getSession(connectionId));
+    }
 
-        int temp = 0;
-        for (int i = 0; i < data.readableBytes(); i++) {
-            int temp2 = data.getUnsignedByte(data.readerIndex() + i);
-            temp = temp2 ^ key.getByte(i & 15) ^ temp;
-            data.setByte(data.readerIndex() + i, (byte) temp);
+    /**
+     * Encrypt data to new buffer, for shared data, which can't be encrypted in place.
+     * Source data is released.
+     *
+     * @param data    - data for encryption
+     * @param session - client session
+     * @return - encrypted data
+     * @see ru.jts_dev.common.packets.OutgoingMessageWrapper#isShared()
+     */
+    public ByteBuf encryptCopy(ByteBuf data, GameSession session) {
+        try {
+            final ByteBuf encrypted = PooledByteBufAllocator.DEFAULT.heapBuffer(data.readableBytes())
+                    .order(LITTLE_ENDIAN);
+            encrypted.writerIndex(data.readableBytes());
+
+            session.getEncryptCipher().encrypt(data, encrypted);
+
+            return encrypted;
+        } finally {
+            data.release();
         }
+    }
 
-        int old = key.getInt(8);
-        old += data.readableBytes();
+    public GameSession getSession(String connectionId) {
+        GameSession gameSession = sessionService.getSessionBy(connectionId);
 
-        key.setInt(8, old);
+        assert gameSession != null : "GameSession for " + connectionId + " does not exist";
 
-        return data;
+        return gameSession;
     }
 }
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.gameserver.util;
+
+import io.netty.buffer.ByteBuf;
+
+import java.nio.ByteOrder;
+
+/**
+ * Game packets XOR cipher, for one direction of one connection.
+ * Each byte is XOR'ed with key byte and previous encrypted byte, and after each packet
+ * bytes 8-11 of key are incremented by packet size.
+ * <p>
+ * Key is stored in two {@code long}s, data is processed by 8 byte words, and only tail is processed by bytes.
+ * Encrypted byte depends on previous encrypted byte, so rolling XOR inside of word is computed as prefix XOR
+ * by three shifts. Decryption has no such dependency.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+public final class GameCipher {
+    public static final int KEY_SIZE = 16;
+
+    private static final long BYTE_BROADCAST = 0x0101010101010101L;
+
+    // little endian key parts, bytes 0-7 and 8-15
+    private long key0;
+    private long key1;
+
+    /**
+     * @param key - 16 bytes of key
+     */
+    public GameCipher(final ByteBuf key) {
+        if (key.readableBytes() != KEY_SIZE)
+            throw new IllegalArgumentException("key must be " + KEY_SIZE + " bytes");
+
+        final ByteBuf le = key.order(ByteOrder.LITTLE_ENDIAN);
+        key0 = le.getLong(le.readerIndex());
+        key1 = le.getLong(le.readerIndex() + Long.BYTES);
+    }
+
+    /**
+     * Encrypt readable bytes of source to destination, starting from destination reader index.
+     * Source and destination may be same buffer.
+     *
+     * @param src - plain data
+     * @param dst - buffer for encrypted data, with at least same count of readable bytes
+     */
+    public synchronized void encrypt(final ByteBuf src, final ByteBuf dst) {
+        // big endian views are used, because netty little endian buffers are swapped wrappers
+        final ByteBuf in = src.order(ByteOrder.BIG_ENDIAN);
+        final ByteBuf out = dst.order(ByteOrder.BIG_ENDIAN);
+        final int srcIndex = src.readerIndex();
+        final int dstIndex = dst.readerIndex();
+        final int length = src.readableBytes();
+
+        long prev = 0; // previous encrypted byte
+        int i = 0;
+        for (; i + Long.BYTES <= length; i += Long.BYTES) {
+            long word = Long.reverseBytes(in.getLong(srcIndex + i)) ^ keyWord(i);
+            // prefix xor: each byte is xor'ed with all previous bytes of word
+            word ^= word << 8;
+            word ^= word << 16;
+            word ^= word << 32;
+            word ^= prev * BYTE_BROADCAST;
+
+            out.setLong(dstIndex + i, Long.reverseBytes(word));
+            prev = word >>> 56;
+        }
+        for (; i < length; i++) {
+            prev = (in.getByte(srcIndex + i) & 0xFF) ^ keyByte(i) ^ prev;
+            out.setByte(dstIndex + i, (int) prev);
+        }
+
+        shiftKey(length);
+    }
+
+    /**
+     * Decrypt readable bytes of data in place
+     *
+     * @param data - encrypted data
+     */
+    public synchronized void decrypt(final ByteBuf data) {
+        final ByteBuf buf = data.order(ByteOrder.BIG_ENDIAN);
+        final int index = data.readerIndex();
+        final int length = data.readableBytes();
+
+        long prev = 0; // previous encrypted byte
+        int i = 0;
+        for (; i + Long.BYTES <= length; i += Long.BYTES) {
+            final long word = Long.reverseBytes(buf.getLong(index + i));
+
+            buf.setLong(index + i, Long.reverseBytes(word ^ keyWord(i) ^ (word << 8 | prev)));
+            prev = word >>> 56;
+        }
+        for (; i < length; i++) {
+            final int b = buf.getByte(index + i) & 0xFF;
+
+            buf.setByte(index + i, (int) (b ^ keyByte(i) ^ prev));
+            prev = b;
+        }
+
+        shiftKey(length);
+    }
+
+    /**
+     * @return - copy of current key
+     */
+    public synchronized byte[] getKey() {
+        final byte[] key = new byte[KEY_SIZE];
+        for (int i = 0; i < KEY_SIZE; i++) {
+            key[i] = (byte) keyByte(i);
+        }
+        return key;
+    }
+
+    private long keyWord(final int index) {
+        return (index & Long.BYTES) == 0 ? key0 : key1;
+    }
+
+    private int keyByte(final int index) {
+        return (int) (keyWord(index) >>> ((index & 7) << 3)) & 0xFF;
+    }
+
+    /**
+     * Add packet length to key bytes 8-11
+     */
+    private void shiftKey(final int length) {
+        key1 = (key1 & 0xFFFFFFFF00000000L) | ((key1 + length) & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.gameserver.util;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed size table of objects, indexed by small integer slots.
+ * Slots are acquired and released rarely (on connection accept and close), under lock,
+ * and lookups by handle are array reads without hashing.
+ * Released slots are reused, lowest first after start.
+ * <p>
+ * Handle is slot, tagged with generation of slot in high bits, generation is incremented on release,
+ * so stale handle of released slot doesn't resolve to element of next owner of slot.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+public final class SlotTable<E> {
+    public static final int NO_SLOT = -1;
+
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicIntegerArray generations;
+    private final int slotBits;
+    private final int slotMask;
+    private final boolean[] acquired;
+    private final int[] freeSlots;
+    private int freeCount;
+
+    public SlotTable(final int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+
+        elements = new AtomicReferenceArray<>(capacity);
+        generations = new AtomicIntegerArray(capacity);
+        slotBits = Integer.SIZE - Integer.numberOfLeadingZeros(capacity - 1);
+        slotMask = (1 << slotBits) - 1;
+        acquired = new boolean[capacity];
+        freeSlots = new int[capacity];
+        for (int i = 0; i < capacity; i++) {
+            freeSlots[i] = capacity - 1 - i;
+        }
+        freeCount = capacity;
+    }
+
+    /**
+     * @return - handle of free slot, or {@link #NO_SLOT} if table is full
+     */
+    public synchronized int acquire() {
+        if (freeCount == 0)
+            return NO_SLOT;
+
+        final int slot = freeSlots[--freeCount];
+        acquired[slot] = true;
+        return generations.get(slot) << slotBits | slot;
+    }
+
+    /**
+     * Set element of acquired slot
+     *
+     * @param handle  - handle of acquired slot
+     * @param element - element
+     */
+    public void set(final int handle, final E element) {
+        elements.set(slotOf(handle), element);
+    }
+
+    /**
+     * @param handle - handle, may be {@link #NO_SLOT}, out of table, or handle of released slot
+     * @return - element of slot, or {@code null}
+     */
+    public E get(final int handle) {
+        if (handle < 0)
+            return null;
+
+        final int slot = slotOf(handle);
+        if (slot >= elements.length())
+            return null;
+
+        // element of next owner is set after generation is incremented
+        final E element = elements.get(slot);
+        return generations.get(slot) == handle >>> slotBits ? element : null;
+    }
+
+    /**
+     * Clear slot and return it to free slots
+     *
+     * @param handle - handle of acquired slot
+     * @return - previous element of slot, or {@code null}
+     */
+    public synchronized E release(final int handle) {
+        final int slot = handle < 0 ? NO_SLOT : slotOf(handle);
+        if (slot < 0 || slot >= elements.length() || !acquired[slot]
+                || generations.get(slot) != handle >>> slotBits)
+            throw new IllegalArgumentException("handle " + handle + " is not acquired");
+
+        // generation is kept in non-negative handle
+        generations.set(slot, (generations.get(slot) + 1) & (Integer.MAX_VALUE >>> slotBits));
+        final E element = elements.getAndSet(slot, null);
+        acquired[slot] = false;
+        freeSlots[freeCount++] = slot;
+        return element;
+    }
+
+    /**
+     * @param handle - handle of slot
+     * @return - slot of handle, without generation, less than {@link #capacity()} for acquired handles
+     */
+    public int slotOf(final int handle) {
+        return handle & slotMask;
+    }
+
+    public int capacity() {
+        return elements.length();
+    }
+
+    public synchronized int size() {
+        return elements.length() - freeCount;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.gameserver.world;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Service;
+import ru.jts_dev.common.id.IdPool;
+import ru.jts_dev.gameserver.model.GameCharacter;
+import ru.jts_dev.gameserver.model.GameItem;
+import ru.jts_dev.gameserver.model.WorldObject;
+
+import java.util.function.Consumer;
+
+/**
+ * Registry of live world objects, resolves object ids from client packets to objects.
+ * <p>
+ * Characters receive object ids from pool, when they enter world, and release them, when they leave it.
+ * Items have own object ids, see {@link ru.jts_dev.gameserver.inventory.ItemObjectIdService},
+ * they are registered and unregistered by {@link ru.jts_dev.gameserver.inventory.InventoryService}.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+@Service
+@ManagedResource(objectName = "ru.jts_dev.gameserver:type=World", description = "World objects")
+public class World {
+    private final IdPool objectIdPool;
+    private final WorldObjectIndex index;
+
+    @Autowired
+    public World(@Qualifier("objectIdPool") IdPool objectIdPool,
+                 @Value("${gameserver.world.initial-capacity:4096}") int initialCapacity) {
+        this.objectIdPool = objectIdPool;
+        this.index = new WorldObjectIndex(initialCapacity);
+    }
+
+    /**
+     * Assign new object id to character and register it
+     *
+     * @param character - character, which enters world
+     * @throws IllegalStateException - if character isn't registered, object id is released then
+     */
+    public void enter(final GameCharacter character) {
+        final int objectId = objectIdPool.borrow();
+        character.setObjectId(objectId);
+        if (!index.add(character)) {
+            objectIdPool.release(objectId);
+            throw new IllegalStateException("object id " + objectId + " is already registered");
+        }
+    }
+
+    /**
+     * Unregister character and release it's object id
+     *
+     * @param character - character, which leaves world
+     * @return - false, if character isn't in world
+     */
+    public boolean leave(final GameCharacter character) {
+        if (!index.remove(character))
+            return false;
+
+        objectIdPool.release(character.getObjectId());
+        return true;
+    }
+
+    /**
+     * Register object, which object id is assigned by owner of object
+     *
+     * @param object - registered object
+     * @return - false, if other object with same object id is registered
+     */
+    public boolean register(final WorldObject object) {
+        return index.add(object);
+    }
+
+    /**
+     * @param object - unregistered object
+     * @return - false, if object isn't registered
+     */
+    public boolean unregister(final WorldObject object) {
+        return index.remove(object);
+    }
+
+    /**
+     * @param object - checked object
+     * @return - true, if this object is registered
+     */
+    public boolean contains(final WorldObject object) {
+        return index.get(object.getObjectId()) == object;
+    }
+
+    /**
+     * @param objectId - object id, from client packet, for example
+     * @return - registered object, or {@code null}
+     */
+    public WorldObject getObject(final int objectId) {
+        return index.get(objectId);
+    }
+
+    /**
+     * @param objectId - object id
+     * @param type     - expected type of object
+     * @param <T>      - type of object
+     * @return - registered object, or {@code null}, if there is no object of this type
+     */
+    public <T extends WorldObject> T getObject(final int objectId, final Class<T> type) {
+        final WorldObject object = index.get(objectId);
+        return type.isInstance(object) ? type.cast(object) : null;
+    }
+
+    /**
+     * Iterate over registered objects of type, objects, which are registered or unregistered
+     * while iteration, may be skipped
+     *
+     * @param type     - type of objects, including subtypes
+     * @param consumer - consumer of objects
+     * @param <T>      - type of objects
+     */
+    public <T extends WorldObject> void forEach(final Class<T> type, final Consumer<? super T> consumer) {
+        index.forEach(object -> {
+            if (type.isInstance(object))
+                consumer.accept(type.cast(object));
+        });
+    }
+
+    /**
+     * @param type - type of objects, including subtypes
+     * @return - count of registered objects of type
+     */
+    public int getCount(final Class<? extends WorldObject> type) {
+        return index.count(type);
+    }
+
+    @ManagedAttribute(description = "Count of registered objects")
+    public int getSize() {
+        return index.size();
+    }
+
+    @ManagedAttribute(description = "Count of characters in world")
+    public int getCharactersCount() {
+        return index.count(GameCharacter.class);
+    }
+
+    @ManagedAttribute(description = "Count of items of characters in world")
+    public int getItemsCount() {
+        return index.count(GameItem.class);
+    }
+
+    @ManagedAttribute(description = "Slots of object index")
+    public int getCapacity() {
+        return index.capacity();
+    }
+}
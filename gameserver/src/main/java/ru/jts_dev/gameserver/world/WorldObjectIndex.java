@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.gameserver.world;
+
+import ru.jts_dev.gameserver.model.WorldObject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Index of world objects by object id, open addressing table with linear probing.
+ * Objects are stored in slots of table directly, so object id is read from object, and there is no boxing of keys.
+ * <p>
+ * Lookups and iteration don't take locks, they read volatile slots of current table.
+ * Registration is synchronized, removed objects are replaced by {@link #REMOVED} marker,
+ * markers are purged, when table is rebuilt to new array, which is published by volatile write.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+final class WorldObjectIndex {
+    private static final Object REMOVED = new Object();
+
+    private final int initialCapacity;
+    private volatile AtomicReferenceArray<Object> table;
+    // slots with object or removed marker, guarded by this
+    private int used;
+
+    private final AtomicInteger size = new AtomicInteger();
+    private final ConcurrentMap<Class<?>, AtomicInteger> counts = new ConcurrentHashMap<>();
+
+    WorldObjectIndex(final int initialCapacity) {
+        if (initialCapacity <= 0 || Integer.bitCount(initialCapacity) != 1)
+            throw new IllegalArgumentException("initialCapacity must be positive power of two, current: "
+                    + initialCapacity);
+
+        this.initialCapacity = initialCapacity;
+        table = new AtomicReferenceArray<>(initialCapacity);
+    }
+
+    private static int hash(final int objectId) {
+        final int h = objectId * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    WorldObject get(final int objectId) {
+        final AtomicReferenceArray<Object> table = this.table;
+        final int mask = table.length() - 1;
+        for (int i = hash(objectId) & mask, probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+            final Object slot = table.get(i);
+            if (slot == null)
+                return null;
+
+            if (slot != REMOVED && ((WorldObject) slot).getObjectId() == objectId)
+                return (WorldObject) slot;
+        }
+        return null;
+    }
+
+    /**
+     * @param object - added object
+     * @return - false, if other object with same object id is present
+     */
+    synchronized boolean add(final WorldObject object) {
+        if (get(object.getObjectId()) != null)
+            return false;
+
+        // load factor is 0.75, including removed markers
+        if ((used + 1) * 4L > table.length() * 3L)
+            rebuild();
+
+        final AtomicReferenceArray<Object> table = this.table;
+        final int mask = table.length() - 1;
+        int i = hash(object.getObjectId()) & mask;
+        while (table.get(i) != null && table.get(i) != REMOVED) {
+            i = (i + 1) & mask;
+        }
+
+        if (table.get(i) == null)
+            used++;
+        table.set(i, object);
+
+        size.incrementAndGet();
+        counts.computeIfAbsent(object.getClass(), type -> new AtomicInteger()).incrementAndGet();
+        return true;
+    }
+
+    /**
+     * @param object - removed object
+     * @return - false, if object isn't present
+     */
+    synchronized boolean remove(final WorldObject object) {
+        final AtomicReferenceArray<Object> table = this.table;
+        final int mask = table.length() - 1;
+        for (int i = hash(object.getObjectId()) & mask, probes = 0; probes <= mask; i = (i + 1) & mask, probes++) {
+            final Object slot = table.get(i);
+            if (slot == null)
+                return false;
+
+            if (slot == object) {
+                table.set(i, REMOVED);
+                size.decrementAndGet();
+                counts.get(object.getClass()).decrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // objects are copied to new table, which has at least twice more slots, than objects
+    private void rebuild() {
+        int capacity = initialCapacity;
+        while (capacity / 2 < size.get() + 1) {
+            capacity <<= 1;
+        }
+
+        final AtomicReferenceArray<Object> current = table;
+        final AtomicReferenceArray<Object> rebuilt = new AtomicReferenceArray<>(capacity);
+        final int mask = capacity - 1;
+        for (int i = 0; i < current.length(); i++) {
+            final Object slot = current.get(i);
+            if (slot == null || slot == REMOVED)
+                continue;
+
+            int j = hash(((WorldObject) slot).getObjectId()) & mask;
+            while (rebuilt.get(j) != null) {
+                j = (j + 1) & mask;
+            }
+            rebuilt.lazySet(j, slot);
+        }
+
+        used = size.get();
+        table = rebuilt;
+    }
+
+    /**
+     * Weakly consistent iteration, objects, which are added or removed while iteration, may be skipped
+     *
+     * @param consumer - consumer of objects
+     */
+    void forEach(final Consumer<? super WorldObject> consumer) {
+        final AtomicReferenceArray<Object> table = this.table;
+        for (int i = 0; i < table.length(); i++) {
+            final Object slot = table.get(i);
+            if (slot != null && slot != REMOVED)
+                consumer.accept((WorldObject) slot);
+        }
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    /**
+     * @param type - type of objects, including subtypes
+     * @return - count of objects of type
+     */
+    int count(final Class<?> type) {
+        int count = 0;
+        for (final Map.Entry<Class<?>, AtomicInteger> entry : counts.entrySet()) {
+            if (type.isAssignableFrom(entry.getKey()))
+                count += entry.getValue().get();
+        }
+        return count;
+    }
+
+    int capacity() {
+        return table.length();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.gameserver.inventory;
+
+import org.junit.jupiter.api.Test;
+import ru.jts_dev.common.id.IdPool;
+import ru.jts_dev.common.id.impl.paged.PagedBitmapIdPool;
+import ru.jts_dev.gameserver.model.GameItem;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Camelion
+ * @since 17.10.26
+ */
+public class ItemObjectIdServiceTest {
+    private final IdPool idPool = new PagedBitmapIdPool(1000, 4096);
+    private final ItemObjectIdService service = new ItemObjectIdService(idPool);
+
+    @Test
+    public void testRelease() {
+        final GameItem item = newItem();
+        assertThat(service.getTracked()).isEqualTo(1);
+
+        service.release(item);
+        service.release(item);
+
+        assertThat(service.getTracked()).isEqualTo(0);
+        assertThat(service.getReleased()).isEqualTo(1);
+        // released id is free again
+        assertThat(idPool.borrow()).isEqualTo(item.getObjectId());
+    }
+
+    @Test
+    public void testReleaseAll() {
+        final List<GameItem> items = Arrays.asList(newItem(), newItem(), newItem());
+        service.release(items.get(1));
+
+        service.releaseAll(items);
+
+        assertThat(service.getTracked()).isEqualTo(0);
+        assertThat(service.getReleased()).isEqualTo(3);
+        assertThat(service.getLeaked()).isEqualTo(0);
+    }
+
+    @Test
+    public void testReleaseLeaked() throws InterruptedException {
+        final int objectId = newItem().getObjectId();
+
+        for (int i = 0; i < 100 && service.getLeaked() == 0; i++) {
+            System.gc();
+            Thread.sleep(10);
+            service.releaseLeaked();
+        }
+
+        assertThat(service.getLeaked()).isEqualTo(1);
+        assertThat(service.getTracked()).isEqualTo(0);
+        assertThat(idPool.borrow()).isEqualTo(objectId);
+    }
+
+    @Test
+    public void testAssignAll() {
+        final List<GameItem> items = Arrays.asList(new GameItem(0, null), new GameItem(0, null));
+
+        service.assignAll(items);
+
+        assertThat(items).extracting(GameItem::getObjectId).doesNotContain(0).doesNotHaveDuplicates();
+        assertThat(service.getTracked()).isEqualTo(2);
+    }
+
+    @Test
+    public void testReleaseWithoutObjectId() {
+        final GameItem item = new GameItem(0, null);
+
+        service.release(item);
+        service.releaseAll(Arrays.asList(item, newItem()));
+
+        assertThat(service.getReleased()).isEqualTo(1);
+    }
+
+    private GameItem newItem() {
+        final GameItem item = new GameItem(0, null);
+        service.assign(item);
+        return item;
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.gameserver.packets;
+
+import ch.qos.logback.classic.Logger;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.integration.ip.IpHeaders;
+import org.springframework.stereotype.Component;
+import ru.jts_dev.common.packets.IncomingMessageWrapper;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+
+/**
+ * Compares dispatch of incoming packet by {@link GameClientPacketHandler}
+ * with previous implementation, which was looking up bean name in map and created packet with
+ * {@link org.springframework.context.ApplicationContext#getBean(String, Class)}.
+ * <p>
+ * Run with {@link #main(String[])}.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameClientPacketHandlerBenchmark {
+    private static final String CONNECTION_ID = "benchmark";
+
+    private AnnotationConfigApplicationContext context;
+    private GameClientPacketHandler handler;
+    private Map<Integer, Object> legacyPackets;
+
+    private ByteBuf singleOpcode;
+    private ByteBuf extendedOpcode;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GameClientPacketHandlerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // exclude debug logging from measurement
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(ch.qos.logback.classic.Level.INFO);
+
+        context = new AnnotationConfigApplicationContext(Service.class, GameClientPacketHandler.class,
+                SinglePacket.class, ExtendedPacket.class);
+        handler = context.getBean(GameClientPacketHandler.class);
+
+        legacyPackets = new HashMap<>();
+        legacyPackets.put(0x49, context.getBeanNamesForType(SinglePacket.class)[0]);
+        final Map<Integer, Object> secondOpcodes = new HashMap<>();
+        secondOpcodes.put(0x3D, context.getBeanNamesForType(ExtendedPacket.class)[0]);
+        legacyPackets.put(Opcode.CLIENT_SWITCH_OPCODE, secondOpcodes);
+
+        singleOpcode = Unpooled.wrappedBuffer(new byte[]{0x49, 0x00, 0x00, 0x00, 0x00}).order(LITTLE_ENDIAN);
+        extendedOpcode = Unpooled.wrappedBuffer(new byte[]{(byte) 0xD0, 0x3D, 0x00, 0x00, 0x00}).order(LITTLE_ENDIAN);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public IncomingMessageWrapper legacySingleOpcode() {
+        return legacyHandle(singleOpcode.readerIndex(0));
+    }
+
+    @Benchmark
+    public IncomingMessageWrapper legacyExtendedOpcode() {
+        return legacyHandle(extendedOpcode.readerIndex(0));
+    }
+
+    @Benchmark
+    public IncomingMessageWrapper tableSingleOpcode() {
+        return handler.handle(singleOpcode.readerIndex(0), CONNECTION_ID);
+    }
+
+    @Benchmark
+    public IncomingMessageWrapper tableExtendedOpcode() {
+        return handler.handle(extendedOpcode.readerIndex(0), CONNECTION_ID);
+    }
+
+    private IncomingMessageWrapper legacyHandle(ByteBuf buf) {
+        int opcode = buf.readUnsignedByte();
+
+        if (!legacyPackets.containsKey(opcode))
+            throw new RuntimeException("Invalid first packet opcode");
+
+        IncomingMessageWrapper msg;
+        Object node = legacyPackets.get(opcode);
+        if (node instanceof String) {
+            msg = context.getBean((String) node, IncomingMessageWrapper.class);
+        } else {
+            opcode = buf.readUnsignedShort();
+
+            if (!((Map) node).containsKey(opcode))
+                throw new RuntimeException("Invalid second packet opcode");
+
+            msg = context.getBean((String) ((Map) node).get(opcode), IncomingMessageWrapper.class);
+        }
+
+        msg.getHeaders().put(IpHeaders.CONNECTION_ID, CONNECTION_ID);
+        msg.setPayload(buf.slice());
+
+        return msg;
+    }
+
+    @Component
+    static class Service {
+    }
+
+    @Opcode(0x49)
+    static class SinglePacket extends IncomingMessageWrapper {
+        @Autowired
+        private Service service;
+
+        @Override
+        public void prepare() {
+        }
+
+        @Override
+        public void run() {
+        }
+    }
+
+    @Opcode(second = 0x3D)
+    static class ExtendedPacket extends IncomingMessageWrapper {
+        private final Service service;
+
+        @Autowired
+        ExtendedPacket(Service service) {
+            this.service = service;
+        }
+
+        @Override
+        public void prepare() {
+        }
+
+        @Override
+        public void run() {
+        }
+    }
+}
@@ -108,6 +108,23 @@ public class GameCharacterRepositoryTest {
         assertTrue(repository.findAllByAccountName("BadAccName").isEmpty(), "not existing account name finds nothing");
     }
 
+    @Test
+    @DisplayName("find with inventory by id")
+    public void testFindWithInventoryById() throws Exception {
+        GameCharacter character = new GameCharacter();
+        character.setStat(new CharacterStat(CharacterRace.HUMAN, CharacterClass.HUMAN_FIGHTER, new ArrayList<>(6)));
+        character.setAccountName("Test");
+        character.setName("selected");
+        character = repository.save(character);
+
+        final GameCharacter found = repository.findWithInventoryById(character.getId());
+        assertNotNull(found, "saved character is found");
+        assertEquals("selected", found.getName());
+        assertNotNull(found.getInventory());
+
+        assertNull(repository.findWithInventoryById(-1), "not existing id finds nothing");
+    }
+
     @Test
     @DisplayName("test last used updated for one character")
     public void testUpdateLastUsed() {
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.gameserver.service;
+
+import io.netty.util.HashedWheelTimer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.jts_dev.common.messaging.SessionKeys;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Camelion
+ * @since 17.10.26
+ */
+public class SessionKeyServiceTest {
+    private final HashedWheelTimer timer = new HashedWheelTimer(10, TimeUnit.MILLISECONDS);
+
+    @AfterEach
+    public void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    public void testValidateOnce() {
+        final SessionKeyService service = new SessionKeyService(timer, 60_000);
+        service.put(new SessionKeys("account", 1, 2, 3, 4));
+
+        // wrong keys don't remove valid ones
+        assertThat(service.validate("account", 1, 2, 3, 5)).isFalse();
+        assertThat(service.validate("other", 1, 2, 3, 4)).isFalse();
+
+        assertThat(service.validate("account", 1, 2, 3, 4)).isTrue();
+        assertThat(service.validate("account", 1, 2, 3, 4)).isFalse();
+        assertThat(service.getSize()).isEqualTo(0);
+        assertThat(service.getAccepted()).isEqualTo(1);
+        assertThat(service.getRejected()).isEqualTo(3);
+    }
+
+    @Test
+    public void testReplace() {
+        final SessionKeyService service = new SessionKeyService(timer, 60_000);
+        service.put(new SessionKeys("account", 1, 2, 3, 4));
+        service.put(new SessionKeys("account", 5, 6, 7, 8));
+
+        assertThat(service.validate("account", 1, 2, 3, 4)).isFalse();
+        assertThat(service.validate("account", 5, 6, 7, 8)).isTrue();
+    }
+
+    @Test
+    public void testExpiration() throws InterruptedException {
+        final SessionKeyService service = new SessionKeyService(timer, 50);
+        service.put(new SessionKeys("account", 1, 2, 3, 4));
+        assertThat(service.getSize()).isEqualTo(1);
+
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (service.getSize() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThat(service.getExpired()).isEqualTo(1);
+        assertThat(service.validate("account", 1, 2, 3, 4)).isFalse();
+    }
+
+    @Test
+    public void testShortTtl() throws InterruptedException {
+        final SessionKeyService service = new SessionKeyService(timer, 1);
+        for (int i = 0; i < 100; i++) {
+            service.put(new SessionKeys("account" + i, 1, 2, 3, 4));
+        }
+
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (service.getSize() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThat(service.getSize()).isEqualTo(0);
+        assertThat(service.getExpired()).isEqualTo(100);
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.gameserver.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+
+/**
+ * Compares {@link GameCipher} with previous byte by byte implementation,
+ * which was reading key bytes from {@link ByteBuf}.
+ * <p>
+ * Run with {@link #main(String[])}.
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameCipherBenchmark {
+    @Param({"16", "256", "4096"})
+    private int size;
+
+    private ByteBuf legacyKey;
+    private GameCipher cipher;
+    private ByteBuf data;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(GameCipherBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Random random = new Random();
+        final byte[] key = new byte[GameCipher.KEY_SIZE];
+        random.nextBytes(key);
+        legacyKey = Unpooled.wrappedBuffer(key).order(LITTLE_ENDIAN);
+        cipher = new GameCipher(legacyKey.copy());
+
+        final byte[] bytes = new byte[size];
+        random.nextBytes(bytes);
+        data = Unpooled.wrappedBuffer(bytes).order(LITTLE_ENDIAN);
+    }
+
+    @Benchmark
+    public ByteBuf legacyEncrypt() {
+        int temp = 0;
+        for (int i = 0; i < data.readableBytes(); i++) {
+            int temp2 = data.getUnsignedByte(data.readerIndex() + i);
+            temp = temp2 ^ legacyKey.getByte(i & 15) ^ temp;
+            data.setByte(data.readerIndex() + i, (byte) temp);
+        }
+
+        legacyKey.setInt(8, legacyKey.getInt(8) + data.readableBytes());
+        return data;
+    }
+
+    @Benchmark
+    public ByteBuf legacyDecrypt() {
+        int temp = 0;
+        for (int i = 0; i < data.readableBytes(); i++) {
+            final int temp2 = data.getUnsignedByte(i);
+            data.setByte(i, (byte) (temp2 ^ legacyKey.getByte(i & 15) ^ temp));
+            temp = temp2;
+        }
+
+        legacyKey.setInt(8, legacyKey.getInt(8) + data.readableBytes());
+        return data;
+    }
+
+    @Benchmark
+    public ByteBuf wordEncrypt() {
+        cipher.encrypt(data, data);
+        return data;
+    }
+
+    @Benchmark
+    public ByteBuf wordDecrypt() {
+        cipher.decrypt(data);
+        return data;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.gameserver.util;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks {@link GameCipher} against previous byte by byte implementation
+ *
+ * @author Camelion
+ * @since 17.10.26
+ */
+public class GameCipherTest {
+    private static final int PACKETS = 200;
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void testEncryptCompatibility() {
+        final ByteBuf legacyKey = randomKey();
+        final GameCipher cipher = new GameCipher(legacyKey.copy());
+
+        for (int i = 0; i < PACKETS; i++) {
+            final int offset = random.nextInt(4);
+            final ByteBuf data = randomData(offset, random.nextInt(100));
+            final ByteBuf expected = data.copy().order(LITTLE_ENDIAN);
+            legacyEncrypt(expected, legacyKey);
+
+            cipher.encrypt(data, data);
+
+            assertThat(data.readerIndex()).isEqualTo(offset);
+            assertThat(data).isEqualTo(expected);
+            assertThat(cipher.getKey()).isEqualTo(legacyKey.array());
+        }
+    }
+
+    @Test
+    public void testEncryptToOtherBuffer() {
+        final ByteBuf legacyKey = randomKey();
+        final GameCipher cipher = new GameCipher(legacyKey.copy());
+
+        for (int i = 0; i < PACKETS; i++) {
+            final ByteBuf data = randomData(random.nextInt(4), random.nextInt(100));
+            final ByteBuf encrypted = Unpooled.buffer(data.readableBytes()).order(LITTLE_ENDIAN);
+            encrypted.writerIndex(data.readableBytes());
+            final ByteBuf plain = data.copy();
+
+            cipher.encrypt(data, encrypted);
+            assertThat(data).isEqualTo(plain);
+
+            legacyEncrypt(data, legacyKey);
+            assertThat(encrypted).isEqualTo(data);
+        }
+    }
+
+    @Test
+    public void testDecryptCompatibility() {
+        final ByteBuf legacyKey = randomKey();
+        final GameCipher cipher = new GameCipher(legacyKey.copy());
+
+        for (int i = 0; i < PACKETS; i++) {
+            final ByteBuf data = randomData(0, random.nextInt(100));
+            final ByteBuf expected = data.copy().order(LITTLE_ENDIAN);
+            legacyDecrypt(expected, legacyKey);
+
+            cipher.decrypt(data);
+
+            assertThat(data).isEqualTo(expected);
+            assertThat(cipher.getKey()).isEqualTo(legacyKey.array());
+        }
+    }
+
+    @Test
+    public void testRoundTrip() {
+        final ByteBuf key = randomKey();
+        final GameCipher encryptCipher = new GameCipher(key.copy());
+        final GameCipher decryptCipher = new GameCipher(key.copy());
+
+        for (int i = 0; i < PACKETS; i++) {
+            final ByteBuf data = randomData(0, random.nextInt(100));
+            final ByteBuf plain = data.copy();
+
+            encryptCipher.encrypt(data, data);
+            decryptCipher.decrypt(data);
+
+            assertThat(data).isEqualTo(plain);
+        }
+    }
+
+    @Test
+    public void testKeyShiftOverflow() {
+        final ByteBuf key = randomKey();
+        key.setInt(8, -3);
+        final GameCipher cipher = new GameCipher(key.copy());
+
+        cipher.encrypt(randomData(0, 5), Unpooled.buffer(5).writerIndex(5));
+        key.setInt(8, 2);
+
+        assertThat(cipher.getKey()).isEqualTo(key.array());
+    }
+
+    private ByteBuf randomKey() {
+        final byte[] key = new byte[GameCipher.KEY_SIZE];
+        random.nextBytes(key);
+        return Unpooled.wrappedBuffer(key).order(LITTLE_ENDIAN);
+    }
+
+    private ByteBuf randomData(int offset, int length) {
+        final byte[] data = new byte[offset + length];
+        random.nextBytes(data);
+        return Unpooled.wrappedBuffer(data).readerIndex(offset).order(LITTLE_ENDIAN);
+    }
+
+    private static void legacyEncrypt(ByteBuf data, ByteBuf key) {
+        int temp = 0;
+        for (int i = 0; i < data.readableBytes(); i++) {
+            int temp2 = data.getUnsignedByte(data.readerIndex() + i);
+            temp = temp2 ^ key.getByte(i & 15) ^ temp;
+            data.setByte(data.readerIndex() + i, (byte) temp);
+        }
+
+        key.setInt(8, key.getInt(8) + data.readableBytes());
+    }
+
+    private static void legacyDecrypt(ByteBuf data, ByteBuf key) {
+        int temp = 0;
+        for (int i = 0; i < data.readableBytes(); i++) {
+            final int temp2 = data.getUnsignedByte(i);
+            data.setByte(i, (byte) (temp2 ^ key.getByte(i & 15) ^ temp));
+            temp = temp2;
+        }
+
+        key.setInt(8, key.getInt(8) + data.readableBytes());
+    }
+}
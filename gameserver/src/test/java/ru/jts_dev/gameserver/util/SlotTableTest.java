@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.gameserver.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.expectThrows;
+
+/**
+ * @author Camelion
+ * @since 17.10.26
+ */
+public class SlotTableTest {
+    @Test
+    public void testAcquireAndRelease() {
+        SlotTable<String> table = new SlotTable<>(2);
+
+        int first = table.acquire();
+        int second = table.acquire();
+        table.set(first, "first");
+        table.set(second, "second");
+
+        assertThat(first).isEqualTo(0);
+        assertThat(second).isEqualTo(1);
+        assertThat(table.acquire()).isEqualTo(SlotTable.NO_SLOT);
+        assertThat(table.get(second)).isEqualTo("second");
+        assertThat(table.size()).isEqualTo(2);
+
+        assertThat(table.release(first)).isEqualTo("first");
+        assertThat(table.get(first)).isNull();
+        assertThat(table.slotOf(table.acquire())).isEqualTo(first);
+    }
+
+    @Test
+    public void testStaleHandle() {
+        SlotTable<String> table = new SlotTable<>(3);
+
+        int stale = table.acquire();
+        table.set(stale, "closed");
+        table.release(stale);
+
+        // slot is reused with next generation
+        int handle = table.acquire();
+        table.set(handle, "next");
+
+        assertThat(handle).isNotEqualTo(stale).isPositive();
+        assertThat(table.slotOf(handle)).isEqualTo(table.slotOf(stale));
+        assertThat(table.get(stale)).isNull();
+        assertThat(table.get(handle)).isEqualTo("next");
+        expectThrows(IllegalArgumentException.class, () -> table.release(stale));
+        assertThat(table.release(handle)).isEqualTo("next");
+    }
+
+    @Test
+    public void testInvalidSlots() {
+        SlotTable<String> table = new SlotTable<>(2);
+
+        assertThat(table.get(SlotTable.NO_SLOT)).isNull();
+        assertThat(table.get(2)).isNull();
+        expectThrows(IllegalArgumentException.class, () -> table.release(0));
+
+        table.release(table.acquire());
+        expectThrows(IllegalArgumentException.class, () -> table.release(0));
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2015, 2016, 2017 JTS-Team authors and/or its affiliates. All rights reserved.
+ *
+ * This file is part of JTS-V3 Project.
+ *
+ * JTS-V3 Project is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * JTS-V3 Project is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with JTS-V3 Project.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package ru.jts_dev.gameserver.world;
+
+import org.junit.jupiter.api.Test;
+import ru.jts_dev.common.id.IdPool;
+import ru.jts_dev.common.id.impl.paged.PagedBitmapIdPool;
+import ru.jts_dev.gameserver.model.GameCharacter;
+import ru.jts_dev.gameserver.model.GameItem;
+import ru.jts_dev.gameserver.model.WorldObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.expectThrows;
+
+/**
+ * @author Camelion
+ * @since 17.10.26
+ */
+public class WorldTest {
+    private static final int OBJECTS = 10_000;
+
+    private final IdPool idPool = new PagedBitmapIdPool(100_000, 4096);
+    private final World world = new World(idPool, 16);
+
+    @Test
+    public void testEnterAndLeave() {
+        final GameCharacter character = new GameCharacter();
+
+        world.enter(character);
+
+        assertThat(character.getObjectId()).isGreaterThan(0);
+        assertThat(world.contains(character)).isTrue();
+        assertThat(world.getObject(character.getObjectId())).isSameAs(character);
+        assertThat(world.getObject(character.getObjectId(), GameCharacter.class)).isSameAs(character);
+        assertThat(world.getObject(character.getObjectId(), GameItem.class)).isNull();
+
+        assertThat(world.leave(character)).isTrue();
+        assertThat(world.leave(character)).isFalse();
+        assertThat(world.getObject(character.getObjectId())).isNull();
+        // released id is free again
+        assertThat(idPool.borrow()).isEqualTo(character.getObjectId());
+    }
+
+    @Test
+    public void testEnterWithRegisteredObjectId() {
+        // object id of item, registered by mistake, is borrowed by character again
+        final int objectId = idPool.borrow();
+        world.register(new GameItem(objectId, null));
+        idPool.release(objectId);
+
+        expectThrows(IllegalStateException.class, () -> world.enter(new GameCharacter()));
+
+        assertThat(world.getCharactersCount()).isEqualTo(0);
+        assertThat(idPool.borrow()).isEqualTo(objectId);
+    }
+
+    @Test
+    public void testRegister() {
+        final GameItem item = new GameItem(idPool.borrow(), null);
+
+        assertThat(world.register(item)).isTrue();
+        assertThat(world.register(new GameItem(item.getObjectId(), null))).isFalse();
+        assertThat(world.getObject(item.getObjectId())).isSameAs(item);
+
+        // object with same id isn't unregistered instead of registered one
+        assertThat(world.unregister(new GameItem(item.getObjectId(), null))).isFalse();
+        assertThat(world.unregister(item)).isTrue();
+        assertThat(world.getSize()).isEqualTo(0);
+    }
+
+    @Test
+    public void testCountsAndIteration() {
+        final List<WorldObject> objects = new ArrayList<>();
+        for (int i = 0; i < OBJECTS; i++) {
+            final WorldObject object = i % 10 == 0 ? new GameCharacter() : new GameItem(idPool.borrow(), null);
+            if (object instanceof GameCharacter) {
+                world.enter((GameCharacter) object);
+            } else {
+                world.register(object);
+            }
+            objects.add(object);
+        }
+
+        assertThat(world.getSize()).isEqualTo(OBJECTS);
+        assertThat(world.getCharactersCount()).isEqualTo(OBJECTS / 10);
+        assertThat(world.getItemsCount()).isEqualTo(OBJECTS - OBJECTS / 10);
+        assertThat(world.getCount(WorldObject.class)).isEqualTo(OBJECTS);
+        assertThat(world.getCapacity()).isGreaterThanOrEqualTo(OBJECTS * 4 / 3);
+
+        final List<GameCharacter> characters = new ArrayList<>();
+        world.forEach(GameCharacter.class, characters::add);
+        assertThat(characters).hasSize(OBJECTS / 10).allMatch(world::contains);
+
+        for (final WorldObject object : objects) {
+            assertThat(world.getObject(object.getObjectId())).isSameAs(object);
+        }
+
+        objects.forEach(world::unregister);
+        assertThat(world.getSize()).isEqualTo(0);
+        assertThat(world.getCharactersCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testChurnDoesNotGrowIndex() {
+        for (int i = 0; i < OBJECTS; i++) {
+            final GameCharacter character = new GameCharacter();
+            world.enter(character);
+            world.leave(character);
+        }
+
+        // removed markers are purged on rebuild
+        assertThat(world.getCapacity()).isEqualTo(16);
+    }
+
+    @Test
+    public void testConcurrentLookup() throws Exception {
+        final List<GameItem> resident = new ArrayList<>();
+        for (int i = 0; i < OBJECTS; i++) {
+            final GameItem item = new GameItem(idPool.borrow(), null);
+            world.register(item);
+            resident.add(item);
+        }
+
+        final int threads = 4;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicBoolean running = new AtomicBoolean(true);
+        try {
+            // registrations, removals and rebuilds while lookups of resident objects
+            final Future<?> writer = executor.submit(() -> {
+                start.await();
+                final List<GameCharacter> characters = new ArrayList<>();
+                for (int i = 0; i < 50_000; i++) {
+                    final GameCharacter character = new GameCharacter();
+                    world.enter(character);
+                    characters.add(character);
+                    if (characters.size() > 5_000) {
+                        characters.forEach(world::leave);
+                        characters.clear();
+                    }
+                }
+                running.set(false);
+                return null;
+            });
+
+            final List<Future<Integer>> readers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                readers.add(executor.submit(() -> {
+                    start.await();
+                    int misses = 0;
+                    while (running.get()) {
+                        for (final GameItem item : resident) {
+                            if (world.getObject(item.getObjectId()) != item)
+                                misses++;
+                        }
+                    }
+                    return misses;
+                }));
+            }
+
+            start.countDown();
+            writer.get(30, TimeUnit.SECONDS);
+            for (final Future<Integer> reader : readers) {
+                assertThat(reader.get(30, TimeUnit.SECONDS)).isEqualTo(0);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testInvalidCapacity() {
+        expectThrows(IllegalArgumentException.class, () -> new World(idPool, 1000));
+    }
+}